@@ -12,6 +12,8 @@ public class ImageUploadEvent {
     String movieId;
     String fileName;
     String contentType;
-    byte[] data;
+    // Claim check: the file itself stays in the staging store (see ClaimCheckStore)
+    String stagingKey;
+    String sha256;
     long fileSize;
 }
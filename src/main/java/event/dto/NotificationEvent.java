@@ -14,6 +14,7 @@ public class NotificationEvent {
     String channel;
     String recipient;
     String templateCode;
+    String locale; // language tag the email is rendered in, e.g. "vi"
     Map<String, Object> param;
     String subject;
     String body;
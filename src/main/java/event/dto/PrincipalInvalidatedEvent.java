@@ -0,0 +1,13 @@
+package event.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PrincipalInvalidatedEvent {
+    String userId;
+}
@@ -0,0 +1,14 @@
+package event.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TokenRevokedEvent {
+    String jwtId;
+    long expiresAt; // epoch millis; the revocation can be forgotten after this
+}
@@ -1,55 +1,58 @@
 package movies.config;
 
 
-import com.nimbusds.jose.JOSEException;
-import movies.dto.request.authen.IntrospectRequest;
-import movies.service.AuthenticationService;
+import jakarta.annotation.PostConstruct;
+import movies.service.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.spec.SecretKeySpec;
-import java.text.ParseException;
-import java.util.Objects;
+import java.time.Duration;
 
+/**
+ * Verifies the signature and expiry once, locally, then checks the token id against the in-memory revocation set,
+ * so an authenticated request costs one HMAC and no database query.
+ */
 @Component
 public class CustomJwtDecoder implements JwtDecoder {
     @Value("${spring.jwt.signerKey}")
     private String signerKey;
 
     @Autowired
-    private AuthenticationService authenticationService;
-
-    private NimbusJwtDecoder nimbusJwtDecoder = null;
+    private TokenRevocationService tokenRevocationService;
+
+    private NimbusJwtDecoder nimbusJwtDecoder;
+
+    @PostConstruct
+    public void init() {
+        SecretKeySpec secretKeySpec = new SecretKeySpec(signerKey.getBytes(), "HS512");
+        nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
+                .macAlgorithm(MacAlgorithm.HS512)
+                .build();
+        // No clock skew, matching the expiry check of /introspect
+        nimbusJwtDecoder.setJwtValidator(new JwtTimestampValidator(Duration.ZERO));
+    }
 
     @Override
     public Jwt decode(String token) throws JwtException {
+        Jwt jwt;
         try {
-            var response = authenticationService.introspect(
-                    IntrospectRequest.builder().token(token).build());
-
-            if (!response.isValid()) throw new JwtException("Token invalid");
-        } catch (JOSEException | ParseException e) {
-            throw new JwtException("Error during token introspection: " + e.getMessage());
-        }
-
-        if (Objects.isNull(nimbusJwtDecoder)) {
-            SecretKeySpec secretKeySpec = new SecretKeySpec(signerKey.getBytes(), "HS512");
-            nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
-                    .macAlgorithm(MacAlgorithm.HS512)
-                    .build();
+            jwt = nimbusJwtDecoder.decode(token);
+        } catch (JwtException e) {
+            throw new BadJwtException("Error decoding JWT: " + e.getMessage(), e);
         }
 
-        try {
-            // Log decodedJwt or other relevant details for debugging
-            return nimbusJwtDecoder.decode(token);
-        } catch (JwtException e) {
-            throw new JwtException("Error decoding JWT: " + e.getMessage());
+        if (tokenRevocationService.isRevoked(jwt.getId())) {
+            throw new BadJwtException("Token invalid");
         }
+        return jwt;
     }
 }
@@ -0,0 +1,22 @@
+package movies.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "spring.image-derivatives")
+@Data
+public class ImageDerivativeProperties {
+    // Rendition name -> width in pixels, set in application.yaml; never upscaled
+    private Map<String, Integer> widths = new LinkedHashMap<>();
+    // Decoding and resizing is CPU-bound, so keep it off most cores
+    private int concurrency = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int queueCapacity = 256;
+    private float jpegQuality = 0.8f;
+    // Sources above this many pixels (width x height, read from the header) are not decoded at all
+    private long maxPixels = 100_000_000L;
+}
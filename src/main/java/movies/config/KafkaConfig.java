@@ -1,4 +1,142 @@
 package movies.config;
 
+import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedTopic;
+import movies.exception.AppException;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.time.Duration;
+
+/**
+ * Topics, error handling and listener container factories. Client tuning (batching, compression, idempotence, fetch
+ * sizes) lives under {@code spring.kafka} in application.yaml and is applied by Boot's auto-configured factories.
+ * <p>
+ * A record whose listener keeps failing is retried with exponential back-off and then published to
+ * {@code <topic>.DLT} on the same partition, so one bad message cannot block its partition.
+ */
+@Configuration
+@Slf4j
 public class KafkaConfig {
+    public static final String BATCH_LISTENER_FACTORY = "batchKafkaListenerContainerFactory";
+
+    @Value("${spring.kafka.topics.partitions:3}")
+    private int partitions;
+
+    @Value("${spring.kafka.topics.replicas:1}")
+    private int replicas;
+
+    @Value("${spring.kafka.retry.initial-interval:1s}")
+    private Duration retryInitialInterval;
+
+    @Value("${spring.kafka.retry.max-interval:30s}")
+    private Duration retryMaxInterval;
+
+    @Value("${spring.kafka.retry.max-elapsed:2m}")
+    private Duration retryMaxElapsed;
+
+    @Bean
+    NewTopic emailNotificationsTopic() {
+        return topic(PredefinedTopic.EMAIL_NOTIFICATIONS);
+    }
+
+    @Bean
+    NewTopic emailNotificationsDeadLetterTopic() {
+        return topic(PredefinedTopic.EMAIL_NOTIFICATIONS + PredefinedTopic.DEAD_LETTER_SUFFIX);
+    }
+
+    @Bean
+    NewTopic imageUploadTopic() {
+        return topic(PredefinedTopic.IMAGE_UPLOAD);
+    }
+
+    @Bean
+    NewTopic imageUploadDeadLetterTopic() {
+        return topic(PredefinedTopic.IMAGE_UPLOAD + PredefinedTopic.DEAD_LETTER_SUFFIX);
+    }
+
+    @Bean
+    NewTopic videoUploadTopic() {
+        return topic(PredefinedTopic.VIDEO_UPLOAD);
+    }
+
+    @Bean
+    NewTopic videoUploadDeadLetterTopic() {
+        return topic(PredefinedTopic.VIDEO_UPLOAD + PredefinedTopic.DEAD_LETTER_SUFFIX);
+    }
+
+    @Bean
+    NewTopic tokenRevocationsTopic() {
+        // Every instance reads every revocation, so a single partition keeps them in order at no cost
+        return TopicBuilder.name(PredefinedTopic.TOKEN_REVOCATIONS).partitions(1).replicas(replicas).build();
+    }
+
+    @Bean
+    NewTopic principalInvalidationsTopic() {
+        // Read by every instance too
+        return TopicBuilder.name(PredefinedTopic.PRINCIPAL_INVALIDATIONS).partitions(1).replicas(replicas).build();
+    }
+
+    /**
+     * Publishes a record to {@code <topic>.DLT} on the same partition, with the original topic, offset and exception
+     * in the headers, and waits for the broker to acknowledge it. Also used by listeners that dead-letter records
+     * themselves.
+     */
+    @Bean
+    DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(record.topic() + PredefinedTopic.DEAD_LETTER_SUFFIX,
+                        record.partition()));
+    }
+
+    /**
+     * Applied by Boot's configurer to the default container factory as well as the batch one below.
+     */
+    @Bean
+    CommonErrorHandler kafkaErrorHandler(DeadLetterPublishingRecoverer recoverer) {
+        ExponentialBackOff backOff = new ExponentialBackOff(retryInitialInterval.toMillis(), 2.0);
+        backOff.setMaxInterval(retryMaxInterval.toMillis());
+        backOff.setMaxElapsedTime(retryMaxElapsed.toMillis());
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        // A payload that cannot be deserialized, or that the service rejects, will not get better on retry
+        errorHandler.addNotRetryableExceptions(DeserializationException.class, AppException.class);
+        errorHandler.setRetryListeners((record, exception, attempt) ->
+                log.warn("Kafka delivery attempt {} failed for {}-{}@{}: {}", attempt, record.topic(),
+                        record.partition(), record.offset(), exception.getMessage()));
+        return errorHandler;
+    }
+
+    /**
+     * Same settings as the default factory, but hands listeners a {@code List} of records per poll. A listener that
+     * fails part way should throw {@link org.springframework.kafka.listener.BatchListenerFailedException} with the
+     * index of the bad record, so the ones before it are committed and only the rest are retried.
+     */
+    @Bean(BATCH_LISTENER_FACTORY)
+    ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        // The configurer already applies the error handler bean above
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    private NewTopic topic(String name) {
+        return TopicBuilder.name(name).partitions(partitions).replicas(replicas).build();
+    }
 }
@@ -0,0 +1,22 @@
+package movies.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "spring.mail-dispatch")
+@Data
+public class MailDispatchProperties {
+    // Concurrent sends, each over its own kept-open SMTP connection
+    private int poolSize = 4;
+    // Sends waiting for a connection before the listener stops taking more
+    private int queueCapacity = 500;
+    // Messages per second to any one recipient domain, to stay under provider throttles
+    private double perDomainRate = 5.0;
+    private int maxAttempts = 3;
+    // Doubled after every failed attempt
+    private Duration retryBackoff = Duration.ofSeconds(2);
+}
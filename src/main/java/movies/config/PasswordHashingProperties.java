@@ -0,0 +1,21 @@
+package movies.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "spring.password-hashing")
+@Data
+public class PasswordHashingProperties {
+    // BCrypt log rounds; each step doubles the cost. Stored hashes with a different cost are rehashed on login
+    private int strength = 10;
+    // BCrypt is pure CPU, so more workers than cores only adds contention
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+    // Hashes allowed to wait for a worker before callers are turned away with 429
+    private int queueCapacity = 64;
+    // How long a request thread waits for its hash before giving up
+    private Duration timeout = Duration.ofSeconds(5);
+}
@@ -26,7 +26,7 @@ public class SecurityConfig {
             "/users", "/users/forgot-password", "/users/reset-password",
             "/login", "/introspect", "/logout", "/refresh", "/outbound/authentication",};
     private final String[] MOVIES_ENDPOINTS = {
-            "/confirm/**" , "/videos_hsl/**",  "/genre/**",  "/movie/**"  , "/season/**", "/series/**", "/episode/**"
+            "/confirm/**" , "/videos_hsl/**",  "/genre/**",  "/movie/**"  , "/season/**", "/series/**", "/episode/**", "/search/**"
     };
 
     @Autowired
@@ -75,8 +75,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    PasswordEncoder passwordEncoder(PasswordHashingProperties passwordHashingProperties) {
+        return new BCryptPasswordEncoder(passwordHashingProperties.getStrength());
     }
 
 }
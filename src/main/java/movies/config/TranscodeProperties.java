@@ -0,0 +1,46 @@
+package movies.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "spring.transcode")
+@Data
+public class TranscodeProperties {
+    private String ffmpegPath = "ffmpeg";
+    private String ffprobePath = "ffprobe";
+    // ffmpeg/libx264 already uses several threads per job, so half the cores is a sane default
+    private int concurrency = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int queueCapacity = 16;
+    private int maxAttempts = 3;
+    private Duration retryBackoff = Duration.ofSeconds(30);
+    private int segmentSeconds = 10;
+    // A PROCESSING job whose lease is not renewed for this long is assumed dead and re-queued by any node
+    private Duration leaseDuration = Duration.ofMinutes(2);
+    private Duration heartbeatInterval = Duration.ofSeconds(30);
+    // How often QUEUED jobs that did not fit in the pool, or are due for a retry, are picked up
+    private Duration dispatchInterval = Duration.ofSeconds(15);
+    private List<Rendition> renditions = new ArrayList<>(List.of(
+            new Rendition("240p", 240, 400, 64),
+            new Rendition("480p", 480, 1200, 96),
+            new Rendition("720p", 720, 2800, 128),
+            new Rendition("1080p", 1080, 5000, 160)
+    ));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rendition {
+        private String name;
+        private int height;
+        private int videoBitrateKbps;
+        private int audioBitrateKbps;
+    }
+}
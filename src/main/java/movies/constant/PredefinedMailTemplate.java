@@ -0,0 +1,10 @@
+package movies.constant;
+
+public class PredefinedMailTemplate {
+    // Template codes carried by NotificationEvent; each maps to resources/mail/<code in kebab case>.html
+    public static final String CONFIRM_EMAIL = "CONFIRM_EMAIL";
+    public static final String FORGOT_PASSWORD = "FORGOT_PASSWORD";
+
+    public static final String DEFAULT_LOCALE = "vi";
+    private PredefinedMailTemplate() {}
+}
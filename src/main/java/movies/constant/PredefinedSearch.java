@@ -0,0 +1,10 @@
+package movies.constant;
+
+public class PredefinedSearch {
+    public static final String AGGREGATE_MOVIE = "MOVIE";
+    public static final String AGGREGATE_SERIES = "SERIES";
+
+    public static final String OPERATION_UPSERT = "UPSERT";
+    public static final String OPERATION_DELETE = "DELETE";
+    private PredefinedSearch() {}
+}
@@ -0,0 +1,13 @@
+package movies.constant;
+
+public class PredefinedTopic {
+    public static final String EMAIL_NOTIFICATIONS = "email-notifications";
+    public static final String TOKEN_REVOCATIONS = "token-revocations";
+    public static final String PRINCIPAL_INVALIDATIONS = "principal-invalidations";
+    public static final String IMAGE_UPLOAD = "image-upload-topic";
+    public static final String VIDEO_UPLOAD = "video-upload-topic";
+
+    // Suffix of the dead-letter topic a failed record ends up on, e.g. email-notifications.DLT
+    public static final String DEAD_LETTER_SUFFIX = ".DLT";
+    private PredefinedTopic() {}
+}
@@ -12,6 +12,25 @@ public class PredefinedVideos {
 
     public static final long MAX_FILE_SIZE = 1024 * 1024 * 1024;
 
+    // Cloudinary requires chunks of at least 5 MB
+    public static final int UPLOAD_CHUNK_SIZE = 6 * 1024 * 1024;
+
+    // Transcode job status
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_READY = "READY";
+    public static final String STATUS_FAILED = "FAILED";
+
+    // Resumable upload sessions
+    public static final String UPLOAD_OPEN = "OPEN";
+    public static final String UPLOAD_ASSEMBLING = "ASSEMBLING";
+    public static final String UPLOAD_COMMITTED = "COMMITTED";
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    public static final int MIN_CHUNK_SIZE = 1024 * 1024;
+    public static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+    public static final long UPLOAD_SESSION_TTL_HOURS = 24;
+    // An ASSEMBLING session untouched for this long was left by a node that died mid-commit
+    public static final long UPLOAD_ASSEMBLE_TIMEOUT_MINUTES = 60;
 
     private PredefinedVideos() {}
 }
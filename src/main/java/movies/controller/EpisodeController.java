@@ -7,12 +7,14 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import movies.dto.request.episode.EpisodeRequest;
 import movies.dto.response.ApiResponse;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.episode.EpisodeResponse;
 import movies.service.EpisodeService;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -48,12 +50,21 @@ public class EpisodeController {
     }
 
     @GetMapping
-    public ApiResponse<List<EpisodeResponse>> getAllEpisodes() {
-        return ApiResponse.<List<EpisodeResponse>>builder()
-                .data(episodeService.getAllEpisodes())
+    public ApiResponse<CursorPageResponse<EpisodeResponse>> getAllEpisodes(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return ApiResponse.<CursorPageResponse<EpisodeResponse>>builder()
+                .data(episodeService.getAllEpisodes(cursor, size))
                 .build();
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEpisodes() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(episodeService::exportEpisodes);
+    }
+
     @GetMapping("/{episodeId}")
     public ApiResponse<EpisodeResponse> getEpisodeById(@PathVariable("episodeId") String episodeId) {
         return ApiResponse.<EpisodeResponse>builder()
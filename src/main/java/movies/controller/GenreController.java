@@ -7,11 +7,13 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import movies.dto.request.genre.GenreRequest;
 import movies.dto.response.ApiResponse;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.genre.GenreResponse;
 import movies.service.GenreService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @Slf4j
@@ -38,12 +40,21 @@ public class GenreController {
     }
 
     @GetMapping
-    ApiResponse<List<GenreResponse>> getAllGenre() {
-        return ApiResponse.<List<GenreResponse>>builder()
-                .data(genreService.getAllGenres())
+    ApiResponse<CursorPageResponse<GenreResponse>> getAllGenre(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return ApiResponse.<CursorPageResponse<GenreResponse>>builder()
+                .data(genreService.getAllGenres(cursor, size))
                 .build();
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportGenres() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(genreService::exportGenres);
+    }
+
     @GetMapping("/{genreId}")
     ApiResponse<GenreResponse> getGenreById(@PathVariable("genreId") String genreId) {
         return ApiResponse.<GenreResponse>builder()
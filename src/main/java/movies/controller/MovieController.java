@@ -1,33 +1,28 @@
 package movies.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import movies.dto.request.movie.MovieRequest;
 import movies.dto.response.ApiResponse;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.movie.MovieResponse;
-import movies.dto.response.PageResponse;
+import movies.service.HlsStreamingService;
 import movies.service.MovieService;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.web.PageableDefault;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
 import java.util.List;
 
 @RestController
@@ -37,6 +32,11 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class MovieController {
     MovieService movieService;
+    HlsStreamingService hlsStreamingService;
+
+    @NonFinal
+    @Value("${spring.file.video.hsl}")
+    String hlsDir;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     ApiResponse<MovieResponse> createMovie(
@@ -63,12 +63,21 @@ public class MovieController {
     }
 
     @GetMapping
-    ApiResponse<List<MovieResponse>> getAllMovies() {
-        return ApiResponse.<List<MovieResponse>>builder()
-                .data(movieService.getAllMovies())
+    ApiResponse<CursorPageResponse<MovieResponse>> getAllMovies(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return ApiResponse.<CursorPageResponse<MovieResponse>>builder()
+                .data(movieService.getAllMovies(cursor, size))
                 .build();
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportMovies() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(movieService::exportMovies);
+    }
+
     @GetMapping("/{movieId}")
     ApiResponse<MovieResponse> getMovieById(@PathVariable("movieId") String movieId) {
         return ApiResponse.<MovieResponse>builder()
@@ -85,21 +94,25 @@ public class MovieController {
     }
 
     @GetMapping("/search")
-    public ApiResponse<PageResponse<MovieResponse>> searchMovies(
+    public ApiResponse<CursorPageResponse<MovieResponse>> searchMovies(
             @RequestParam("query") String query,
-            @PageableDefault(size = 10) Pageable pageable
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
+            @RequestParam(value = "withTotal", required = false, defaultValue = "false") boolean withTotal
     ) {
-        return ApiResponse.<PageResponse<MovieResponse>>builder()
-                .data(movieService.searchMovies(query, pageable))
+        return ApiResponse.<CursorPageResponse<MovieResponse>>builder()
+                .data(movieService.searchMovies(query, cursor, size, withTotal))
                 .build();
     }
 
     @GetMapping("/genre/{genreId}")
-    public ApiResponse<PageResponse<MovieResponse>> getMoviesByGenre(
+    public ApiResponse<CursorPageResponse<MovieResponse>> getMoviesByGenre(
             @PathVariable String genreId,
-            @PageableDefault(size = 10) Pageable pageable) {
-        return ApiResponse.<PageResponse<MovieResponse>>builder()
-                .data(movieService.getMoviesByGenre(genreId, pageable))
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
+            @RequestParam(value = "withTotal", required = false, defaultValue = "false") boolean withTotal) {
+        return ApiResponse.<CursorPageResponse<MovieResponse>>builder()
+                .data(movieService.getMoviesByGenre(genreId, cursor, size, withTotal))
                 .build();
     }
 
@@ -117,35 +130,39 @@ public class MovieController {
                 .build();
     }
 
-    @GetMapping(value = "/videos_hsl/{movieId}/master.m3u8")
-    public ResponseEntity<Resource> getHlsMaster(@PathVariable String movieId) {
-
-        Path path = Paths.get("videos_hsl", movieId, "master.m3u8");
-        if (!Files.exists(path)) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
-
-        Resource resource = new FileSystemResource(path);
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, "application/vnd.apple.mpegurl")
-                .body(resource);
+    @GetMapping(value = "/videos_hsl/{movieId:[\\w-]+}/master.m3u8")
+    public void getHlsMaster(
+            @PathVariable String movieId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        hlsStreamingService.servePlaylist(Paths.get(hlsDir, movieId, "master.m3u8"), request, response);
     }
 
-    @GetMapping("/videos_hsl/{movieId}/{segment}.ts")
-    public ResponseEntity<Resource> serveSegments(
+    @GetMapping("/videos_hsl/{movieId:[\\w-]+}/{variant:[\\w-]+}/index.m3u8")
+    public void getHlsVariant(
             @PathVariable String movieId,
-            @PathVariable String segment) {
-
-        Path path = Paths.get("videos_hsl", movieId, segment + ".ts");
-        if (!Files.exists(path)) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
+            @PathVariable String variant,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        hlsStreamingService.servePlaylist(Paths.get(hlsDir, movieId, variant, "index.m3u8"), request, response);
+    }
 
-        Resource resource = new FileSystemResource(path);
+    @GetMapping("/videos_hsl/{movieId:[\\w-]+}/{segment:[\\w-]+}.ts")
+    public void serveSegments(
+            @PathVariable String movieId,
+            @PathVariable String segment,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        hlsStreamingService.serveSegment(Paths.get(hlsDir, movieId, segment + ".ts"), request, response);
+    }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, "video/mp2t")
-                .body(resource);
+    @GetMapping("/videos_hsl/{movieId:[\\w-]+}/{variant:[\\w-]+}/{segment:[\\w-]+}.ts")
+    public void serveVariantSegments(
+            @PathVariable String movieId,
+            @PathVariable String variant,
+            @PathVariable String segment,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        hlsStreamingService.serveSegment(Paths.get(hlsDir, movieId, variant, segment + ".ts"), request, response);
     }
 }
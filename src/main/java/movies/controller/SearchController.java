@@ -1,4 +1,77 @@
 package movies.controller;
 
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import movies.dto.request.search.SearchRequest;
+import movies.dto.response.ApiResponse;
+import movies.dto.response.search.SearchResponse;
+import movies.dto.response.search.SuggestionResponse;
+import movies.dto.response.search.UnifiedSearchResponse;
+import movies.service.SearchIndexer;
+import movies.service.SearchService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Slf4j
+@RequiredArgsConstructor
+@RequestMapping("/search")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class SearchController {
+    SearchService searchService;
+    SearchIndexer searchIndexer;
+
+    /**
+     * Ranked, typo-tolerant movie search with genre, country and year facets, e.g.
+     * {@code /search?query=avngers&genres=Action&yearFrom=2010&page=0&size=10}
+     */
+    @GetMapping
+    ApiResponse<SearchResponse> search(@ModelAttribute SearchRequest request) {
+        return ApiResponse.<SearchResponse>builder()
+                .data(searchService.search(request))
+                .build();
+    }
+
+    /**
+     * Movies and series for one query in a single backend round trip, each with its own ranking and facets, e.g.
+     * {@code /search/all?query=tinh yeu&genres=Tình cảm}
+     */
+    @GetMapping("/all")
+    ApiResponse<UnifiedSearchResponse> searchAll(@ModelAttribute SearchRequest request) {
+        return ApiResponse.<UnifiedSearchResponse>builder()
+                .data(searchService.searchAll(request))
+                .build();
+    }
+
+    /**
+     * Title suggestions for a partially typed query, most popular first, e.g. {@code /search/suggest?query=ha no}
+     */
+    @GetMapping("/suggest")
+    ApiResponse<List<SuggestionResponse>> suggest(@RequestParam String query,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        return ApiResponse.<List<SuggestionResponse>>builder()
+                .data(searchService.suggest(query, limit))
+                .build();
+    }
+
+    /**
+     * Rebuilds the index from the catalog in the background; changes made meanwhile still flow through the outbox.
+     */
+    @PostMapping("/reindex")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    ApiResponse<Void> reindex() {
+        return ApiResponse.<Void>builder()
+                .message(searchIndexer.reindex() ? "Reindex started" : "Reindex already running")
+                .build();
+    }
 }
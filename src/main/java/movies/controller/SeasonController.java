@@ -8,10 +8,13 @@ import lombok.extern.slf4j.Slf4j;
 import movies.dto.request.season.SeasonCreationRequest;
 import movies.dto.request.season.SeasonUpdateRequest;
 import movies.dto.response.ApiResponse;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.season.SeasonResponse;
 import movies.service.SeasonService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -40,12 +43,21 @@ public class SeasonController {
     }
 
     @GetMapping
-    ApiResponse<List<SeasonResponse>> getAllSeason() {
-        return ApiResponse.<List<SeasonResponse>>builder()
-                .data(seasonService.getAllSeason())
+    ApiResponse<CursorPageResponse<SeasonResponse>> getAllSeason(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return ApiResponse.<CursorPageResponse<SeasonResponse>>builder()
+                .data(seasonService.getAllSeason(cursor, size))
                 .build();
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportSeasons() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(seasonService::exportSeasons);
+    }
+
     @GetMapping("/{seasonId}")
     ApiResponse<SeasonResponse> getSeasonById(@PathVariable("seasonId") String seasonId) {
         return ApiResponse.<SeasonResponse>builder()
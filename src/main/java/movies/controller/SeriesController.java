@@ -7,12 +7,16 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import movies.dto.request.series.SeriesRequest;
 import movies.dto.response.ApiResponse;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.PageResponse;
 import movies.dto.response.series.SeriesResponse;
 import movies.service.SeriesService;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -41,12 +45,21 @@ public class SeriesController {
     }
 
     @GetMapping
-    ApiResponse<List<SeriesResponse>> getAllSeries() {
-        return ApiResponse.<List<SeriesResponse>>builder()
-                .data(seriesService.getAllSeries())
+    ApiResponse<CursorPageResponse<SeriesResponse>> getAllSeries(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        return ApiResponse.<CursorPageResponse<SeriesResponse>>builder()
+                .data(seriesService.getAllSeries(cursor, size))
                 .build();
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportSeries() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(seriesService::exportSeries);
+    }
+
     @GetMapping("/{seriesId}")
     ApiResponse<SeriesResponse> getSeriesById(@PathVariable("seriesId") String seriesId) {
         return ApiResponse.<SeriesResponse>builder()
@@ -73,11 +86,13 @@ public class SeriesController {
     }
 
     @GetMapping("/genre/{genreId}")
-    public ApiResponse<PageResponse<SeriesResponse>> getSeriesByGenre(
+    public ApiResponse<CursorPageResponse<SeriesResponse>> getSeriesByGenre(
             @PathVariable String genreId,
-            @PageableDefault(size = 10) Pageable pageable) {
-        return ApiResponse.<PageResponse<SeriesResponse>>builder()
-                .data(seriesService.getSeriesByGenre(genreId, pageable))
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false, defaultValue = "10") Integer size,
+            @RequestParam(value = "withTotal", required = false, defaultValue = "false") boolean withTotal) {
+        return ApiResponse.<CursorPageResponse<SeriesResponse>>builder()
+                .data(seriesService.getSeriesByGenre(genreId, cursor, size, withTotal))
                 .build();
     }
 
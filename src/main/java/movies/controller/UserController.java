@@ -9,7 +9,7 @@ import movies.dto.request.user.ResetPasswordRequest;
 import movies.dto.request.user.UserCreationRequest;
 import movies.dto.request.user.UserUpdateRequest;
 import movies.dto.response.ApiResponse;
-import movies.dto.response.PageResponse;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.user.ForgotPasswordResponse;
 import movies.dto.response.user.ResetPasswordResponse;
 import movies.dto.response.user.UserResponse;
@@ -42,11 +42,12 @@ public class UserController {
     }
 
     @GetMapping
-    ApiResponse<PageResponse<UserResponse>> getAllUser(
-            @RequestParam(value = "page", required = false, defaultValue = "1") int page,
-            @RequestParam(value = "size", required = false, defaultValue = "6") int size) {
-        return ApiResponse.<PageResponse<UserResponse>>builder()
-                .data(userService.getAllUser(page, size))
+    ApiResponse<CursorPageResponse<UserResponse>> getAllUser(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false, defaultValue = "6") Integer size,
+            @RequestParam(value = "withTotal", required = false, defaultValue = "false") boolean withTotal) {
+        return ApiResponse.<CursorPageResponse<UserResponse>>builder()
+                .data(userService.getAllUser(cursor, size, withTotal))
                 .build();
     }
 
@@ -1,11 +1,16 @@
 package movies.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import movies.dto.request.upload.UploadSessionRequest;
 import movies.dto.request.video.VideoRequest;
+import movies.dto.response.upload.UploadSessionResponse;
 import movies.dto.response.video.VideoResponse;
+import movies.service.ChunkedUploadService;
 import movies.service.VideoService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -14,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
 
 
@@ -24,6 +30,7 @@ import java.net.URI;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class VideoController {
     VideoService videoService;
+    ChunkedUploadService chunkedUploadService;
 
     @PostMapping("/upload/{movieId}")
     public ResponseEntity<VideoResponse> uploadVideo(
@@ -41,11 +48,35 @@ public class VideoController {
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<VideoResponse> uploadVideo(
-            @PathVariable("movieId") VideoRequest request,
+            @ModelAttribute VideoRequest request,
             @RequestPart("file") MultipartFile file) {
 
         VideoResponse response = videoService.save(request, file);
 
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(response.getId())
+                .toUri();
+
+        // Transcoding runs in the background, clients poll the location for status and progress
+        return ResponseEntity.accepted().location(location).body(response);
+    }
+
+    @GetMapping("/{videoId}")
+    public ResponseEntity<VideoResponse> getVideo(@PathVariable String videoId) {
+        return ResponseEntity.ok(videoService.getVideo(videoId));
+    }
+
+    @PostMapping("/{videoId}/retry")
+    public ResponseEntity<VideoResponse> retryTranscode(@PathVariable String videoId) {
+        return ResponseEntity.accepted().body(videoService.retryTranscode(videoId));
+    }
+
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionResponse> createUploadSession(@Valid @RequestBody UploadSessionRequest request) {
+        UploadSessionResponse response = chunkedUploadService.createSession(request);
+
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest()
                 .path("/{id}")
@@ -54,4 +85,30 @@ public class VideoController {
 
         return ResponseEntity.created(location).body(response);
     }
+
+    @GetMapping("/uploads/{sessionId}")
+    public ResponseEntity<UploadSessionResponse> getUploadSession(@PathVariable String sessionId) {
+        return ResponseEntity.ok(chunkedUploadService.getSession(sessionId));
+    }
+
+    @PutMapping(value = "/uploads/{sessionId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadSessionResponse> uploadChunk(
+            @PathVariable String sessionId,
+            @PathVariable int index,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(chunkedUploadService.writeChunk(sessionId, index, request.getInputStream()));
+    }
+
+    @PostMapping("/uploads/{sessionId}/commit")
+    public ResponseEntity<VideoResponse> commitUpload(@PathVariable String sessionId) throws IOException {
+        VideoResponse response = chunkedUploadService.commit(sessionId);
+
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath()
+                .path("/video/{id}")
+                .buildAndExpand(response.getId())
+                .toUri();
+
+        return ResponseEntity.accepted().location(location).body(response);
+    }
 }
@@ -6,6 +6,8 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.Setting;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -15,7 +17,10 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(indexName = "movies")
+// indexName is an alias over versioned indices managed by ElasticsearchIndexManager, hence createIndex = false
+@Document(indexName = "movies", createIndex = false)
+@Setting(settingPath = "elasticsearch/settings.json")
+@Mapping(mappingPath = "elasticsearch/movies-mapping.json")
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class MovieDocument {
     @Id
@@ -33,6 +38,9 @@ public class MovieDocument {
     @Field(type = FieldType.Date)
     LocalDate releaseDate;
 
+    @Field(type = FieldType.Integer)
+    Integer releaseYear;
+
     @Field(type = FieldType.Keyword)
     String posterUrl;
 
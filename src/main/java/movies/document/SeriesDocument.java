@@ -6,6 +6,8 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.Setting;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -16,7 +18,10 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(indexName = "movies")
+// indexName is an alias over versioned indices managed by ElasticsearchIndexManager, hence createIndex = false
+@Document(indexName = "series", createIndex = false)
+@Setting(settingPath = "elasticsearch/settings.json")
+@Mapping(mappingPath = "elasticsearch/series-mapping.json")
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class SeriesDocument {
     @Id
@@ -40,7 +45,7 @@ public class SeriesDocument {
     @Field(type = FieldType.Keyword)
     Set<String> genres;
 
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Text)
     List<String> seasonTitles; // hoặc seasonNumbers nếu bạn muốn
 
     @Field(type = FieldType.Date)
@@ -0,0 +1,26 @@
+package movies.dto.request.search;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Set;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SearchRequest {
+    String query;
+    Set<String> genres;
+    Set<String> countries;
+    Integer yearFrom;
+    Integer yearTo;
+
+    @Builder.Default
+    int page = 0;
+
+    @Builder.Default
+    int size = 10;
+}
@@ -0,0 +1,26 @@
+package movies.dto.request.upload;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UploadSessionRequest {
+    String movieId;
+    String episodeId;
+    @NotBlank(message = "INVALID_VIDEO_FILE")
+    String fileName;
+    @NotBlank(message = "INVALID_VIDEO_FORMAT")
+    String fileType;
+    @NotNull(message = "INVALID_VIDEO_SIZE")
+    @Min(value = 1, message = "INVALID_VIDEO_SIZE")
+    Long totalSize;
+    Integer chunkSize;
+}
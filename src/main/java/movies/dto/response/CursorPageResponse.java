@@ -0,0 +1,26 @@
+package movies.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Collections;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPageResponse<T> {
+    int pageSize;
+    boolean hasNext;
+    boolean hasPrevious;
+    // Opaque; pass back as ?cursor= to get the following / preceding page, null when there is none
+    String nextCursor;
+    String prevCursor;
+    // Only filled when the client asks for it, since an exact count costs a full scan of the matches
+    Long totalElements;
+
+    @Builder.Default
+    private List<T> data = Collections.emptyList();
+}
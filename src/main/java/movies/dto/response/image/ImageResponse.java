@@ -5,6 +5,7 @@ import lombok.*;
 import lombok.experimental.FieldDefaults;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Setter
 @Getter
@@ -22,6 +23,12 @@ public class ImageResponse {
     String cloudinaryUrl;
     String localUrl;
     String imageType;
+    Integer width;
+    Integer height;
+
+    List<ImageVariantResponse> variants;
+    // "url 150w, url 342w, ..." for <img srcset>, smallest first
+    String srcset;
 
     Boolean isStoredLocally;
     Boolean isStoredInCloudinary;
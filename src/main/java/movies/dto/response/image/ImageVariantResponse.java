@@ -0,0 +1,19 @@
+package movies.dto.response.image;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ImageVariantResponse {
+    String name;
+    Integer width;
+    Integer height;
+    String format;
+    String url;
+    Long fileSize;
+}
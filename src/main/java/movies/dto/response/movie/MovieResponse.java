@@ -26,6 +26,7 @@ public class MovieResponse {
     LocalDate releaseDate;
     String country;
     Double averageRating;
+    Long ratingCount;
 
     Set<GenreNamesResponse> genres;
     VideoResponse video;
@@ -0,0 +1,14 @@
+package movies.dto.response.search;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FacetBucket {
+    String value;
+    long count;
+}
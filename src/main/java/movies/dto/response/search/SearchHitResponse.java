@@ -0,0 +1,24 @@
+package movies.dto.response.search;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SearchHitResponse {
+    String type; // MOVIE or SERIES
+    String id;
+    String title;
+    String description;
+    String posterUrl;
+    String country;
+    Integer releaseYear; // movies only
+    Double averageRating;
+    Set<String> genres;
+    double score;
+}
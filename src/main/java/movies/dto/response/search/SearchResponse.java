@@ -0,0 +1,28 @@
+package movies.dto.response.search;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SearchResponse {
+    int currentPage;
+    int totalPages;
+    int pageSize;
+    long totalElements;
+    long tookMs;
+
+    @Builder.Default
+    List<SearchHitResponse> data = Collections.emptyList();
+
+    // Facet name (genres, countries, years) to its buckets, most frequent first
+    @Builder.Default
+    Map<String, List<FacetBucket>> facets = Collections.emptyMap();
+}
@@ -0,0 +1,16 @@
+package movies.dto.response.search;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SuggestionResponse {
+    String type; // MOVIE or SERIES
+    String id;
+    String title;
+    String posterUrl;
+}
@@ -0,0 +1,18 @@
+package movies.dto.response.search;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Movies and series matching one query, ranked and faceted independently.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UnifiedSearchResponse {
+    long tookMs;
+    SearchResponse movies;
+    SearchResponse series;
+}
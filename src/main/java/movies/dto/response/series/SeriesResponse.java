@@ -21,6 +21,7 @@ public class SeriesResponse {
     String posterUrl;
     String country;
     Double averageRating;
+    Long ratingCount;
     Set<GenreNamesResponse> genres;
     List<SeasonNameResponse> seasons;
     LocalDateTime createdAt;
@@ -0,0 +1,29 @@
+package movies.dto.response.upload;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UploadSessionResponse {
+    String id;
+    String movieId;
+    String episodeId;
+    String originalFileName;
+    String fileType;
+    Long totalSize;
+    Integer chunkSize;
+    Integer totalChunks;
+    List<Integer> receivedChunks;
+    String status;
+    String videoId;
+    LocalDateTime expiresAt;
+    LocalDateTime createdAt;
+}
@@ -21,6 +21,8 @@ public class VideoResponse {
      String filePath;
      String hlsPath;
      String status;
+     Integer progress;
+     String lastError;
 
      String fileName;
      String originalFileName;
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.NotFound;
 import org.hibernate.annotations.NotFoundAction;
 import org.springframework.data.annotation.CreatedDate;
@@ -11,6 +12,8 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Setter
 @Getter
@@ -38,6 +41,18 @@ public class Image {
 
     String imageType;
 
+    // Pixel size of the original, once known
+    Integer width;
+    Integer height;
+
+    @ElementCollection
+    @CollectionTable(name = "image_variant", joinColumns = @JoinColumn(name = "image_id"))
+    @OrderBy("width ASC")
+    // Movie responses list every image, so load renditions for many images per query
+    @BatchSize(size = 50)
+    @Builder.Default
+    List<ImageVariant> variants = new ArrayList<>();
+
     @ManyToOne(fetch = FetchType.LAZY)
     Movie movie;
 
@@ -0,0 +1,27 @@
+package movies.entity;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * A resized rendition of an {@link Image}. Cloudinary renditions are transformation URLs rendered on first request
+ * (in WebP/AVIF where the browser accepts them); local ones are files written next to the original.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ImageVariant {
+    String name;
+    Integer width;
+    Integer height;
+    String format;
+    String url;
+    // Local renditions only
+    String filePath;
+    Long fileSize;
+}
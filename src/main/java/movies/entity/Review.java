@@ -54,12 +54,5 @@ public class Review {
         if ((movie == null && series == null) || (movie != null && series != null)) {
             throw new IllegalStateException("A review must be associated with exactly one content type (movie or series)");
         }
-
-        // Update the average rating
-        if (movie != null) {
-            movie.updateAverageRating();
-        } else if (series != null) {
-            series.updateAverageRating();
-        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package movies.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pending search-index change, written in the same transaction as the catalog change it describes and removed
+ * once the indexer has applied it.
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_search_outbox_next_attempt_at", columnList = "next_attempt_at"))
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SearchOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    @Column(nullable = false)
+    String aggregateType;
+
+    @Column(nullable = false)
+    String aggregateId;
+
+    @Column(nullable = false)
+    String operation;
+
+    @Builder.Default
+    @Column(nullable = false)
+    Integer attempts = 0;
+
+    @Column(nullable = false)
+    LocalDateTime nextAttemptAt;
+
+    @Column(nullable = false, updatable = false)
+    LocalDateTime createdAt;
+}
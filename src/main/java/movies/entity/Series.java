@@ -3,6 +3,8 @@ package movies.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -19,6 +21,11 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@DynamicUpdate // only write changed columns, so saving a title never clobbers the rating counters
+@Table(indexes = {
+        @Index(name = "idx_series_average_rating", columnList = "average_rating"),
+        @Index(name = "idx_series_created_at_id", columnList = "created_at, id")
+})
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @EntityListeners(AuditingEntityListener.class)
 public class Series {
@@ -34,6 +41,42 @@ public class Series {
     @Builder.Default
     Double averageRating = 0.0;
 
+    // Rating aggregate, rebuilt from the review table by RatingService.recomputeAll
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    Long ratingCount = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    Long ratingSum = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    Long oneStarCount = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    Long twoStarCount = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    Long threeStarCount = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    Long fourStarCount = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    Long fiveStarCount = 0L;
+
     @ManyToMany
     Set<Genre> genres = new HashSet<>();
 
@@ -63,17 +106,4 @@ public class Series {
     @LastModifiedDate
     @Column(nullable = false)
     LocalDateTime updatedAt;
-
-    public void updateAverageRating() {
-        if (reviews.isEmpty()) {
-            this.averageRating = 0.0;
-            return;
-        }
-
-        double sum = reviews.stream()
-                .mapToDouble(Review::getRating)
-                .sum();
-
-        this.averageRating = sum / reviews.size();
-    }
 }
\ No newline at end of file
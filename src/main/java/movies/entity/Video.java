@@ -23,7 +23,14 @@ public class Video {
     String id;
     String filePath;
     String hlsPath;
-//    String status;
+    String status;
+    Integer progress;
+    Integer attempts;
+    String lastError;
+    LocalDateTime nextAttemptAt;
+    // Node running the transcode and until when it holds the job; renewed by its heartbeat
+    String leaseOwner;
+    LocalDateTime leaseExpiresAt;
 
     String fileName;
     String originalFileName;
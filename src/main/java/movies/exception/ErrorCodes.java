@@ -41,6 +41,7 @@ public enum ErrorCodes {
     EXPIRED_RESET_TOKEN(3004, "Expired reset token", HttpStatus.NOT_FOUND),
     INVALID_TOKEN_TYPE(3005, "Invalid token type", HttpStatus.BAD_REQUEST),
     EMAIL_NOT_CONFIRMED(3006, "You have not verified your email", HttpStatus.BAD_REQUEST),
+    TOO_MANY_REQUESTS(3007, "Too many requests, please try again shortly", HttpStatus.TOO_MANY_REQUESTS),
 
     // ===== Validation & Required =====
     USERNAME_INVALID(4000, "Username must be at least 4 characters", HttpStatus.BAD_REQUEST),
@@ -55,6 +56,8 @@ public enum ErrorCodes {
     SEASON_REQUIRED(4009, "Season ID is required", HttpStatus.BAD_REQUEST),
     EPISODE_REQUIRED(4010, "Episode number is required", HttpStatus.BAD_REQUEST),
     EPISODE_INVALID(4011, "Episode number must be at least 1", HttpStatus.BAD_REQUEST),
+    INVALID_CURSOR(4012, "Invalid page cursor", HttpStatus.BAD_REQUEST),
+    INVALID_MAIL_TEMPLATE(4013, "Unknown mail template", HttpStatus.BAD_REQUEST),
 
     // ===== Video =====
     VIDEO_INVALID_OWNER(5000, "Video invalid owner", HttpStatus.BAD_REQUEST),
@@ -63,6 +66,11 @@ public enum ErrorCodes {
     INVALID_VIDEO_SIZE(5003, "Image size exceeds the maximum allowed limit", HttpStatus.BAD_REQUEST),
     INVALID_VIDEO_FORMAT(5004, "Unsupported image format", HttpStatus.BAD_REQUEST),
     VIDEO_PROCESSING_FAILED(5005, "Failed to process image file", HttpStatus.INTERNAL_SERVER_ERROR),
+    VIDEO_NOT_RETRYABLE(5006, "Only failed videos can be re-queued", HttpStatus.CONFLICT),
+    UPLOAD_SESSION_NOT_EXISTED(5007, "Upload session not existed", HttpStatus.NOT_FOUND),
+    UPLOAD_SESSION_CLOSED(5008, "Upload session is no longer accepting chunks", HttpStatus.CONFLICT),
+    INVALID_CHUNK(5009, "Chunk index or size does not match the upload session", HttpStatus.BAD_REQUEST),
+    UPLOAD_INCOMPLETE(5010, "Not all chunks have been uploaded", HttpStatus.CONFLICT),
 
     // ===== Search =====
     MOVIES_NOT_FOUND_BY_GENRE(6000, "No movies found for the given genre", HttpStatus.NOT_FOUND),
@@ -4,73 +4,136 @@ import event.dto.ImageUploadEvent;
 import event.dto.MovieProcessingEvent;
 import event.dto.NotificationEvent;
 import event.dto.VideoUploadEvent;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import movies.config.KafkaConfig;
+import movies.constant.PredefinedTopic;
 import movies.entity.Movie;
 import movies.exception.AppException;
 import movies.exception.ErrorCodes;
 import movies.repository.MovieRepository;
 import movies.service.EmailService;
 import movies.service.ImageService;
+import movies.service.MailDispatcher;
 import movies.service.VideoService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @Slf4j
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class NotificationKafkaListener {
+    static final LogAccessor LOGGER = new LogAccessor(NotificationKafkaListener.class);
+
     EmailService emailService;
+    MailDispatcher mailDispatcher;
+    DeadLetterPublishingRecoverer deadLetterRecoverer;
     VideoService videoService;
     ImageService imageService;
     MovieRepository movieRepository;
 
-    @KafkaListener(topics = "email-notifications")
-    public void handleEmailNotification(NotificationEvent message) {
-        try {
-            if (!"EMAIL".equalsIgnoreCase(message.getChannel())) return;
+    /**
+     * Takes a whole poll at a time and hands every message to {@link MailDispatcher}, which sends them concurrently
+     * and retries on its own. Records that cannot be read, and messages that still fail, are published to the
+     * dead-letter topic here once every send has finished, so the batch is committed and nothing that was already
+     * sent goes out twice. Only if the dead-letter topic itself cannot be reached does the batch fail from that
+     * record on.
+     */
+    @KafkaListener(topics = PredefinedTopic.EMAIL_NOTIFICATIONS, containerFactory = KafkaConfig.BATCH_LISTENER_FACTORY,
+            concurrency = "${spring.kafka.listeners.email-notifications.concurrency:3}")
+    public void handleEmailNotifications(List<ConsumerRecord<String, NotificationEvent>> records) {
+        List<CompletableFuture<Throwable>> outcomes = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, NotificationEvent> record : records) {
+            // Every step runs inside the chain, so a bad record fails its own future rather than the whole batch
+            outcomes.add(CompletableFuture.completedFuture(record)
+                    .thenCompose(this::sendEmailNotification)
+                    .handle((sent, e) -> e));
+        }
+        CompletableFuture.allOf(outcomes.toArray(CompletableFuture[]::new)).join();
 
-            Map<String, Object> param = message.getParam();
-            if (param == null || !param.containsKey("token") || !param.containsKey("tokenType")) {
-                log.warn("Thiếu thông tin token hoặc tokenType");
-                return;
+        for (int i = 0; i < records.size(); i++) {
+            Throwable failure = outcomes.get(i).join();
+            if (failure != null) {
+                deadLetter(records.get(i), i, failure);
             }
+        }
+    }
 
-            String token = (String) param.get("token");
-            String tokenType = (String) param.get("tokenType");
+    private CompletableFuture<Void> sendEmailNotification(ConsumerRecord<String, NotificationEvent> record) {
+        NotificationEvent message = record.value();
+        if (message == null) {
+            // The error-handling deserializer leaves a null value and puts the failure in a header
+            DeserializationException e = SerializationUtils.getExceptionFromHeader(record,
+                    SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOGGER);
+            return CompletableFuture.failedFuture(
+                    e != null ? e : new IllegalArgumentException("Notification record has no payload"));
+        }
 
-            emailService.sendTokenEmail(
-                    message.getRecipient(),
-                    token,
-                    tokenType
-            );
+        if (!"EMAIL".equalsIgnoreCase(message.getChannel())) return CompletableFuture.completedFuture(null);
 
-        } catch (Exception e) {
-            log.error("Gửi email thất bại: {}", e.getMessage(), e);
+        Map<String, Object> param = message.getParam();
+        if (param == null || !param.containsKey("token") || !param.containsKey("tokenType")) {
+            log.warn("Thiếu thông tin token hoặc tokenType");
+            return CompletableFuture.completedFuture(null);
         }
+
+        String token = (String) param.get("token");
+        String tokenType = (String) param.get("tokenType");
+
+        try {
+            MimeMessage email = message.getTemplateCode() != null
+                    ? emailService.composeTemplateEmail(message.getRecipient(), message.getTemplateCode(),
+                            message.getLocale(), param)
+                    : emailService.composeTokenEmail(message.getRecipient(), token, tokenType, message.getLocale());
+            return mailDispatcher.send(email);
+        } catch (MessagingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Publishes the record to the dead-letter topic with the failure in its headers and waits for the broker to take
+     * it. If that fails, the records before {@code index} are committed and the rest are redelivered.
+     */
+    private void deadLetter(ConsumerRecord<String, NotificationEvent> record, int index, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        log.error("Gửi email thất bại ({}-{}@{}): {}", record.topic(), record.partition(), record.offset(),
+                cause.getMessage());
+        try {
+            deadLetterRecoverer.accept(record,
+                    cause instanceof Exception exception ? exception : new CompletionException(cause));
+        } catch (RuntimeException publishFailure) {
+            throw new BatchListenerFailedException("Could not dead-letter notification", publishFailure, index);
+        }
+    }
+
+    @KafkaListener(topics = PredefinedTopic.IMAGE_UPLOAD)
+    public void handleImageUpload(ImageUploadEvent event) throws IOException {
+        imageService.uploadImageFromEvent(event);
     }
 
-//    @KafkaListener(topics = "image-upload-topic")
-//    public void handleImageUpload(ImageUploadEvent event) {
-//        try {
-//            imageService.uploadImageFromEvent(event);
-//        } catch (IOException e) {
-//            log.error("Failed to upload image for movie {}", event.getMovieId(), e);
-//        }
-//    }
-//    @KafkaListener(topics = "video-upload-topic")
-//    public void handleVideoUpload(VideoUploadEvent event) {
-//        try {
-//            videoService.uploadVideoFromEvent(event);
-//        } catch (IOException e) {
-//            log.error("Failed to upload video for movie {}", event.getMovieId(), e);
-//        }
-//    }
+    // One video per poll: an upload can run for minutes, longer than a poll of many records may take
+    @KafkaListener(topics = PredefinedTopic.VIDEO_UPLOAD,
+            properties = {"max.poll.records=1", "max.poll.interval.ms=1800000"})
+    public void handleVideoUpload(VideoUploadEvent event) throws IOException {
+        videoService.uploadVideoFromEvent(event);
+    }
 }
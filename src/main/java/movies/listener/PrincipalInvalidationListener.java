@@ -0,0 +1,27 @@
+package movies.listener;
+
+import event.dto.PrincipalInvalidatedEvent;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import movies.constant.PredefinedTopic;
+import movies.service.UserPrincipalCache;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Every instance caches principals, so each one listens in its own consumer group, starting from the latest offset;
+ * an instance that starts later has nothing cached yet.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PrincipalInvalidationListener {
+    UserPrincipalCache userPrincipalCache;
+
+    @KafkaListener(topics = PredefinedTopic.PRINCIPAL_INVALIDATIONS, groupId = "movies-principals-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void handlePrincipalInvalidated(PrincipalInvalidatedEvent event) {
+        userPrincipalCache.evict(event.getUserId());
+    }
+}
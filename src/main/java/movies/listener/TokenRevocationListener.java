@@ -0,0 +1,27 @@
+package movies.listener;
+
+import event.dto.TokenRevokedEvent;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import movies.constant.PredefinedTopic;
+import movies.service.TokenRevocationService;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Every instance has to see every revocation, so each one listens in its own consumer group, starting from the
+ * latest offset; anything older is loaded from the database on startup.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TokenRevocationListener {
+    TokenRevocationService tokenRevocationService;
+
+    @KafkaListener(topics = PredefinedTopic.TOKEN_REVOCATIONS, groupId = "movies-revocations-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void handleTokenRevoked(TokenRevokedEvent event) {
+        tokenRevocationService.remember(event.getJwtId(), event.getExpiresAt());
+    }
+}
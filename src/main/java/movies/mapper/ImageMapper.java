@@ -2,17 +2,35 @@ package movies.mapper;
 
 import movies.dto.request.image.ImageRequest;
 import movies.dto.response.image.ImageResponse;
+import movies.dto.response.image.ImageVariantResponse;
 import movies.entity.Image;
+import movies.entity.ImageVariant;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.util.stream.Collectors;
+
 @Mapper(componentModel = "spring")
 public interface ImageMapper {
     @Mapping(target = "movie", ignore = true)
+    @Mapping(target = "variants", ignore = true)
     Image toImage(ImageResponse response);
 
 
+    @Mapping(target = "srcset", expression = "java(srcset(image))")
     ImageResponse toImageResponse(Image image);
 
+    ImageVariantResponse toImageVariantResponse(ImageVariant variant);
+
+    default String srcset(Image image) {
+        if (image.getVariants() == null || image.getVariants().isEmpty()) {
+            return null;
+        }
+        return image.getVariants().stream()
+                .filter(variant -> variant.getWidth() != null)
+                .map(variant -> variant.getUrl() + " " + variant.getWidth() + "w")
+                .collect(Collectors.joining(", "));
+    }
+
 
 }
@@ -0,0 +1,35 @@
+package movies.mapper;
+
+import movies.constant.PredefinedSearch;
+import movies.document.MovieDocument;
+import movies.dto.response.search.SearchHitResponse;
+import movies.entity.Genre;
+import movies.entity.Movie;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Mapper(componentModel = "spring")
+public interface MovieDocumentMapper {
+    @Mapping(target = "releaseYear", expression = "java(movie.getReleaseDate() == null ? null : movie.getReleaseDate().getYear())")
+    MovieDocument toMovieDocument(Movie movie);
+
+    @Mapping(target = "type", constant = PredefinedSearch.AGGREGATE_MOVIE)
+    @Mapping(target = "score", ignore = true)
+    SearchHitResponse toSearchHit(MovieDocument document);
+
+    default Set<String> toGenreNames(Set<Genre> genres) {
+        if (genres == null) {
+            return Set.of();
+        }
+        return genres.stream().map(Genre::getName).collect(Collectors.toSet());
+    }
+
+    default LocalDate toLocalDate(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toLocalDate();
+    }
+}
@@ -0,0 +1,39 @@
+package movies.mapper;
+
+import movies.constant.PredefinedSearch;
+import movies.document.SeriesDocument;
+import movies.dto.response.search.SearchHitResponse;
+import movies.entity.Genre;
+import movies.entity.Season;
+import movies.entity.Series;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Mapper(componentModel = "spring")
+public interface SeriesDocumentMapper {
+    @Mapping(target = "seasonTitles", source = "seasons")
+    SeriesDocument toSeriesDocument(Series series);
+
+    @Mapping(target = "type", constant = PredefinedSearch.AGGREGATE_SERIES)
+    @Mapping(target = "releaseYear", ignore = true)
+    @Mapping(target = "score", ignore = true)
+    SearchHitResponse toSearchHit(SeriesDocument document);
+
+    default Set<String> toGenreNames(Set<Genre> genres) {
+        if (genres == null) {
+            return Set.of();
+        }
+        return genres.stream().map(Genre::getName).collect(Collectors.toSet());
+    }
+
+    default List<String> toSeasonTitles(List<Season> seasons) {
+        if (seasons == null) {
+            return List.of();
+        }
+        return seasons.stream().map(Season::getTitle).toList();
+    }
+}
@@ -0,0 +1,12 @@
+package movies.mapper;
+
+import movies.dto.response.upload.UploadSessionResponse;
+import movies.entity.UploadSession;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface UploadSessionMapper {
+    @Mapping(target = "receivedChunks", ignore = true)
+    UploadSessionResponse toUploadSessionResponse(UploadSession session);
+}
@@ -1,14 +1,57 @@
 package movies.repository;
 
+import jakarta.persistence.QueryHint;
 import movies.entity.Episode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public interface EpisodeRepository extends JpaRepository<Episode, String> {
     List<Episode> findBySeasonIdOrderByEpisodeNumber(String seasonId);
     Optional<Episode> findBySeasonIdAndEpisodeNumber(String seasonId, Integer episodeNumber);
+
+    @EntityGraph(attributePaths = "videos")
+    @Query("SELECT e FROM Episode e WHERE e.id IN :ids")
+    List<Episode> findWithDetailsByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Loads the given episodes with their videos in one query, keeping the order of {@code ids}. The season is only
+     * mapped by id, so its proxy is never initialised. Must run inside a transaction.
+     */
+    default List<Episode> findPageWithDetails(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Episode> episodes = findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Episode::getId, Function.identity()));
+
+        return ids.stream()
+                .map(episodes::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Query("SELECT e.id FROM Episode e WHERE e.id > :after ORDER BY e.id")
+    List<String> findIdsAfter(@Param("after") String after, Pageable pageable);
+
+    // Export streams ids only and loads them in chunks through findPageWithDetails
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT e.id FROM Episode e ORDER BY e.id")
+    Stream<String> streamIds();
 }
@@ -1,13 +1,65 @@
 package movies.repository;
 
+import jakarta.persistence.QueryHint;
 import movies.entity.Genre;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public interface GenreRepository extends JpaRepository<Genre, String> {
     boolean existsByNameIgnoreCase(String name);
     Optional<Genre> findByName(String name);
+
+    // A movie's inverse video is always eager, so it is joined here rather than selected once per movie
+    @EntityGraph(attributePaths = {"movies", "movies.video"})
+    @Query("SELECT g FROM Genre g WHERE g.id IN :ids")
+    List<Genre> findWithDetailsByIdIn(@Param("ids") Collection<String> ids);
+
+    @EntityGraph(attributePaths = "series")
+    @Query("SELECT g FROM Genre g WHERE g.id IN :ids")
+    List<Genre> fetchSeriesByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Loads the given genres with their movies and series, keeping the order of {@code ids}: one query for the
+     * genres and movies, and one that only initialises the series of the entities already in the persistence context.
+     * The two collections are joined separately so a genre's movies and series never multiply into one result.
+     * Must run inside a transaction.
+     */
+    default List<Genre> findPageWithDetails(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Genre> genres = findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Genre::getId, Function.identity()));
+        fetchSeriesByIdIn(ids);
+
+        return ids.stream()
+                .map(genres::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Query("SELECT g.id FROM Genre g WHERE g.id > :after ORDER BY g.id")
+    List<String> findIdsAfter(@Param("after") String after, Pageable pageable);
+
+    // Export streams ids only and loads them in chunks through findPageWithDetails
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT g.id FROM Genre g ORDER BY g.id")
+    Stream<String> streamIds();
 }
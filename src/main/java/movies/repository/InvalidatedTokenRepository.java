@@ -1,9 +1,19 @@
 package movies.repository;
 
 import movies.entity.InvalidatedToken;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
+
 @Repository
 public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {
+    List<InvalidatedToken> findByExpiryTimeAfter(Date time);
+
+    @Query("SELECT t.id FROM InvalidatedToken t WHERE t.expiryTime <= :now")
+    List<String> findExpiredIds(@Param("now") Date now, Pageable pageable);
 }
@@ -0,0 +1,12 @@
+package movies.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the (createdAt, id) keyset columns, for listings that load their rows in a second step.
+ */
+public interface KeysetRow {
+    String getId();
+
+    LocalDateTime getCreatedAt();
+}
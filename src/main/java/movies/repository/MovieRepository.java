@@ -1,29 +1,127 @@
 package movies.repository;
 
+import jakarta.persistence.QueryHint;
 import movies.entity.Movie;
-import org.springframework.data.domain.Page;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public interface MovieRepository extends JpaRepository<Movie, String> {
     boolean existsByTitleIgnoreCase(String title);
 
-    @Query("SELECT DISTINCT m FROM Movie m LEFT JOIN m.genres g WHERE " +
-            "LOWER(m.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+    String SEARCH_MATCH = "(LOWER(m.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
             "LOWER(m.description) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(g.name) LIKE LOWER(CONCAT('%', :query, '%'))")
-    Page<Movie> search(@Param("query") String query, Pageable pageable);
+            "EXISTS (SELECT g FROM m.genres g WHERE LOWER(g.name) LIKE LOWER(CONCAT('%', :query, '%'))))";
+    // Keyset on (createdAt, id), newest first; the "before" variants walk back towards the newest rows
+    String SEEK_AFTER = "(m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+            "ORDER BY m.createdAt DESC, m.id DESC";
+    String SEEK_BEFORE = "(m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+            "ORDER BY m.createdAt ASC, m.id ASC";
 
-    @Query("SELECT m FROM Movie m JOIN m.genres g WHERE g.id = :genreId")
-    Page<Movie> findByGenreId(@Param("genreId") String genreId, Pageable pageable);
+    // Listing queries select keys only; the page is then loaded with findPageWithDetails, so mapping a page never
+    // falls back to per-row selects for genres, images or the (always eager) inverse video.
+    @Query("SELECT m.id AS id, m.createdAt AS createdAt FROM Movie m WHERE " + SEARCH_MATCH + " AND " + SEEK_AFTER)
+    List<KeysetRow> searchKeysAfter(@Param("query") String query, @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") String id, Pageable pageable);
 
-    List<Movie> findTop10ByOrderByAverageRatingDesc();
+    @Query("SELECT m.id AS id, m.createdAt AS createdAt FROM Movie m WHERE " + SEARCH_MATCH + " AND " + SEEK_BEFORE)
+    List<KeysetRow> searchKeysBefore(@Param("query") String query, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") String id, Pageable pageable);
 
-    List<Movie> findTop10ByOrderByCreatedAtDesc();
+    @Query("SELECT COUNT(m) FROM Movie m WHERE " + SEARCH_MATCH)
+    long countSearch(@Param("query") String query);
+
+    @Query("SELECT m.id AS id, m.createdAt AS createdAt FROM Movie m JOIN m.genres g " +
+            "WHERE g.id = :genreId AND " + SEEK_AFTER)
+    List<KeysetRow> findKeysByGenreIdAfter(@Param("genreId") String genreId, @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") String id, Pageable pageable);
+
+    @Query("SELECT m.id AS id, m.createdAt AS createdAt FROM Movie m JOIN m.genres g " +
+            "WHERE g.id = :genreId AND " + SEEK_BEFORE)
+    List<KeysetRow> findKeysByGenreIdBefore(@Param("genreId") String genreId, @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") String id, Pageable pageable);
+
+    @Query("SELECT COUNT(m) FROM Movie m JOIN m.genres g WHERE g.id = :genreId")
+    long countByGenreId(@Param("genreId") String genreId);
+
+    @Query("SELECT m.id FROM Movie m ORDER BY m.averageRating DESC")
+    List<String> findTopRatedIds(Pageable pageable);
+
+    @Query("SELECT m.id FROM Movie m ORDER BY m.createdAt DESC")
+    List<String> findLatestIds(Pageable pageable);
+
+    // images is a bag, so it is fetched in its own query; join-fetching it next to genres would duplicate its rows
+    @EntityGraph(attributePaths = {"genres", "video"})
+    @Query("SELECT m FROM Movie m WHERE m.id IN :ids")
+    List<Movie> findWithDetailsByIdIn(@Param("ids") Collection<String> ids);
+
+    @EntityGraph(attributePaths = "images")
+    @Query("SELECT m FROM Movie m WHERE m.id IN :ids")
+    List<Movie> fetchImagesByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Loads the given movies with their genres, video and images, keeping the order of {@code ids}: one query for
+     * the movies, genres and video, one that only initialises the images of the entities already in the persistence
+     * context, and one batch for the image variants when they are mapped. Must run inside a transaction.
+     */
+    default List<Movie> findPageWithDetails(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Movie> movies = findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        fetchImagesByIdIn(ids);
+
+        return ids.stream()
+                .map(movies::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Query("SELECT m.id FROM Movie m WHERE m.id > :after ORDER BY m.id")
+    List<String> findIdsAfter(@Param("after") String after, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Movie m SET " +
+            "m.averageRating = COALESCE((SELECT AVG(r.rating) FROM Review r WHERE r.movie.id = m.id), 0.0), " +
+            "m.ratingCount = (SELECT COUNT(r) FROM Review r WHERE r.movie.id = m.id), " +
+            "m.ratingSum = COALESCE((SELECT SUM(r.rating) FROM Review r WHERE r.movie.id = m.id), 0), " +
+            "m.oneStarCount = (SELECT COUNT(r) FROM Review r WHERE r.movie.id = m.id AND r.rating = 1), " +
+            "m.twoStarCount = (SELECT COUNT(r) FROM Review r WHERE r.movie.id = m.id AND r.rating = 2), " +
+            "m.threeStarCount = (SELECT COUNT(r) FROM Review r WHERE r.movie.id = m.id AND r.rating = 3), " +
+            "m.fourStarCount = (SELECT COUNT(r) FROM Review r WHERE r.movie.id = m.id AND r.rating = 4), " +
+            "m.fiveStarCount = (SELECT COUNT(r) FROM Review r WHERE r.movie.id = m.id AND r.rating = 5) " +
+            "WHERE m.id IN :ids")
+    int recomputeRatings(@Param("ids") Collection<String> ids);
+
+    // With useCursorFetch on the JDBC URL the fetch size makes MySQL stream rows instead of buffering the result set
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT m.id AS id, m.title AS title, m.posterUrl AS posterUrl, m.averageRating AS averageRating, " +
+            "m.ratingCount AS ratingCount, " +
+            "(SELECT COUNT(w) FROM WatchHistory w WHERE w.movie.id = m.id) AS watchCount FROM Movie m")
+    Stream<SuggestionRow> streamSuggestionRows();
+
+    // Export streams ids only and loads them in chunks through findPageWithDetails
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT m.id FROM Movie m ORDER BY m.id")
+    Stream<String> streamIds();
 }
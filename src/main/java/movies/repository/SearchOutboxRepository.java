@@ -0,0 +1,43 @@
+package movies.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import movies.entity.SearchOutbox;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SearchOutboxRepository extends JpaRepository<SearchOutbox, Long> {
+    /**
+     * Claims the oldest due rows. Rows already claimed by another instance are skipped (-2 is Hibernate's
+     * SKIP_LOCKED timeout) instead of waited on, so several instances can drain the outbox side by side.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT o FROM SearchOutbox o WHERE o.nextAttemptAt <= :now ORDER BY o.id")
+    List<SearchOutbox> lockDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    Optional<SearchOutbox> findFirstByOrderByIdAsc();
+
+    // A genre is denormalised into every title document that carries it, so a rename re-indexes all of them
+    @Modifying
+    @Query("INSERT INTO SearchOutbox (aggregateType, aggregateId, operation, attempts, nextAttemptAt, createdAt) " +
+            "SELECT 'MOVIE', m.id, 'UPSERT', 0, :now, :now FROM Movie m JOIN m.genres g WHERE g.id = :genreId")
+    int enqueueMoviesOfGenre(@Param("genreId") String genreId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("INSERT INTO SearchOutbox (aggregateType, aggregateId, operation, attempts, nextAttemptAt, createdAt) " +
+            "SELECT 'SERIES', s.id, 'UPSERT', 0, :now, :now FROM Series s JOIN s.genres g WHERE g.id = :genreId")
+    int enqueueSeriesOfGenre(@Param("genreId") String genreId, @Param("now") LocalDateTime now);
+}
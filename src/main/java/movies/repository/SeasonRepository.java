@@ -1,15 +1,65 @@
 package movies.repository;
 
+import jakarta.persistence.QueryHint;
+import movies.entity.Episode;
 import movies.entity.Season;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public interface SeasonRepository extends JpaRepository<Season, String> {
     Optional<Season> findBySeriesIdAndSeasonNumber(String seriesId, Integer seasonNumber);
 
     List<Season> findBySeriesIdOrderBySeasonNumber(String seriesId);
+
+    @EntityGraph(attributePaths = {"series", "episodes"})
+    @Query("SELECT s FROM Season s WHERE s.id IN :ids")
+    List<Season> findWithDetailsByIdIn(@Param("ids") Collection<String> ids);
+
+    // episodes and videos are both bags, so the videos come from the episode side in a query of their own
+    @Query("SELECT e FROM Episode e LEFT JOIN FETCH e.videos WHERE e.season.id IN :ids")
+    List<Episode> fetchEpisodeVideosBySeasonIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Loads the given seasons with their series, episodes and the episodes' videos, keeping the order of
+     * {@code ids}: one query for the seasons, series and episodes, and one that only initialises the videos of the
+     * episodes already in the persistence context. Must run inside a transaction.
+     */
+    default List<Season> findPageWithDetails(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Season> seasons = findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Season::getId, Function.identity()));
+        fetchEpisodeVideosBySeasonIdIn(ids);
+
+        return ids.stream()
+                .map(seasons::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Query("SELECT s.id FROM Season s WHERE s.id > :after ORDER BY s.id")
+    List<String> findIdsAfter(@Param("after") String after, Pageable pageable);
+
+    // Export streams ids only and loads them in chunks through findPageWithDetails
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT s.id FROM Season s ORDER BY s.id")
+    Stream<String> streamIds();
 }
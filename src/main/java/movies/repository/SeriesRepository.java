@@ -1,15 +1,28 @@
 package movies.repository;
 
+import jakarta.persistence.QueryHint;
 import movies.entity.Series;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public interface SeriesRepository extends JpaRepository<Series, String> {
@@ -22,10 +35,79 @@ public interface SeriesRepository extends JpaRepository<Series, String> {
             "LOWER(g.name) LIKE LOWER(CONCAT('%', :query, '%'))")
     Page<Series> search(@Param("query") String query, Pageable pageable);
 
-    @Query("SELECT s FROM Series s JOIN s.genres g WHERE g.id = :genreId")
-    Page<Series> findByGenreId(@Param("genreId") String genreId, Pageable pageable);
+    @Query("SELECT s FROM Series s JOIN s.genres g WHERE g.id = :genreId AND " +
+            "(s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<Series> findByGenreIdAfter(@Param("genreId") String genreId, @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") String id, Pageable pageable);
+
+    @Query("SELECT s FROM Series s JOIN s.genres g WHERE g.id = :genreId AND " +
+            "(s.createdAt > :createdAt OR (s.createdAt = :createdAt AND s.id > :id)) " +
+            "ORDER BY s.createdAt ASC, s.id ASC")
+    List<Series> findByGenreIdBefore(@Param("genreId") String genreId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") String id, Pageable pageable);
+
+    @Query("SELECT COUNT(s) FROM Series s JOIN s.genres g WHERE g.id = :genreId")
+    long countByGenreId(@Param("genreId") String genreId);
 
     List<Series> findTop10ByOrderByAverageRatingDesc();
 
     List<Series> findTop10ByOrderByCreatedAtDesc();
+
+    // seasons is a bag, so it is fetched in its own query rather than joined next to genres
+    @EntityGraph(attributePaths = "genres")
+    @Query("SELECT s FROM Series s WHERE s.id IN :ids")
+    List<Series> findWithDetailsByIdIn(@Param("ids") Collection<String> ids);
+
+    @EntityGraph(attributePaths = "seasons")
+    @Query("SELECT s FROM Series s WHERE s.id IN :ids")
+    List<Series> fetchSeasonsByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Loads the given series with their genres and seasons, keeping the order of {@code ids}: one query for the
+     * series and genres, and one that only initialises the seasons of the entities already in the persistence
+     * context. Must run inside a transaction.
+     */
+    default List<Series> findPageWithDetails(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Series> series = findWithDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Series::getId, Function.identity()));
+        fetchSeasonsByIdIn(ids);
+
+        return ids.stream()
+                .map(series::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Query("SELECT s.id FROM Series s WHERE s.id > :after ORDER BY s.id")
+    List<String> findIdsAfter(@Param("after") String after, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Series s SET " +
+            "s.averageRating = COALESCE((SELECT AVG(r.rating) FROM Review r WHERE r.series.id = s.id), 0.0), " +
+            "s.ratingCount = (SELECT COUNT(r) FROM Review r WHERE r.series.id = s.id), " +
+            "s.ratingSum = COALESCE((SELECT SUM(r.rating) FROM Review r WHERE r.series.id = s.id), 0), " +
+            "s.oneStarCount = (SELECT COUNT(r) FROM Review r WHERE r.series.id = s.id AND r.rating = 1), " +
+            "s.twoStarCount = (SELECT COUNT(r) FROM Review r WHERE r.series.id = s.id AND r.rating = 2), " +
+            "s.threeStarCount = (SELECT COUNT(r) FROM Review r WHERE r.series.id = s.id AND r.rating = 3), " +
+            "s.fourStarCount = (SELECT COUNT(r) FROM Review r WHERE r.series.id = s.id AND r.rating = 4), " +
+            "s.fiveStarCount = (SELECT COUNT(r) FROM Review r WHERE r.series.id = s.id AND r.rating = 5) " +
+            "WHERE s.id IN :ids")
+    int recomputeRatings(@Param("ids") Collection<String> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT s.id AS id, s.title AS title, s.posterUrl AS posterUrl, s.averageRating AS averageRating, " +
+            "s.ratingCount AS ratingCount, " +
+            "(SELECT COUNT(w) FROM WatchHistory w WHERE w.series.id = s.id) AS watchCount FROM Series s")
+    Stream<SuggestionRow> streamSuggestionRows();
+
+    // Export streams ids only and loads them in chunks through findPageWithDetails
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT s.id FROM Series s ORDER BY s.id")
+    Stream<String> streamIds();
 }
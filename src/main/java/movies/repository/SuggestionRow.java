@@ -0,0 +1,18 @@
+package movies.repository;
+
+/**
+ * Projection of the columns the title-suggestion index is built from.
+ */
+public interface SuggestionRow {
+    String getId();
+
+    String getTitle();
+
+    String getPosterUrl();
+
+    Double getAverageRating();
+
+    Long getRatingCount();
+
+    Long getWatchCount();
+}
@@ -0,0 +1,52 @@
+package movies.repository;
+
+import jakarta.persistence.LockModeType;
+import movies.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    List<UploadSession> findByStatusAndExpiresAtBefore(String status, LocalDateTime now);
+
+    List<UploadSession> findByStatusAndUpdatedAtBefore(String status, LocalDateTime before);
+
+    /**
+     * Locks the session row, so a chunk write holding it and a commit moving the session out of OPEN serialize.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UploadSession s WHERE s.id = :id")
+    Optional<UploadSession> lockById(@Param("id") String id);
+
+    // Sets updatedAt by hand, since a bulk update bypasses auditing; it dates a stuck ASSEMBLING session
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.status = :to, s.updatedAt = :now WHERE s.id = :id AND s.status = :from")
+    int transition(@Param("id") String id, @Param("from") String from, @Param("to") String to,
+                   @Param("now") LocalDateTime now);
+
+    // Runs in the transaction that inserts the video, so the session is never seen assembling a file a video uses
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.status = :committed, s.videoId = :videoId, s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.status = :assembling")
+    int markCommitted(@Param("id") String id, @Param("assembling") String assembling,
+                      @Param("committed") String committed, @Param("videoId") String videoId,
+                      @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.status = :open, s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.status = :assembling AND s.updatedAt < :before")
+    int reopenIfStalled(@Param("id") String id, @Param("assembling") String assembling, @Param("open") String open,
+                        @Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+}
@@ -1,9 +1,15 @@
 package movies.repository;
 
 import movies.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +18,14 @@ public interface UserRepository extends JpaRepository<User, String> {
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
 
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesById(String id);
+
+    @Query("SELECT u FROM User u WHERE u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.createdAt > :createdAt OR (u.createdAt = :createdAt AND u.id > :id) " +
+            "ORDER BY u.createdAt ASC, u.id ASC")
+    List<User> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable pageable);
 }
@@ -2,8 +2,45 @@ package movies.repository;
 
 import movies.entity.Video;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface VideoRepository extends JpaRepository<Video, String> {
+    List<Video> findTop20ByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(String status, LocalDateTime now);
+
+    Optional<Video> findFirstByFilePath(String filePath);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Video v SET v.status = :processing, v.attempts = COALESCE(v.attempts, 0) + 1, " +
+            "v.leaseOwner = :owner, v.leaseExpiresAt = :until WHERE v.id = :id AND v.status = :queued")
+    int claim(@Param("id") String id, @Param("queued") String queued, @Param("processing") String processing,
+              @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Video v SET v.leaseExpiresAt = :until " +
+            "WHERE v.id = :id AND v.status = :processing AND v.leaseOwner = :owner")
+    int renewLease(@Param("id") String id, @Param("processing") String processing, @Param("owner") String owner,
+                   @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Video v SET v.progress = :progress WHERE v.id = :id")
+    int updateProgress(@Param("id") String id, @Param("progress") int progress);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Video v SET v.status = :queued, v.leaseOwner = NULL, v.leaseExpiresAt = NULL " +
+            "WHERE v.status = :processing AND (v.leaseExpiresAt IS NULL OR v.leaseExpiresAt < :now)")
+    int reclaimExpired(@Param("processing") String processing, @Param("queued") String queued,
+                       @Param("now") LocalDateTime now);
 }
@@ -18,22 +18,17 @@ import movies.dto.response.authen.AuthenticationResponse;
 import movies.dto.response.authen.IntrospectResponse;
 import movies.dto.response.user.UserConfirmResponse;
 import movies.dto.response.user.ResetPasswordResponse;
-import movies.entity.InvalidatedToken;
 import movies.entity.Role;
 import movies.entity.User;
 import movies.exception.AppException;
 import movies.exception.ErrorCodes;
-import movies.repository.InvalidatedTokenRepository;
 import movies.repository.UserRepository;
 import movies.repository.httpClient.OutboundIdentityClient;
 import movies.repository.httpClient.OutboundUserClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
 
 import java.text.ParseException;
 import java.time.Instant;
@@ -47,7 +42,9 @@ import java.util.*;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class AuthenticationService {
     UserRepository userRepository;
-    InvalidatedTokenRepository invalidatedTokenRepository;
+    TokenRevocationService tokenRevocationService;
+    PasswordHasher passwordHasher;
+    UserPrincipalCache userPrincipalCache;
     OutboundIdentityClient outboundIdentityClient;
     OutboundUserClient outboundUserClient;
 
@@ -126,8 +123,6 @@ public class AuthenticationService {
 
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
         try {
-            PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(10);
-
             var user = userRepository.findByEmail(request.getEmail())
                     .orElseThrow(() -> new AppException(ErrorCodes.USER_NOT_EXISTED));
 
@@ -135,12 +130,18 @@ public class AuthenticationService {
                 throw new AppException(ErrorCodes.EMAIL_NOT_CONFIRMED);
             }
 
-            boolean authenticated = passwordEncoder.matches(request.getPassword(), user.getPassword());
+            boolean authenticated = passwordHasher.matches(request.getPassword(), user.getPassword());
 
             if (!authenticated) {
                 throw new AppException(ErrorCodes.UNAUTHENTICATED);
             }
 
+            // The password is at hand only now, so this is where hashes made with an old cost are brought up to date
+            if (passwordHasher.needsRehash(user.getPassword())) {
+                user.setPassword(passwordHasher.encode(request.getPassword()));
+                userRepository.save(user);
+            }
+
             var token = generateToken(user);
             return AuthenticationResponse.builder().token(token).build();
 
@@ -159,12 +160,8 @@ public class AuthenticationService {
             var signToken = verifyToken(request.getToken(), true);
 
             String jit = signToken.getJWTClaimsSet().getJWTID();
-            Date expiryTime = signToken.getJWTClaimsSet().getExpirationTime();
 
-            InvalidatedToken invalidatedToken =
-                    InvalidatedToken.builder().id(jit).expiryTime(expiryTime).build();
-
-            invalidatedTokenRepository.save(invalidatedToken);
+            tokenRevocationService.revoke(jit, revocationExpiry(signToken.getJWTClaimsSet()));
         } catch (AppException exception) {
             log.info("Token already expired");
         }
@@ -174,35 +171,41 @@ public class AuthenticationService {
         var signedJWT = verifyToken(request.getToken(), true);
 
         var jit = signedJWT.getJWTClaimsSet().getJWTID();
-        var expiryTime = signedJWT.getJWTClaimsSet().getExpirationTime();
 
-        InvalidatedToken invalidatedToken =
-                InvalidatedToken.builder().id(jit).expiryTime(expiryTime).build();
+        tokenRevocationService.revoke(jit, revocationExpiry(signedJWT.getJWTClaimsSet()));
 
-        invalidatedTokenRepository.save(invalidatedToken);
+        // The subject is the user id (see generateToken)
+        var userId = signedJWT.getJWTClaimsSet().getSubject();
 
-        var email = signedJWT.getJWTClaimsSet().getSubject();
+        var principal =
+                userPrincipalCache.find(userId).orElseThrow(() -> new AppException(ErrorCodes.UNAUTHENTICATED));
 
-        var user =
-                userRepository.findByEmail(email).orElseThrow(() -> new AppException(ErrorCodes.UNAUTHENTICATED));
+        // A user disabled since the token was issued must not be able to keep it alive
+        if (!principal.enabled()) {
+            throw new AppException(ErrorCodes.UNAUTHENTICATED);
+        }
 
-        var token = generateToken(user);
+        var token = generateToken(principal.id(), principal.scope());
 
         return AuthenticationResponse.builder().token(token).build();
     }
 
     //login
     public String generateToken(User user) {
+        return generateToken(user.getId(), buildScope(user));
+    }
+
+    private String generateToken(String userId, String scope) {
         JWSHeader header = new JWSHeader(JWSAlgorithm.HS512);
 
         JWTClaimsSet jwtClaimsSet = new JWTClaimsSet.Builder()
-                .subject(user.getId())
+                .subject(userId)
                 .issuer("demo.com")
                 .issueTime(new Date())
                 .expirationTime(new Date(
                         Instant.now().plus(VALID_DURATION, ChronoUnit.SECONDS).toEpochMilli()))
                 .jwtID(UUID.randomUUID().toString())
-                .claim("scope", buildScope(user))
+                .claim("scope", scope)
                 .build();
 
         Payload payload = new Payload(jwtClaimsSet.toJSONObject());
@@ -275,7 +278,6 @@ public class AuthenticationService {
     }
 
     public ResetPasswordResponse resetPassword(ResetPasswordRequest request) {
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(10);
         try {
             SignedJWT signedJWT = SignedJWT.parse(request.getToken());
             boolean valid = signedJWT.verify(new MACVerifier(SIGNER_KEY.getBytes()));
@@ -297,8 +299,9 @@ public class AuthenticationService {
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new AppException(ErrorCodes.USER_NOT_EXISTED));
 
-            user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+            user.setPassword(passwordHasher.encode(request.getNewPassword()));
             userRepository.save(user);
+            userPrincipalCache.invalidate(user.getId());
 
             return ResetPasswordResponse.builder()
                     .status(true)
@@ -329,20 +332,22 @@ public class AuthenticationService {
 
         if (!(verified && expiryTime.after(new Date()))) throw new AppException(ErrorCodes.UNAUTHENTICATED);
 
-        if (invalidatedTokenRepository.existsById(signedJWT.getJWTClaimsSet().getJWTID()))
+        if (tokenRevocationService.isRevoked(signedJWT.getJWTClaimsSet().getJWTID()))
             throw new AppException(ErrorCodes.UNAUTHENTICATED);
 
         return signedJWT;
     }
 
-    private String buildScope(User user) {
-        StringJoiner stringJoiner = new StringJoiner(" ");
+    /**
+     * A revoked token must stay revoked for as long as it could still be used, either to authenticate or to refresh.
+     */
+    private Date revocationExpiry(JWTClaimsSet claims) {
+        Date refreshableUntil = Date.from(claims.getIssueTime().toInstant().plus(REFRESHABLE_DURATION, ChronoUnit.SECONDS));
+        return refreshableUntil.after(claims.getExpirationTime()) ? refreshableUntil : claims.getExpirationTime();
+    }
 
-        if (!CollectionUtils.isEmpty(user.getRoles()))
-            user.getRoles().forEach(role -> {
-                stringJoiner.add("ROLE_" + role.getName());
-            });
-        return stringJoiner.toString();
+    private String buildScope(User user) {
+        return UserPrincipalCache.UserPrincipal.of(user).scope();
     }
 
     private UserConfirmResponse handleVerificationToken(User user, Date expiryDate) {
@@ -355,6 +360,7 @@ public class AuthenticationService {
 
         user.setEnabled(true);
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getId());
 
         return UserConfirmResponse.builder()
                 .status(true)
@@ -0,0 +1,385 @@
+package movies.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedVideos;
+import movies.dto.request.upload.UploadSessionRequest;
+import movies.dto.request.video.VideoRequest;
+import movies.dto.response.upload.UploadSessionResponse;
+import movies.dto.response.video.VideoResponse;
+import movies.entity.UploadSession;
+import movies.entity.Video;
+import movies.exception.AppException;
+import movies.exception.ErrorCodes;
+import movies.mapper.UploadSessionMapper;
+import movies.repository.EpisodeRepository;
+import movies.repository.MovieRepository;
+import movies.repository.UploadSessionRepository;
+import movies.repository.VideoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Resumable video uploads: a session is created up front, numbered chunks are PUT independently and in any order,
+ * and a commit stitches them together and hands the file to {@link VideoService#createFromFile}.
+ * <p>
+ * Session metadata lives in the database and chunks live on disk, so an upload survives a restart and the client
+ * can ask which chunks are still missing.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ChunkedUploadService {
+    static final String CHUNK_SUFFIX = ".part";
+    static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    UploadSessionRepository uploadSessionRepository;
+    MovieRepository movieRepository;
+    EpisodeRepository episodeRepository;
+    VideoRepository videoRepository;
+    UploadSessionMapper uploadSessionMapper;
+    VideoService videoService;
+    TransactionTemplate transactionTemplate;
+
+    @NonFinal
+    @Value("${spring.files.video}")
+    String videoDir;
+
+    @NonFinal
+    @Value("${spring.files.chunks}")
+    String chunkDir;
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(Paths.get(chunkDir));
+        } catch (IOException e) {
+            throw new RuntimeException("Không tạo được thư mục chunk: " + e.getMessage());
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    public UploadSessionResponse createSession(UploadSessionRequest request) {
+        if (request.getFileType() == null
+                || !PredefinedVideos.ALLOWED_FILE_TYPES.contains(request.getFileType().toLowerCase())) {
+            throw new AppException(ErrorCodes.INVALID_VIDEO_FORMAT);
+        }
+
+        if (request.getTotalSize() > PredefinedVideos.MAX_FILE_SIZE) {
+            throw new AppException(ErrorCodes.INVALID_VIDEO_SIZE);
+        }
+
+        if (request.getMovieId() != null) {
+            if (!movieRepository.existsById(request.getMovieId())) {
+                throw new AppException(ErrorCodes.MOVIE_NOT_EXISTED);
+            }
+        } else if (request.getEpisodeId() != null) {
+            if (!episodeRepository.existsById(request.getEpisodeId())) {
+                throw new AppException(ErrorCodes.EPISODE_NOT_EXISTED);
+            }
+        } else {
+            throw new AppException(ErrorCodes.VIDEO_INVALID_OWNER);
+        }
+
+        int chunkSize = request.getChunkSize() == null
+                ? PredefinedVideos.DEFAULT_CHUNK_SIZE
+                : Math.max(PredefinedVideos.MIN_CHUNK_SIZE, Math.min(PredefinedVideos.MAX_CHUNK_SIZE, request.getChunkSize()));
+        int totalChunks = (int) ((request.getTotalSize() + chunkSize - 1) / chunkSize);
+
+        UploadSession session = UploadSession.builder()
+                .movieId(request.getMovieId())
+                .episodeId(request.getEpisodeId())
+                .originalFileName(StringUtils.cleanPath(request.getFileName()))
+                .fileType(request.getFileType())
+                .totalSize(request.getTotalSize())
+                .chunkSize(chunkSize)
+                .totalChunks(totalChunks)
+                .status(PredefinedVideos.UPLOAD_OPEN)
+                .expiresAt(LocalDateTime.now().plusHours(PredefinedVideos.UPLOAD_SESSION_TTL_HOURS))
+                .build();
+
+        UploadSession savedSession = uploadSessionRepository.save(session);
+        log.info("Opened upload session {} for {} ({} bytes in {} chunks)",
+                savedSession.getId(), savedSession.getOriginalFileName(), savedSession.getTotalSize(), totalChunks);
+
+        return toResponse(savedSession);
+    }
+
+    public UploadSessionResponse getSession(String sessionId) {
+        return toResponse(findSession(sessionId));
+    }
+
+    /**
+     * Streams one chunk from the request body to disk. Re-sending a chunk replaces it, so a failed PUT can simply be
+     * retried. The chunk is only moved into place while the session row is locked and still OPEN, so a commit that
+     * has started assembling never sees a chunk change under it.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    public UploadSessionResponse writeChunk(String sessionId, int index, InputStream body) throws IOException {
+        UploadSession session = findSession(sessionId);
+        if (!PredefinedVideos.UPLOAD_OPEN.equals(session.getStatus())) {
+            throw new AppException(ErrorCodes.UPLOAD_SESSION_CLOSED);
+        }
+
+        if (index < 0 || index >= session.getTotalChunks()) {
+            throw new AppException(ErrorCodes.INVALID_CHUNK);
+        }
+
+        long expectedSize = expectedChunkSize(session, index);
+        Path sessionDir = Files.createDirectories(sessionDir(sessionId));
+        Path tmp = sessionDir.resolve(index + CHUNK_SUFFIX + "." + UUID.randomUUID());
+
+        try {
+            long written = copyAtMost(body, tmp, expectedSize + 1);
+            if (written != expectedSize) {
+                throw new AppException(ErrorCodes.INVALID_CHUNK);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                UploadSession locked = uploadSessionRepository.lockById(sessionId)
+                        .orElseThrow(() -> new AppException(ErrorCodes.UPLOAD_SESSION_NOT_EXISTED));
+                if (!PredefinedVideos.UPLOAD_OPEN.equals(locked.getStatus())) {
+                    throw new AppException(ErrorCodes.UPLOAD_SESSION_CLOSED);
+                }
+                try {
+                    Files.move(tmp, chunkPath(sessionId, index),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        return toResponse(session);
+    }
+
+    /**
+     * Assembles the chunks and registers the video. The video row and the session's move to COMMITTED share one
+     * transaction, and the move only applies to a session still ASSEMBLING: a crash in between can never leave a
+     * video whose source file the purge would later treat as a partial assembly and delete.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    public VideoResponse commit(String sessionId) throws IOException {
+        UploadSession session = findSession(sessionId);
+        if (PredefinedVideos.UPLOAD_COMMITTED.equals(session.getStatus()) && session.getVideoId() != null) {
+            return videoService.getVideo(session.getVideoId());
+        }
+
+        if (receivedChunks(sessionId).size() != session.getTotalChunks()) {
+            throw new AppException(ErrorCodes.UPLOAD_INCOMPLETE);
+        }
+
+        // Guards against two concurrent commits assembling the same session
+        if (uploadSessionRepository.transition(sessionId, PredefinedVideos.UPLOAD_OPEN, PredefinedVideos.UPLOAD_ASSEMBLING,
+                LocalDateTime.now()) == 0) {
+            throw new AppException(ErrorCodes.UPLOAD_SESSION_CLOSED);
+        }
+
+        Path target = assembledPath(session);
+
+        VideoResponse video;
+        try {
+            assemble(session, target);
+
+            VideoRequest videoRequest = VideoRequest.builder()
+                    .movieId(session.getMovieId())
+                    .episodeId(session.getEpisodeId())
+                    .build();
+            video = transactionTemplate.execute(status -> {
+                VideoResponse created = videoService.createFromFile(videoRequest, target);
+                // Zero when the purge re-opened a commit that stalled past the timeout; roll the video back
+                if (uploadSessionRepository.markCommitted(sessionId, PredefinedVideos.UPLOAD_ASSEMBLING,
+                        PredefinedVideos.UPLOAD_COMMITTED, created.getId(), LocalDateTime.now()) == 0) {
+                    throw new AppException(ErrorCodes.UPLOAD_SESSION_CLOSED);
+                }
+                return created;
+            });
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            uploadSessionRepository.transition(sessionId, PredefinedVideos.UPLOAD_ASSEMBLING, PredefinedVideos.UPLOAD_OPEN,
+                    LocalDateTime.now());
+            throw e;
+        }
+
+        FileSystemUtils.deleteRecursively(sessionDir(sessionId));
+
+        log.info("Upload session {} committed as video {}", sessionId, video.getId());
+        return video;
+    }
+
+    /**
+     * Re-opens sessions stuck in ASSEMBLING by a node that died mid-commit, so the client can commit again, then
+     * deletes expired open sessions and their chunks. A stuck session whose assembled file already backs a video is
+     * marked COMMITTED instead, never re-opened, since re-opening deletes that file.
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void purgeExpiredSessions() {
+        LocalDateTime stalledBefore = LocalDateTime.now().minusMinutes(PredefinedVideos.UPLOAD_ASSEMBLE_TIMEOUT_MINUTES);
+        List<UploadSession> stalled = uploadSessionRepository.findByStatusAndUpdatedAtBefore(
+                PredefinedVideos.UPLOAD_ASSEMBLING, stalledBefore);
+        for (UploadSession session : stalled) {
+            Optional<Video> video = videoRepository.findFirstByFilePath(assembledPath(session).toString());
+            if (video.isPresent()) {
+                uploadSessionRepository.markCommitted(session.getId(), PredefinedVideos.UPLOAD_ASSEMBLING,
+                        PredefinedVideos.UPLOAD_COMMITTED, video.get().getId(), LocalDateTime.now());
+                log.info("Upload session {} left assembling already backs video {}, marked committed",
+                        session.getId(), video.get().getId());
+                try {
+                    FileSystemUtils.deleteRecursively(sessionDir(session.getId()));
+                } catch (IOException e) {
+                    log.warn("Failed to delete chunks of upload session {}: {}", session.getId(), e.getMessage());
+                }
+                continue;
+            }
+            // Re-checked in the update, in case a retried commit started assembling since the select
+            if (uploadSessionRepository.reopenIfStalled(session.getId(), PredefinedVideos.UPLOAD_ASSEMBLING,
+                    PredefinedVideos.UPLOAD_OPEN, stalledBefore, LocalDateTime.now()) == 0) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(assembledPath(session));
+            } catch (IOException e) {
+                log.warn("Failed to delete partial assembly of upload session {}: {}", session.getId(), e.getMessage());
+            }
+            log.info("Re-opened upload session {} left assembling since {}", session.getId(), session.getUpdatedAt());
+        }
+
+        List<UploadSession> expired = uploadSessionRepository.findByStatusAndExpiresAtBefore(
+                PredefinedVideos.UPLOAD_OPEN, LocalDateTime.now());
+
+        for (UploadSession session : expired) {
+            try {
+                FileSystemUtils.deleteRecursively(sessionDir(session.getId()));
+                uploadSessionRepository.delete(session);
+            } catch (IOException e) {
+                log.warn("Failed to purge upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        if (!expired.isEmpty()) {
+            log.info("Purged {} expired upload session(s)", expired.size());
+        }
+    }
+
+    /**
+     * Concatenates the chunks in order with {@link FileChannel#transferTo}, which lets the kernel copy file to file
+     * without staging the data in the JVM.
+     */
+    private void assemble(UploadSession session, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int index = 0; index < session.getTotalChunks(); index++) {
+                try (FileChannel in = FileChannel.open(chunkPath(session.getId(), index), StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+            out.force(false);
+        }
+
+        if (Files.size(target) != session.getTotalSize()) {
+            throw new AppException(ErrorCodes.UPLOAD_INCOMPLETE);
+        }
+    }
+
+    private long copyAtMost(InputStream body, Path target, long limit) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while (total < limit && (read = body.read(buffer, 0, (int) Math.min(buffer.length, limit - total))) != -1) {
+                out.write(buffer, 0, read);
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private long expectedChunkSize(UploadSession session, int index) {
+        if (index < session.getTotalChunks() - 1) {
+            return session.getChunkSize();
+        }
+        return session.getTotalSize() - (long) session.getChunkSize() * (session.getTotalChunks() - 1);
+    }
+
+    private List<Integer> receivedChunks(String sessionId) throws IOException {
+        Path dir = sessionDir(sessionId);
+        List<Integer> received = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return received;
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(CHUNK_SUFFIX))
+                    .map(name -> name.substring(0, name.length() - CHUNK_SUFFIX.length()))
+                    .filter(name -> name.chars().allMatch(Character::isDigit))
+                    .map(Integer::valueOf)
+                    .sorted()
+                    .forEach(received::add);
+        }
+        return received;
+    }
+
+    private UploadSession findSession(String sessionId) {
+        return uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new AppException(ErrorCodes.UPLOAD_SESSION_NOT_EXISTED));
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        UploadSessionResponse response = uploadSessionMapper.toUploadSessionResponse(session);
+        try {
+            response.setReceivedChunks(receivedChunks(session.getId()));
+        } catch (IOException e) {
+            log.warn("Could not list chunks of upload session {}: {}", session.getId(), e.getMessage());
+        }
+        return response;
+    }
+
+    private Path assembledPath(UploadSession session) {
+        String originalFileName = session.getOriginalFileName();
+        String extension = originalFileName.contains(".") ? originalFileName.substring(originalFileName.lastIndexOf(".")) : "";
+        return Paths.get(videoDir, session.getId() + extension);
+    }
+
+    private Path sessionDir(String sessionId) {
+        return Paths.get(chunkDir, sessionId);
+    }
+
+    private Path chunkPath(String sessionId, int index) {
+        return sessionDir(sessionId).resolve(index + CHUNK_SUFFIX);
+    }
+}
@@ -0,0 +1,160 @@
+package movies.service;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Holds uploaded files while an event about them is in flight, so the event carries a key, size and SHA-256 instead
+ * of the bytes. Files are streamed in and out; nothing is read fully into the heap.
+ * <p>
+ * The directory has to be reachable from every instance that consumes the events. The consumer releases a file once it
+ * has been stored for good; files left behind by events that never completed are deleted after
+ * {@code spring.file.staging.ttl}.
+ */
+@Component
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ClaimCheckStore {
+    Path root;
+    Duration ttl;
+
+    public record ClaimCheck(String key, String sha256, long size) {
+    }
+
+    public ClaimCheckStore(
+            @Value("${spring.file.staging.dir:staging/}") String dir,
+            @Value("${spring.file.staging.ttl:24h}") Duration ttl) {
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+        this.ttl = ttl;
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create staging directory " + root, e);
+        }
+    }
+
+    public ClaimCheck stage(MultipartFile file) throws IOException {
+        String originalFilename = file.getOriginalFilename();
+        String extension = originalFilename != null && originalFilename.contains(".")
+                ? originalFilename.substring(originalFilename.lastIndexOf("."))
+                : "";
+        String key = UUID.randomUUID() + extension;
+        Path target = root.resolve(key);
+
+        MessageDigest digest = sha256();
+        long size;
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+             OutputStream out = Files.newOutputStream(target)) {
+            size = in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return new ClaimCheck(key, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    /**
+     * The staged file for {@code claimCheck}, after checking that it is the file the event describes.
+     */
+    public Path redeem(ClaimCheck claimCheck) throws IOException {
+        Path path = resolve(claimCheck.key());
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalStateException("Staged file " + claimCheck.key() + " does not exist");
+        }
+        if (Files.size(path) != claimCheck.size()) {
+            throw new IllegalStateException("Staged file " + claimCheck.key() + " has the wrong size");
+        }
+
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(claimCheck.sha256())) {
+            throw new IllegalStateException("Staged file " + claimCheck.key() + " does not match its checksum");
+        }
+        return path;
+    }
+
+    public void release(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            log.warn("Failed to delete staged file {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Releases {@code key} once the current transaction commits, so a rolled-back consumer can redeem it again on
+     * retry.
+     */
+    public void releaseAfterCommit(String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(key);
+                }
+            });
+        } else {
+            release(key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spring.file.staging.purge-interval:1h}")
+    public void purgeAbandoned() {
+        Instant cutoff = Instant.now().minus(ttl);
+        try (Stream<Path> files = Files.list(root)) {
+            files.filter(path -> {
+                try {
+                    return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+                } catch (IOException e) {
+                    return false;
+                }
+            }).forEach(path -> {
+                log.warn("Deleting abandoned staged file {}", path.getFileName());
+                release(path.getFileName().toString());
+            });
+        } catch (IOException e) {
+            log.warn("Failed to list staging directory {}: {}", root, e.getMessage());
+        }
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.getParent().equals(root)) {
+            throw new IllegalArgumentException("Invalid staging key " + key);
+        }
+        return path;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedMailTemplate;
 import movies.constant.PredefinedToken;
 import movies.exception.AppException;
 import movies.exception.ErrorCodes;
@@ -15,12 +16,15 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class EmailService {
     JavaMailSender mailSender;
+    MailTemplateRenderer mailTemplateRenderer;
 
     @NonFinal
     @Value("${spring.mail.username}")
@@ -28,46 +32,54 @@ public class EmailService {
 
     public void sendEmail(String to, String subject, String text, boolean isHtml) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmailId);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(text, isHtml);
-
-            mailSender.send(message);
+            mailSender.send(composeEmail(to, subject, text, isHtml));
         } catch (MessagingException e) {
             log.error("Failed to send email to {}: {}", to, e.getMessage());
             throw new RuntimeException("Failed to send email", e);
         }
     }
+
     public void sendTokenEmail(String to, String token, String tokenType) {
-        String subject;
-        String actionUrl;
+        try {
+            mailSender.send(composeTokenEmail(to, token, tokenType, null));
+        } catch (MessagingException e) {
+            log.error("Failed to send email to {}: {}", to, e.getMessage());
+            throw new RuntimeException("Failed to send email", e);
+        }
+    }
+
+    public MimeMessage composeEmail(String to, String subject, String text, boolean isHtml) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        // A single text/html part: these emails have no attachments or inline images to wrap
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+
+        helper.setFrom(fromEmailId);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(text, isHtml);
+
+        return message;
+    }
 
+    public MimeMessage composeTemplateEmail(String to, String templateCode, String locale, Map<String, Object> variables)
+            throws MessagingException {
+        MailTemplateRenderer.RenderedMail mail = mailTemplateRenderer.render(templateCode, locale, variables);
+        return composeEmail(to, mail.subject(), mail.html(), true);
+    }
+
+    /**
+     * For events published before they carried a template code.
+     */
+    public MimeMessage composeTokenEmail(String to, String token, String tokenType, String locale) throws MessagingException {
+        String templateCode;
         if (PredefinedToken.VERIFICATION_TOKEN.equals(tokenType)) {
-            subject = "Xác nhận email của bạn";
-            actionUrl = "http://localhost:3000/confirm-email?token=" + token;
+            templateCode = PredefinedMailTemplate.CONFIRM_EMAIL;
         } else if (PredefinedToken.PASSWORD_RESET_TOKEN.equals(tokenType)) {
-            subject = "Đặt lại mật khẩu";
-            actionUrl = "http://localhost:3000/reset-password?token=" + token;
+            templateCode = PredefinedMailTemplate.FORGOT_PASSWORD;
         } else {
             throw new AppException(ErrorCodes.INVALID_TOKEN_TYPE);
         }
-
-        String emailContent = String.format(
-                "<div style='font-family: Arial, sans-serif; max-width: 600px; margin: 0 auto;'>" +
-                        "<h2 style='color: #2E86C1;'>%s</h2>" +
-                        "<p>Vui lòng nhấp vào nút bên dưới để thực hiện thao tác:</p>" +
-                        "<a href='%s' style='display: inline-block; padding: 10px 20px; background-color: #2E86C1; color: white; text-decoration: none; border-radius: 5px;'>Thực hiện ngay</a>" +
-                        "<p style='margin-top: 20px;'>Nếu bạn không yêu cầu điều này, vui lòng bỏ qua email này.</p>" +
-                        "</div>",
-                subject,
-                actionUrl
-        );
-
-        sendEmail(to, subject, emailContent, true);
+        return composeTemplateEmail(to, templateCode, locale, Map.of("token", token, "tokenType", tokenType));
     }
 
 //    public void sendConfirmationEmail(String to, String token) {
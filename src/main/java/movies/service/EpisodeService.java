@@ -6,6 +6,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import movies.dto.request.episode.EpisodeRequest;
 import movies.dto.request.video.VideoRequest;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.episode.EpisodeResponse;
 import movies.entity.Episode;
 import movies.entity.Season;
@@ -14,11 +15,15 @@ import movies.exception.ErrorCodes;
 import movies.mapper.EpisodeMapper;
 import movies.repository.EpisodeRepository;
 import movies.repository.SeasonRepository;
+import movies.utils.CursorUtils;
+import movies.utils.NdjsonWriter;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,6 +35,8 @@ public class EpisodeService {
     EpisodeRepository episodeRepository;
     SeasonRepository seasonRepository;
     EpisodeMapper episodeMapper;
+    CursorUtils cursorUtils;
+    NdjsonWriter ndjsonWriter;
     VideoService videoService;
 
     @Transactional
@@ -92,11 +99,17 @@ public class EpisodeService {
     }
 
     @Transactional(readOnly = true)
-    public List<EpisodeResponse> getAllEpisodes() {
-        return episodeRepository.findAll()
-                .stream()
-                .map(episodeMapper::toEpisodeResponse)
-                .toList();
+    public CursorPageResponse<EpisodeResponse> getAllEpisodes(String cursor, Integer size) {
+        int pageSize = cursorUtils.pageSize(size);
+        List<String> ids = episodeRepository.findIdsAfter(cursorUtils.decode(cursor), cursorUtils.seekLimit(pageSize));
+        return cursorUtils.toPage(ids, pageSize, id -> id,
+                page -> episodeRepository.findPageWithDetails(page).stream().map(episodeMapper::toEpisodeResponse).toList());
+    }
+
+    @Transactional(readOnly = true)
+    public void exportEpisodes(OutputStream out) throws IOException {
+        ndjsonWriter.writeInChunks(episodeRepository.streamIds(), episodeRepository::findPageWithDetails,
+                episodeMapper::toEpisodeResponse, out);
     }
 
     @Transactional(readOnly = true)
@@ -5,16 +5,21 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import movies.dto.request.genre.GenreRequest;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.genre.GenreResponse;
 import movies.entity.Genre;
 import movies.exception.AppException;
 import movies.exception.ErrorCodes;
 import movies.mapper.GenreMapper;
 import movies.repository.GenreRepository;
+import movies.utils.CursorUtils;
+import movies.utils.NdjsonWriter;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -27,6 +32,9 @@ import java.util.stream.Collectors;
 public class GenreService {
     GenreRepository genreRepository;
     GenreMapper genreMapper;
+    CursorUtils cursorUtils;
+    NdjsonWriter ndjsonWriter;
+    SearchOutboxService searchOutboxService;
 
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
@@ -53,16 +61,23 @@ public class GenreService {
 
         genreMapper.updateGenre(request, genre);
         Genre savedGenre = genreRepository.save(genre);
+        searchOutboxService.genreChanged(genreId);
         log.info("Updated genre with id: {}", genreId);
         return genreMapper.toGenreResponse(savedGenre);
     }
 
     @Transactional(readOnly = true)
-    public List<GenreResponse> getAllGenres() {
-        return genreRepository.findAll()
-                .stream()
-                .map(genreMapper::toGenreResponse)
-                .toList();
+    public CursorPageResponse<GenreResponse> getAllGenres(String cursor, Integer size) {
+        int pageSize = cursorUtils.pageSize(size);
+        List<String> ids = genreRepository.findIdsAfter(cursorUtils.decode(cursor), cursorUtils.seekLimit(pageSize));
+        return cursorUtils.toPage(ids, pageSize, id -> id,
+                page -> genreRepository.findPageWithDetails(page).stream().map(genreMapper::toGenreResponse).toList());
+    }
+
+    @Transactional(readOnly = true)
+    public void exportGenres(OutputStream out) throws IOException {
+        ndjsonWriter.writeInChunks(genreRepository.streamIds(), genreRepository::findPageWithDetails,
+                genreMapper::toGenreResponse, out);
     }
 
     @Transactional(readOnly = true)
@@ -77,6 +92,7 @@ public class GenreService {
         if (!genreRepository.existsById(genreId)) {
             throw new AppException(ErrorCodes.GENRE_NOT_EXISTED);
         }
+        searchOutboxService.genreChanged(genreId);
         genreRepository.deleteById(genreId);
         log.info("Deleted genre with id: {}", genreId);
     }
@@ -0,0 +1,148 @@
+package movies.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Byte-bounded cache of HLS segments held in direct buffers, so a popular title's first segments are served from
+ * memory instead of the filesystem and without adding to heap pressure.
+ * <p>
+ * A segment is only loaded on its second request within {@link #DOORKEEPER_TTL}; the first is served from the file
+ * (sendfile where available), so a title watched once never costs a direct allocation and a copy. Eviction is then
+ * Caffeine's W-TinyLFU: a segment has to be requested more often than the one it would displace before it is
+ * admitted, so a single viewer scanning an old title cannot flush the hot set.
+ * <p>
+ * Direct memory: besides {@code max-size}, evicted buffers stay allocated until the GC collects them, each concurrent
+ * load holds up to {@code max-entry-size}, and NIO and Tomcat draw on the same pool. Give
+ * {@code -XX:MaxDirectMemorySize} at least twice {@code max-size}; left unset it defaults to the heap size.
+ */
+@Component
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class HlsSegmentCache {
+    static final String METRIC_PREFIX = "hls.segment.cache";
+    // Keys of segments requested once; at a few hundred bytes each this bounds the doorkeeper to some megabytes of heap
+    static final int DOORKEEPER_ENTRIES = 20_000;
+    static final Duration DOORKEEPER_TTL = Duration.ofMinutes(10);
+    static final long DIRECT_MEMORY_HEADROOM_FACTOR = 2;
+
+    Cache<SegmentKey, ByteBuffer> cache;
+    Cache<SegmentKey, Boolean> seenOnce;
+    boolean enabled;
+    long maxEntryBytes;
+
+    public HlsSegmentCache(
+            @Value("${spring.hls.cache.enabled:true}") boolean enabled,
+            @Value("${spring.hls.cache.max-size:256MB}") DataSize maxSize,
+            @Value("${spring.hls.cache.max-entry-size:8MB}") DataSize maxEntrySize,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((SegmentKey key, ByteBuffer buffer) -> buffer.capacity())
+                .recordStats()
+                .build();
+        this.seenOnce = Caffeine.newBuilder()
+                .maximumSize(DOORKEEPER_ENTRIES)
+                .expireAfterWrite(DOORKEEPER_TTL)
+                .build();
+        if (enabled) {
+            checkDirectMemory(maxSize.toBytes());
+        }
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, METRIC_PREFIX);
+        Gauge.builder(METRIC_PREFIX + ".bytes", this, HlsSegmentCache::residentBytes)
+                .description("Bytes of segment data held in the cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of segment reads answered from the cache")
+                .register(meterRegistry);
+    }
+
+    public boolean accepts(long size) {
+        return enabled && size > 0 && size <= maxEntryBytes;
+    }
+
+    /**
+     * Returns a read-only view of the segment, or {@code null} when the caller should serve it from the file: on the
+     * first request the key is only remembered, on a repeat it is loaded. The key includes size and mtime, so a
+     * re-transcoded segment is a new entry and the stale one simply ages out.
+     */
+    public ByteBuffer get(Path path, long size, long lastModified) throws IOException {
+        SegmentKey segmentKey = new SegmentKey(path.toString(), size, lastModified);
+        ByteBuffer cached = cache.getIfPresent(segmentKey);
+        if (cached != null) {
+            return cached.asReadOnlyBuffer();
+        }
+        if (seenOnce.asMap().putIfAbsent(segmentKey, Boolean.TRUE) == null) {
+            return null;
+        }
+
+        try {
+            ByteBuffer loaded = cache.get(segmentKey, key -> load(path, size));
+            seenOnce.invalidate(segmentKey);
+            return loaded.asReadOnlyBuffer();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public long residentBytes() {
+        // Caffeine updates the weighted size on its maintenance pass, which otherwise runs asynchronously
+        cache.cleanUp();
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private static void checkDirectMemory(long maxSizeBytes) {
+        String configured = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                .getVMOption("MaxDirectMemorySize").getValue();
+        long limit = Long.parseLong(configured);
+        if (limit == 0) {
+            limit = Runtime.getRuntime().maxMemory();
+        }
+        if (maxSizeBytes * DIRECT_MEMORY_HEADROOM_FACTOR > limit) {
+            log.warn("HLS segment cache max-size {} MB leaves little headroom under a direct memory limit of {} MB; "
+                    + "raise -XX:MaxDirectMemorySize", maxSizeBytes >> 20, limit >> 20);
+        }
+    }
+
+    private ByteBuffer load(Path path, long size) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    throw new IOException("Segment shrank while loading: " + path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.flip();
+    }
+
+    record SegmentKey(String path, long size, long lastModified) {
+    }
+}
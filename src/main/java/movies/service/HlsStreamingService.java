@@ -0,0 +1,194 @@
+package movies.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Serves HLS playlists and segments straight from the filesystem with conditional GET, single byte-range and
+ * cache headers.
+ * <p>
+ * Segments never change once written, so they are marked immutable and, when the connector supports it, handed to
+ * Tomcat's sendfile; playlists get a short TTL. Segments small enough for {@link HlsSegmentCache} are answered from
+ * memory once they are requested again.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class HlsStreamingService {
+    public static final String PLAYLIST_CONTENT_TYPE = "application/vnd.apple.mpegurl";
+    public static final String SEGMENT_CONTENT_TYPE = "video/mp2t";
+
+    // Tomcat request attributes for the sendfile path (see org.apache.catalina.Globals)
+    static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+    // Below this size a plain write is cheaper than the sendfile hand-off (same threshold as Tomcat's DefaultServlet)
+    static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    HlsSegmentCache segmentCache;
+
+    @NonFinal
+    @Value("${spring.hls.playlist-max-age:10}")
+    long playlistMaxAge;
+
+    @NonFinal
+    @Value("${spring.hls.segment-max-age:31536000}")
+    long segmentMaxAge;
+
+    public void servePlaylist(Path path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(path, PLAYLIST_CONTENT_TYPE, "public, max-age=" + playlistMaxAge, false, request, response);
+    }
+
+    public void serveSegment(Path path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(path, SEGMENT_CONTENT_TYPE, "public, max-age=" + segmentMaxAge + ", immutable", true, request, response);
+    }
+
+    private void serve(Path path, String contentType, String cacheControl, boolean cacheable,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (!attributes.isRegularFile()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Sets ETag/Last-Modified and answers If-None-Match / If-Modified-Since with 304
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && rangeApplies(request, etag, lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // Multiple ranges are legal to ignore; players only ever ask for one
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                }
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+
+            // Unparseable, or starting at or past the end (HttpRange does not reject that itself)
+            if (start >= length) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+
+            if (start != 0 || end != length - 1) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = length == 0 ? 0 : end - start + 1;
+        response.setContentType(contentType);
+        response.setContentLengthLong(count);
+
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        // Playlists are rewritten while a title is transcoding, so only immutable segments go through the cache
+        if (cacheable && segmentCache.accepts(length)) {
+            ByteBuffer segment = segmentCache.get(path, length, lastModified);
+            if (segment != null) {
+                write(segment.position((int) start).limit((int) (end + 1)), response);
+                return;
+            }
+        }
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, path.toRealPath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+
+        transfer(path, start, count, response);
+    }
+
+    /**
+     * If-Range lets a client resume only while the representation is unchanged; otherwise it gets the full body.
+     */
+    private boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeDate != -1 && lastModified / 1000 <= ifRangeDate / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void write(ByteBuffer buffer, HttpServletResponse response) throws IOException {
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private void transfer(Path path, long start, long count, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package movies.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Transformation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.config.ImageDerivativeProperties;
+import movies.config.StorageProperties;
+import movies.constant.PredefinedImages;
+import movies.entity.Image;
+import movies.entity.ImageVariant;
+import movies.repository.ImageRepository;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resized renditions of uploaded images, so that lists and cards do not download full-size posters.
+ * <p>
+ * Images on Cloudinary get transformation URLs ({@code w_342,c_limit,f_auto,q_auto}); Cloudinary renders them on first
+ * request and serves WebP or AVIF to browsers that accept them. Images kept locally are decoded and resized here on a
+ * small worker pool after the upload commits, and written as JPEG, or PNG when they have transparency, since the JDK
+ * has no WebP or AVIF encoder. Renditions are never wider than the original. Large originals are subsampled while
+ * decoding, and those over {@code max-pixels} keep only the original.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ImageDerivativeService {
+    static final String CLOUDINARY_FORMAT = "auto";
+    static final String JPEG_FORMAT = "jpeg";
+    static final String PNG_FORMAT = "png";
+
+    ImageDerivativeProperties properties;
+    StorageProperties storageProperties;
+    ImageRepository imageRepository;
+    Cloudinary cloudinary;
+    TransactionTemplate transactionTemplate;
+    MeterRegistry meterRegistry;
+
+    @NonFinal
+    ThreadPoolExecutor workers;
+
+    @NonFinal
+    Timer generateTimer;
+
+    @PostConstruct
+    public void init() {
+        int concurrency = Math.max(1, properties.getConcurrency());
+        workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                new CustomizableThreadFactory("image-derivative-"),
+                // Renditions are optional: the original is still served, so a burst beyond the queue is dropped
+                // rather than resized on the request thread
+                (task, executor) -> log.warn("Image derivative queue is full, skipping renditions"));
+
+        generateTimer = Timer.builder("image.derivative.duration")
+                .description("Time to decode, resize and write the renditions of one local image")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Fills in the renditions of an image just uploaded to Cloudinary. No request is made: the URLs are rendered on
+     * first use.
+     */
+    @SuppressWarnings("rawtypes")
+    public void addCloudinaryVariants(Image image) {
+        if (!Boolean.TRUE.equals(image.getIsStoredInCloudinary()) || image.getCloudinaryPublicId() == null) {
+            return;
+        }
+
+        List<ImageVariant> variants = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : properties.getWidths().entrySet()) {
+            int width = entry.getValue();
+            if (image.getWidth() != null && width >= image.getWidth()) {
+                continue;
+            }
+            String url = cloudinary.url()
+                    .secure(true)
+                    .transformation(new Transformation()
+                            .width(width)
+                            .crop("limit")
+                            .fetchFormat(CLOUDINARY_FORMAT)
+                            .quality("auto"))
+                    .generate(image.getCloudinaryPublicId());
+            variants.add(ImageVariant.builder()
+                    .name(entry.getKey())
+                    .width(width)
+                    .height(scaledHeight(image, width))
+                    .format(CLOUDINARY_FORMAT)
+                    .url(url)
+                    .build());
+        }
+        image.setVariants(variants);
+        image.setImageType(refineImageType(image));
+    }
+
+    /**
+     * Queues rendition generation for the locally stored images among {@code images}, after the current transaction
+     * commits, or straight away when there is none.
+     */
+    public void generateLocalVariants(Collection<Image> images) {
+        List<String> imageIds = images.stream()
+                .filter(image -> Boolean.TRUE.equals(image.getIsStoredLocally()))
+                .map(Image::getId)
+                .toList();
+        if (imageIds.isEmpty()) {
+            return;
+        }
+
+        Runnable submit = () -> imageIds.forEach(imageId -> workers.execute(() -> generate(imageId)));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Deletes the files of local renditions; Cloudinary drops its derived renditions with the original.
+     */
+    public void deleteLocalVariants(Image image) {
+        if (image.getVariants() == null) {
+            return;
+        }
+        image.getVariants().stream()
+                .map(ImageVariant::getFilePath)
+                .filter(filePath -> filePath != null)
+                .forEach(this::deleteQuietly);
+    }
+
+    private void generate(String imageId) {
+        Image image = imageRepository.findById(imageId).orElse(null);
+        if (image == null || image.getFilePath() == null) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<ImageVariant> variants = new ArrayList<>();
+        try {
+            BufferedImage original = decode(image);
+            if (original == null) {
+                return;
+            }
+
+            for (Map.Entry<String, Integer> entry : properties.getWidths().entrySet()) {
+                if (entry.getValue() < image.getWidth()) {
+                    variants.add(writeVariant(image, original, entry.getKey(), entry.getValue()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to generate renditions for image {}", imageId, e);
+            variants.forEach(variant -> deleteQuietly(variant.getFilePath()));
+            return;
+        } finally {
+            generateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        Boolean saved = transactionTemplate.execute(status -> imageRepository.findById(imageId)
+                .map(current -> {
+                    // Same file names as any earlier renditions, which have just been overwritten
+                    current.setWidth(image.getWidth());
+                    current.setHeight(image.getHeight());
+                    current.getVariants().clear();
+                    current.getVariants().addAll(variants);
+                    current.setImageType(refineImageType(current));
+                    return true;
+                })
+                .orElse(false));
+        if (!Boolean.TRUE.equals(saved)) {
+            // Deleted while the renditions were being written
+            variants.forEach(variant -> deleteQuietly(variant.getFilePath()));
+            return;
+        }
+        log.debug("Generated {} rendition(s) for image {}", variants.size(), imageId);
+    }
+
+    /**
+     * Decodes the original and records its dimensions on the image, or returns {@code null} when there is nothing to
+     * resize. The dimensions come from the header first: sources over the pixel cap are never decoded, and sources
+     * more than twice as wide as the widest rendition are subsampled while decoding, so the full raster of a large
+     * upload is never held in memory.
+     */
+    private BufferedImage decode(Image image) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(Paths.get(image.getFilePath()).toFile())) {
+            Iterator<ImageReader> readers = input == null
+                    ? Collections.emptyIterator()
+                    : ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                // No ImageIO reader for this format (WebP without a plugin), so the original is served as is
+                log.info("No decoder for image {} ({}), skipping renditions", image.getId(), image.getFileType());
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > properties.getMaxPixels()) {
+                    log.warn("Image {} is {}x{}, over the {} pixel limit, skipping renditions",
+                            image.getId(), width, height, properties.getMaxPixels());
+                    return null;
+                }
+                image.setWidth(width);
+                image.setHeight(height);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = subsampling(width);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Keeps the decoded width at least twice the widest rendition, which leaves the halving passes in
+     * {@link #resize} enough pixels to smooth the point-sampled rows and columns.
+     */
+    private int subsampling(int width) {
+        int widest = properties.getWidths().values().stream().mapToInt(Integer::intValue).max().orElse(width);
+        return Math.max(1, width / (2 * Math.max(1, widest)));
+    }
+
+    private ImageVariant writeVariant(Image image, BufferedImage original, String name, int width) throws IOException {
+        // From the source dimensions, since the decoded image may be subsampled
+        int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        boolean alpha = original.getColorModel().hasAlpha();
+        BufferedImage resized = resize(original, width, height, alpha);
+
+        String format = alpha ? PNG_FORMAT : JPEG_FORMAT;
+        String baseName = image.getFileName().substring(0, image.getFileName().lastIndexOf("."));
+        String fileName = baseName + "_" + name + (alpha ? ".png" : ".jpg");
+        Path target = Paths.get(storageProperties.getUploadDir()).toAbsolutePath().normalize().resolve(fileName);
+
+        if (alpha) {
+            ImageIO.write(resized, PNG_FORMAT, target.toFile());
+        } else {
+            writeJpeg(resized, target);
+        }
+
+        long fileSize = Files.size(target);
+        DistributionSummary.builder("image.derivative.bytes")
+                .description("Size of generated local renditions, to compare with image.fileSize")
+                .baseUnit("bytes")
+                .tag("variant", name)
+                .register(meterRegistry)
+                .record(fileSize);
+
+        return ImageVariant.builder()
+                .name(name)
+                .width(width)
+                .height(height)
+                .format(format)
+                .url("/api/images/local/" + fileName)
+                .filePath(target.toString())
+                .fileSize(fileSize)
+                .build();
+    }
+
+    /**
+     * Halves the image until it is within a factor of two of the target, then scales to the target. A single
+     * bilinear pass over a large reduction skips most source pixels and aliases badly.
+     */
+    private BufferedImage resize(BufferedImage source, int width, int height, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+
+        do {
+            if (currentWidth / 2 < width) {
+                currentWidth = width;
+                currentHeight = height;
+            } else {
+                currentWidth /= 2;
+                currentHeight = Math.max(height, currentHeight / 2);
+            }
+
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!alpha) {
+                    // Transparent pixels in an RGB target would otherwise turn black
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (currentWidth != width);
+
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(JPEG_FORMAT).next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(properties.getJpegQuality());
+        // Progressive JPEGs are usually a few percent smaller and paint a preview early
+        param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Uses the aspect ratio for images the file name said nothing about: tall ones are posters, wide ones backdrops.
+     */
+    private String refineImageType(Image image) {
+        if (!PredefinedImages.OTHER.equals(image.getImageType()) || image.getWidth() == null
+                || image.getHeight() == null || image.getHeight() == 0) {
+            return image.getImageType();
+        }
+        float aspect = (float) image.getWidth() / image.getHeight();
+        if (aspect < PredefinedImages.PORTRAIT_ASPECT_THRESHOLD) {
+            return PredefinedImages.POSTER;
+        }
+        if (aspect > PredefinedImages.LANDSCAPE_ASPECT_THRESHOLD) {
+            return PredefinedImages.BACKDROP;
+        }
+        return image.getImageType();
+    }
+
+    private Integer scaledHeight(Image image, int width) {
+        if (image.getWidth() == null || image.getHeight() == null || image.getWidth() == 0) {
+            return null;
+        }
+        return Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+    }
+
+    private void deleteQuietly(String filePath) {
+        try {
+            Files.deleteIfExists(Paths.get(filePath));
+        } catch (IOException e) {
+            log.error("Failed to delete image rendition: {}", filePath, e);
+        }
+    }
+}
@@ -3,11 +3,16 @@ package movies.service;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import event.dto.ImageUploadEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import movies.config.CloudinaryConfig;
 import movies.config.StorageProperties;
@@ -20,9 +25,12 @@ import movies.exception.ErrorCodes;
 import movies.mapper.ImageMapper;
 import movies.repository.ImageRepository;
 import movies.repository.MovieRepository;
+import movies.utils.FileUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -31,11 +39,17 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,57 +62,158 @@ public class ImageService {
     ImageMapper imageMapper;
     StorageProperties storageProperties;
     MovieRepository movieRepository;
+    FileUtils fileUtils;
+    ClaimCheckStore claimCheckStore;
+    ImageDerivativeService imageDerivativeService;
+    TransactionTemplate transactionTemplate;
+    MeterRegistry meterRegistry;
+
+    @NonFinal
+    @Value("${spring.image-upload.concurrency:4}")
+    int uploadConcurrency;
+
+    @NonFinal
+    @Value("${spring.image-upload.queue-capacity:64}")
+    int uploadQueueCapacity;
+
+    @NonFinal
+    ThreadPoolExecutor uploadWorkers;
+
+    @NonFinal
+    Timer uploadTimer;
+
+    @NonFinal
+    Timer persistTimer;
+
+    @PostConstruct
+    public void init() {
+        int concurrency = Math.max(1, uploadConcurrency);
+        uploadWorkers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, uploadQueueCapacity)),
+                new CustomizableThreadFactory("image-upload-"),
+                // Uploads are network-bound; when the pool is saturated the request thread just does its own
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        uploadTimer = Timer.builder("image.upload.duration")
+                .description("Wall-clock time to store a batch of uploaded images")
+                .register(meterRegistry);
+        persistTimer = Timer.builder("image.upload.persist")
+                .description("Time the image batch transaction holds a database connection")
+                .register(meterRegistry);
+    }
 
+    @PreDestroy
+    public void shutdown() {
+        uploadWorkers.shutdown();
+    }
 
-
-    @Transactional
+    /**
+     * Stores the files concurrently on the upload pool, holding no transaction or connection while the remote uploads
+     * run, then writes all rows in one short transaction that Hibernate sends as a JDBC batch. If any file cannot be
+     * stored, the ones that were are removed again and nothing is persisted.
+     */
     public List<ImageResponse> uploadImages(List<MultipartFile> files, String movieId) throws IOException {
         validateImage(files);
 
-        Movie movie = movieRepository.findById(movieId)
-                .orElseThrow(() -> new AppException(ErrorCodes.MOVIE_NOT_EXISTED));
-
-        List<Image> savedImages = new ArrayList<>();
-
-        for (MultipartFile file : files) {
-            String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
-            String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String uniqueFilename = UUID.randomUUID() + extension;
-            String detectedType = detectImageType(originalFilename);
-            Image image = Image.builder()
-                    .fileName(uniqueFilename)
-                    .originalFileName(originalFilename)
-                    .fileType(file.getContentType())
-                    .imageType(detectedType)
-                    .fileSize(file.getSize())
-                    .movie(movie)
-                    .isStoredLocally(false)
-                    .isStoredInCloudinary(false)
-                    .build();
+        if (!movieRepository.existsById(movieId)) {
+            throw new AppException(ErrorCodes.MOVIE_NOT_EXISTED);
+        }
 
-            try {
-                uploadToCloudinary(file, image);
-            } catch (Exception e) {
-                log.error("Failed to upload image to Cloudinary, falling back to local storage", e);
-                uploadLocally(file, image);
+        long start = System.nanoTime();
+        List<Path> staged = new ArrayList<>(files.size());
+        try {
+            // Multipart parts only live as long as the request, so they are staged on this thread
+            for (MultipartFile file : files) {
+                staged.add(fileUtils.stageUpload(file));
             }
 
-            if (!image.getIsStoredLocally() && !image.getIsStoredInCloudinary()) {
-                throw new AppException(ErrorCodes.IMAGE_PROCESSING_FAILED);
+            List<CompletableFuture<Image>> uploads = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                Path path = staged.get(i);
+                String filename = files.get(i).getOriginalFilename();
+                String contentType = files.get(i).getContentType();
+                long size = files.get(i).getSize();
+                uploads.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return upload(path, filename, contentType, size, false);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, uploadWorkers));
             }
 
-            Image savedImage = imageRepository.save(image);
-            savedImages.add(savedImage);
+            List<Image> images = awaitUploads(uploads);
+            List<Image> savedImages = persist(movieId, images);
+            imageDerivativeService.generateLocalVariants(savedImages);
+
+            return savedImages.stream()
+                    .map(imageMapper::toImageResponse)
+                    .collect(Collectors.toList());
+        } finally {
+            for (Path path : staged) {
+                Files.deleteIfExists(path);
+            }
+            uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
+    }
 
-        movie.getImages().addAll(savedImages);
-        movieRepository.save(movie);
+    /**
+     * Validates and stages the files and returns one claim-check event per file; the caller publishes them once the
+     * movie is committed.
+     */
+    public List<ImageUploadEvent> stageUploads(List<MultipartFile> files, String movieId) throws IOException {
+        validateImage(files);
 
-        return savedImages.stream()
-                .map(imageMapper::toImageResponse)
-                .collect(Collectors.toList());
+        List<ImageUploadEvent> events = new ArrayList<>();
+        for (MultipartFile file : files) {
+            ClaimCheckStore.ClaimCheck claimCheck = claimCheckStore.stage(file);
+            events.add(ImageUploadEvent.builder()
+                    .movieId(movieId)
+                    .fileName(file.getOriginalFilename())
+                    .contentType(file.getContentType())
+                    .stagingKey(claimCheck.key())
+                    .sha256(claimCheck.sha256())
+                    .fileSize(claimCheck.size())
+                    .build());
+        }
+        return events;
     }
 
+    /**
+     * Stores the claim-checked file with no transaction open, then saves its row in a short one. The staged file is
+     * copied rather than moved and only released once the row is committed, so a delivery that fails anywhere can be
+     * retried from the same claim check.
+     */
+    public ImageResponse uploadImageFromEvent(ImageUploadEvent event) throws IOException {
+        if (!movieRepository.existsById(event.getMovieId())) {
+            throw new AppException(ErrorCodes.MOVIE_NOT_EXISTED);
+        }
+
+        Path staged = claimCheckStore.redeem(
+                new ClaimCheckStore.ClaimCheck(event.getStagingKey(), event.getSha256(), event.getFileSize()));
+        Image image = upload(staged, event.getFileName(), event.getContentType(), event.getFileSize(), true);
+
+        Image savedImage;
+        try {
+            savedImage = transactionTemplate.execute(status -> {
+                Movie movie = movieRepository.findById(event.getMovieId())
+                        .orElseThrow(() -> new AppException(ErrorCodes.MOVIE_NOT_EXISTED));
+                image.setMovie(movie);
+                Image saved = imageRepository.save(image);
+                movie.getImages().add(saved);
+                movieRepository.save(movie);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            deleteStoredFile(image);
+            throw e;
+        }
+
+        claimCheckStore.release(event.getStagingKey());
+        imageDerivativeService.generateLocalVariants(List.of(savedImage));
+
+        return imageMapper.toImageResponse(savedImage);
+    }
 
     public ImageResponse getImageById(String id) {
         return imageRepository.findById(id)
@@ -122,24 +237,7 @@ public class ImageService {
         if (optionalImage.isPresent()) {
             Image image = optionalImage.get();
 
-            if (image.getIsStoredInCloudinary() && image.getCloudinaryPublicId() != null) {
-                try {
-                    cloudinary.uploader().destroy(image.getCloudinaryPublicId(), ObjectUtils.emptyMap());
-                } catch (Exception e) {
-                    log.error("Failed to delete image from Cloudinary: {}", image.getCloudinaryPublicId(), e);
-                }
-            }
-
-            // Delete from local storage if stored there
-            if (image.getIsStoredLocally() && image.getFilePath() != null) {
-                try {
-                    Path filePath = Paths.get(image.getFilePath());
-                    Files.deleteIfExists(filePath);
-                } catch (IOException e) {
-                    log.error("Failed to delete local image file: {}", image.getFilePath(), e);
-                }
-            }
-
+            deleteStoredFile(image);
 
             // Delete from database
             imageRepository.delete(image);
@@ -184,27 +282,31 @@ public class ImageService {
      * Upload an image to Cloudinary
      */
     @SuppressWarnings("unchecked")
-    private void uploadToCloudinary(MultipartFile file, Image image) throws IOException {
+    private void uploadToCloudinary(Path staged, Image image) throws IOException {
         Map<String, Object> params = ObjectUtils.asMap(
                 "public_id", "images/" + image.getFileName().substring(0, image.getFileName().lastIndexOf(".")),
                 "overwrite", true,
                 "resource_type", "image"
         );
 
-        Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(), params);
+        Map<String, Object> uploadResult = cloudinary.uploader().upload(staged.toFile(), params);
 
         image.setCloudinaryPublicId((String) uploadResult.get("public_id"));
         image.setCloudinaryUrl((String) uploadResult.get("secure_url"));
         image.setIsStoredInCloudinary(true);
         image.setFilePath((String) uploadResult.get("secure_url"));
+        if (uploadResult.get("width") instanceof Number width && uploadResult.get("height") instanceof Number height) {
+            image.setWidth(width.intValue());
+            image.setHeight(height.intValue());
+        }
 
         log.info("Image uploaded to Cloudinary: {}", image.getCloudinaryUrl());
     }
 
     /**
-     * Upload an image to local storage
+     * Upload an image to local storage, copying the staged file when the caller still needs it
      */
-    private void uploadLocally(MultipartFile file, Image image) throws IOException {
+    private void uploadLocally(Path staged, Image image, boolean keepSource) throws IOException {
         Path uploadPath = Paths.get(storageProperties.getUploadDir()).toAbsolutePath().normalize();
         if (!Files.exists(uploadPath)) {
             try {
@@ -216,7 +318,11 @@ public class ImageService {
         }
 
         Path targetLocation = uploadPath.resolve(image.getFileName());
-        Files.copy(file.getInputStream(), targetLocation);
+        if (keepSource) {
+            Files.copy(staged, targetLocation);
+        } else {
+            Files.move(staged, targetLocation);
+        }
 
         image.setIsStoredLocally(true);
         image.setFilePath(targetLocation.toString());
@@ -225,6 +331,99 @@ public class ImageService {
         log.info("Image saved locally: {}", image.getFilePath());
     }
 
+    /**
+     * Uploads a staged file to Cloudinary, or moves (copies, with {@code keepSource}) it to local storage if that
+     * fails. The returned image is not saved and has no movie yet.
+     */
+    private Image upload(Path staged, String filename, String contentType, long size, boolean keepSource)
+            throws IOException {
+        String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(filename));
+        String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        String uniqueFilename = UUID.randomUUID() + extension;
+        String detectedType = detectImageType(originalFilename);
+        Image image = Image.builder()
+                .fileName(uniqueFilename)
+                .originalFileName(originalFilename)
+                .fileType(contentType)
+                .imageType(detectedType)
+                .fileSize(size)
+                .isStoredLocally(false)
+                .isStoredInCloudinary(false)
+                .build();
+
+        try {
+            uploadToCloudinary(staged, image);
+        } catch (Exception e) {
+            log.error("Failed to upload image to Cloudinary, falling back to local storage", e);
+            uploadLocally(staged, image, keepSource);
+        }
+
+        if (!image.getIsStoredLocally() && !image.getIsStoredInCloudinary()) {
+            throw new AppException(ErrorCodes.IMAGE_PROCESSING_FAILED);
+        }
+        imageDerivativeService.addCloudinaryVariants(image);
+        return image;
+    }
+
+    /**
+     * Waits for every upload, so that on failure all the files that did get stored are known and can be removed.
+     */
+    private List<Image> awaitUploads(List<CompletableFuture<Image>> uploads) {
+        CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+
+        List<Image> stored = new ArrayList<>(uploads.size());
+        Throwable failure = null;
+        for (CompletableFuture<Image> upload : uploads) {
+            try {
+                stored.add(upload.join());
+            } catch (CompletionException e) {
+                failure = e.getCause();
+            }
+        }
+
+        if (failure != null) {
+            log.error("Failed to store {} of {} image(s)", uploads.size() - stored.size(), uploads.size(), failure);
+            stored.forEach(this::deleteStoredFile);
+            throw failure instanceof AppException appException
+                    ? appException
+                    : new AppException(ErrorCodes.IMAGE_UPLOAD_FAILED);
+        }
+        return stored;
+    }
+
+    private List<Image> persist(String movieId, List<Image> images) {
+        try {
+            return persistTimer.record(() -> transactionTemplate.execute(status -> {
+                Movie movie = movieRepository.getReferenceById(movieId);
+                images.forEach(image -> image.setMovie(movie));
+                return imageRepository.saveAll(images);
+            }));
+        } catch (RuntimeException e) {
+            images.forEach(this::deleteStoredFile);
+            throw e;
+        }
+    }
+
+    private void deleteStoredFile(Image image) {
+        if (Boolean.TRUE.equals(image.getIsStoredInCloudinary()) && image.getCloudinaryPublicId() != null) {
+            try {
+                cloudinary.uploader().destroy(image.getCloudinaryPublicId(), ObjectUtils.emptyMap());
+            } catch (Exception e) {
+                log.error("Failed to delete image from Cloudinary: {}", image.getCloudinaryPublicId(), e);
+            }
+        }
+
+        // Delete from local storage if stored there
+        if (Boolean.TRUE.equals(image.getIsStoredLocally()) && image.getFilePath() != null) {
+            imageDerivativeService.deleteLocalVariants(image);
+            try {
+                Files.deleteIfExists(Paths.get(image.getFilePath()));
+            } catch (IOException e) {
+                log.error("Failed to delete local image file: {}", image.getFilePath(), e);
+            }
+        }
+    }
+
     private String detectImageType(String filename) {
         if (filename == null) {
             return PredefinedImages.OTHER;
@@ -0,0 +1,87 @@
+package movies.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.repository.InvalidatedTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps {@code invalidated_token} bounded: a row is useless once its token has expired, so expired rows are deleted
+ * in small batches, keeping each transaction short and leaving room for logins and logouts writing to the same table.
+ * A run deletes at most {@code max-batches} batches and leaves the rest to the next tick, so a large backlog never
+ * holds the shared scheduler thread.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class InvalidatedTokenReaper {
+    static final String METRIC_PREFIX = "auth.revocation";
+
+    InvalidatedTokenRepository invalidatedTokenRepository;
+    TokenRevocationService tokenRevocationService;
+    MeterRegistry meterRegistry;
+
+    // Row count as of the last run; counting on every scrape would scan the table
+    AtomicLong rows = new AtomicLong();
+
+    @NonFinal
+    @Value("${spring.jwt.revocation-purge.batch-size:500}")
+    int batchSize;
+
+    @NonFinal
+    @Value("${spring.jwt.revocation-purge.max-batches:10}")
+    int maxBatches;
+
+    @NonFinal
+    Counter purgedCounter;
+
+    @PostConstruct
+    public void init() {
+        purgedCounter = Counter.builder(METRIC_PREFIX + ".purged")
+                .description("Expired invalidated tokens deleted from the database")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".rows", rows, AtomicLong::get)
+                .description("Rows in the invalidated_token table after the last purge")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".active", tokenRevocationService, TokenRevocationService::size)
+                .description("Unexpired revoked tokens held in memory")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${spring.jwt.revocation-purge.interval:1m}", initialDelayString = "1m")
+    public void purge() {
+        Date now = new Date();
+        long purged = 0;
+        List<String> expired;
+        int batches = 0;
+        do {
+            expired = invalidatedTokenRepository.findExpiredIds(now, PageRequest.of(0, batchSize));
+            if (expired.isEmpty()) {
+                break;
+            }
+            invalidatedTokenRepository.deleteAllByIdInBatch(expired);
+            purged += expired.size();
+            purgedCounter.increment(expired.size());
+        } while (expired.size() == batchSize && ++batches < maxBatches);
+
+        rows.set(invalidatedTokenRepository.count());
+        if (purged > 0) {
+            log.info("Purged {} expired invalidated token(s), {} left", purged, rows.get());
+        }
+    }
+}
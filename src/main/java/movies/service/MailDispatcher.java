@@ -0,0 +1,223 @@
+package movies.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.config.MailDispatchProperties;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends mail over a small pool of SMTP connections that stay open between messages, so a burst pays the TCP and
+ * STARTTLS handshake once per connection instead of once per email.
+ * <p>
+ * Each recipient domain is throttled to {@code per-domain-rate} messages per second. A failed send is retried on a
+ * fresh connection with exponential back-off; what still fails completes the returned future exceptionally and is
+ * left to the caller to dead-letter. When the queue is full, {@link #send} runs the message on the caller's thread,
+ * which slows the Kafka listener down instead of dropping mail.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class MailDispatcher {
+    static final String METRIC_PREFIX = "mail.dispatch";
+
+    JavaMailSenderImpl mailSender;
+    MailDispatchProperties mailDispatchProperties;
+    MeterRegistry meterRegistry;
+
+    // Earliest time, in System.nanoTime(), at which the next message to a domain may go out
+    Map<String, AtomicLong> nextSendByDomain = new ConcurrentHashMap<>();
+
+    @NonFinal
+    BlockingQueue<Transport> idleTransports;
+
+    @NonFinal
+    ThreadPoolExecutor workers;
+
+    @NonFinal
+    Timer sendTimer;
+
+    @NonFinal
+    Counter sentCounter;
+
+    @NonFinal
+    Counter retryCounter;
+
+    @NonFinal
+    Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = Math.max(1, mailDispatchProperties.getPoolSize());
+        idleTransports = new ArrayBlockingQueue<>(poolSize);
+        workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, mailDispatchProperties.getQueueCapacity())),
+                new CustomizableThreadFactory("mail-dispatch-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        sendTimer = Timer.builder(METRIC_PREFIX + ".send")
+                .description("Time to hand one message to the SMTP server")
+                .register(meterRegistry);
+        sentCounter = Counter.builder(METRIC_PREFIX + ".sent")
+                .description("Messages accepted by the SMTP server")
+                .register(meterRegistry);
+        retryCounter = Counter.builder(METRIC_PREFIX + ".retries")
+                .description("Send attempts repeated after a failure")
+                .register(meterRegistry);
+        failedCounter = Counter.builder(METRIC_PREFIX + ".failed")
+                .description("Messages given up on after all attempts")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+        Transport transport;
+        while ((transport = idleTransports.poll()) != null) {
+            close(transport);
+        }
+    }
+
+    public CompletableFuture<Void> send(MimeMessage message) {
+        return CompletableFuture.runAsync(() -> deliver(message), workers);
+    }
+
+    private void deliver(MimeMessage message) {
+        int maxAttempts = Math.max(1, mailDispatchProperties.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                throttle(message);
+                sendTimer.recordCallable(() -> {
+                    sendOnce(message);
+                    return null;
+                });
+                sentCounter.increment();
+                return;
+            } catch (SendFailedException e) {
+                // The server rejected the addresses; another attempt would be rejected too
+                failedCounter.increment();
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    failedCounter.increment();
+                    throw new CompletionException(e);
+                }
+                retryCounter.increment();
+                log.warn("Sending mail failed (attempt {}/{}): {}", attempt, maxAttempts, e.getMessage());
+                try {
+                    Thread.sleep(mailDispatchProperties.getRetryBackoff().toMillis() << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(interrupted);
+                }
+            }
+        }
+    }
+
+    private void sendOnce(MimeMessage message) throws MessagingException {
+        Transport transport = idleTransports.poll();
+        try {
+            if (transport == null) {
+                transport = mailSender.getSession().getTransport(protocol());
+            }
+            if (!transport.isConnected()) {
+                transport.connect(mailSender.getHost(), mailSender.getPort(),
+                        mailSender.getUsername(), mailSender.getPassword());
+            }
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+            transport.sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            // The connection may be half-broken; never hand it to the next message
+            close(transport);
+            transport = null;
+            throw e;
+        } finally {
+            if (transport != null && !idleTransports.offer(transport)) {
+                close(transport);
+            }
+        }
+    }
+
+    /**
+     * The same fallback as {@link JavaMailSenderImpl} itself: the protocol is only set when Boot configures the sender.
+     */
+    private String protocol() {
+        if (mailSender.getProtocol() != null) {
+            return mailSender.getProtocol();
+        }
+        String sessionProtocol = mailSender.getSession().getProperty("mail.transport.protocol");
+        return sessionProtocol != null ? sessionProtocol : JavaMailSenderImpl.DEFAULT_PROTOCOL;
+    }
+
+    /**
+     * Waits for the recipient domain's next slot. Slots are reserved up front, so concurrent senders to one domain
+     * queue up behind each other instead of all waking at once.
+     */
+    private void throttle(MimeMessage message) throws MessagingException, InterruptedException {
+        double rate = mailDispatchProperties.getPerDomainRate();
+        Address[] recipients = message.getAllRecipients();
+        if (rate <= 0 || recipients == null || recipients.length == 0) {
+            return;
+        }
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long now = System.nanoTime();
+        AtomicLong nextSend = nextSendByDomain.computeIfAbsent(domain(recipients[0]), domain -> new AtomicLong(now));
+        long slot = nextSend.getAndAccumulate(now, (next, current) -> Math.max(next, current) + interval);
+        long wait = Math.max(slot, now) - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private static String domain(Address address) {
+        String email = address instanceof InternetAddress internetAddress ? internetAddress.getAddress() : address.toString();
+        int at = email.lastIndexOf('@');
+        return at < 0 ? "" : email.substring(at + 1).toLowerCase();
+    }
+
+    private static void close(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Closing SMTP connection failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package movies.service;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedMailTemplate;
+import movies.exception.AppException;
+import movies.exception.ErrorCodes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Renders emails from the Thymeleaf templates in {@code resources/mail}, one per template code, with subjects and
+ * copy taken from the {@code mail/messages} bundles for the recipient's locale.
+ * <p>
+ * Templates are parsed once and cached. When {@code spring.mail-templates.dir} is set, templates and bundles there
+ * take precedence over the packaged ones and are re-read every {@code reload-interval}, so copy can be changed without
+ * a deploy. The engine is private to this class: exposing it as a bean would replace Boot's view engine.
+ */
+@Component
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class MailTemplateRenderer {
+    static final Pattern TEMPLATE_CODE = Pattern.compile("[A-Z0-9_]+");
+    static final String CLASSPATH_PREFIX = "mail/";
+
+    SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+    ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
+    String frontendUrl;
+
+    public record RenderedMail(String subject, String html) {
+    }
+
+    public MailTemplateRenderer(
+            @Value("${spring.mail-templates.dir:}") String dir,
+            @Value("${spring.mail-templates.reload-interval:10s}") Duration reloadInterval,
+            @Value("${spring.mail-templates.frontend-url:http://localhost:3000}") String frontendUrl) {
+        this.frontendUrl = frontendUrl;
+
+        messageSource.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        messageSource.setFallbackToSystemLocale(false);
+
+        int order = 1;
+        if (StringUtils.hasText(dir)) {
+            String root = Paths.get(dir).toAbsolutePath().normalize() + "/";
+            FileTemplateResolver fileResolver = new FileTemplateResolver();
+            configure(fileResolver, root, order++);
+            fileResolver.setCacheTTLMs(reloadInterval.toMillis());
+            // Let the packaged template answer when the directory does not override it
+            fileResolver.setCheckExistence(true);
+            templateEngine.addTemplateResolver(fileResolver);
+
+            messageSource.setBasenames("file:" + root + "messages", "classpath:" + CLASSPATH_PREFIX + "messages");
+            messageSource.setCacheMillis(reloadInterval.toMillis());
+            log.info("Mail templates in {} override the packaged ones", root);
+        } else {
+            messageSource.setBasenames("classpath:" + CLASSPATH_PREFIX + "messages");
+        }
+
+        ClassLoaderTemplateResolver classpathResolver = new ClassLoaderTemplateResolver();
+        configure(classpathResolver, CLASSPATH_PREFIX, order);
+        templateEngine.addTemplateResolver(classpathResolver);
+        templateEngine.setTemplateEngineMessageSource(messageSource);
+    }
+
+    /**
+     * @param locale a language tag such as {@code vi} or {@code en}; null for the default
+     */
+    public RenderedMail render(String templateCode, String locale, Map<String, Object> variables) {
+        if (templateCode == null || !TEMPLATE_CODE.matcher(templateCode).matches()) {
+            throw new AppException(ErrorCodes.INVALID_MAIL_TEMPLATE);
+        }
+        Locale resolved = Locale.forLanguageTag(StringUtils.hasText(locale) ? locale : PredefinedMailTemplate.DEFAULT_LOCALE);
+
+        Context context = new Context(resolved, variables);
+        context.setVariable("frontendUrl", frontendUrl);
+
+        StringWriter html = new StringWriter(2048);
+        templateEngine.process(templateName(templateCode), context, html);
+        String subject = messageSource.getMessage(templateCode + ".subject", null, templateCode, resolved);
+        return new RenderedMail(subject, html.toString());
+    }
+
+    private static String templateName(String templateCode) {
+        return templateCode.toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private static void configure(AbstractConfigurableTemplateResolver resolver, String prefix, int order) {
+        resolver.setPrefix(prefix);
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(true);
+        resolver.setOrder(order);
+    }
+}
@@ -7,12 +7,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import movies.constant.PredefinedImages;
+import movies.constant.PredefinedTopic;
 import movies.dto.request.image.ImageRequest;
 import movies.dto.request.movie.MovieRequest;
 import movies.dto.request.video.VideoRequest;
 import movies.dto.response.image.ImageResponse;
 import movies.dto.response.movie.MovieResponse;
-import movies.dto.response.PageResponse;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.video.VideoResponse;
 import movies.entity.Genre;
 import movies.entity.Image;
@@ -22,32 +23,41 @@ import movies.exception.ErrorCodes;
 import movies.mapper.ImageMapper;
 import movies.mapper.MovieMapper;
 import movies.repository.ImageRepository;
+import movies.repository.KeysetRow;
 import movies.repository.MovieRepository;
 import movies.repository.VideoRepository;
+import movies.utils.CursorUtils;
+import movies.utils.NdjsonWriter;
 import org.springframework.data.crossstore.ChangeSetPersister;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class MovieService {
+    static final int HOME_LIST_SIZE = 10;
+
     MovieRepository movieRepository;
     MovieMapper movieMapper;
     VideoService videoService;
     GenreService genreService;
     ImageService imageService;
+    SearchOutboxService searchOutboxService;
     KafkaTemplate<String, Object> kafkaTemplate;
+    CursorUtils cursorUtils;
+    NdjsonWriter ndjsonWriter;
 
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
@@ -67,15 +77,19 @@ public class MovieService {
 
         Movie savedMovie = movieRepository.save(movie);
 
+        // Media is stored by the upload listeners; only references to the staged files go through Kafka
+        List<Object> uploads = new ArrayList<>();
         if (files != null && !files.isEmpty()) {
-            imageService.uploadImages(files, movie.getId());
+            uploads.addAll(imageService.stageUploads(files, savedMovie.getId()));
         }
 
         if (videoFile != null && !videoFile.isEmpty()) {
-            videoService.uploadVideo(videoFile, savedMovie.getId());
+            uploads.add(videoService.stageUpload(videoFile, savedMovie.getId()));
         }
+        publishAfterCommit(savedMovie.getId(), uploads);
 
         MovieResponse response = movieMapper.toMovieResponse(savedMovie);
+        searchOutboxService.movieChanged(savedMovie.getId());
 
         log.info("Created movie successfully: {}", response);
 
@@ -111,17 +125,23 @@ public class MovieService {
 ////            imageService.uploadImage(imageFile, imageUploadRequest);
 //        }
         uploadMovieVideoIfPresent(savedMovie.getId(), videoFile);
+        searchOutboxService.movieChanged(savedMovie.getId());
 
         return movieMapper.toMovieResponse(movieRepository.save(movie));
     }
 
 
     @Transactional(readOnly = true)
-    public List<MovieResponse> getAllMovies() {
-        return movieRepository.findAll()
-                .stream()
-                .map(movieMapper::toMovieResponse)
-                .toList();
+    public CursorPageResponse<MovieResponse> getAllMovies(String cursor, Integer size) {
+        int pageSize = cursorUtils.pageSize(size);
+        List<String> ids = movieRepository.findIdsAfter(cursorUtils.decode(cursor), cursorUtils.seekLimit(pageSize));
+        return cursorUtils.toPage(ids, pageSize, id -> id, this::toMovieResponses);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportMovies(OutputStream out) throws IOException {
+        ndjsonWriter.writeInChunks(movieRepository.streamIds(), movieRepository::findPageWithDetails,
+                movieMapper::toMovieResponse, out);
     }
 
     @Transactional(readOnly = true)
@@ -137,61 +157,84 @@ public class MovieService {
                 .orElseThrow(() -> new AppException(ErrorCodes.MOVIE_NOT_EXISTED));
 
         movieRepository.delete(movie);
+        searchOutboxService.movieDeleted(movieId);
     }
 
     @Transactional(readOnly = true)
-    public PageResponse<MovieResponse> searchMovies(String query, Pageable pageable) {
-        Page<Movie> moviePage = movieRepository.search(query, pageable);
-
-        if (moviePage == null || moviePage.isEmpty()) {
+    public CursorPageResponse<MovieResponse> searchMovies(String query, String cursor, Integer size, boolean withTotal) {
+        int pageSize = cursorUtils.pageSize(size);
+        CursorUtils.SeekKey key = cursorUtils.decodeSeekKey(cursor);
+        List<KeysetRow> rows = key.backward()
+                ? movieRepository.searchKeysBefore(query, key.createdAt(), key.id(), cursorUtils.seekLimit(pageSize))
+                : movieRepository.searchKeysAfter(query, key.createdAt(), key.id(), cursorUtils.seekLimit(pageSize));
+
+        if (rows.isEmpty() && key.isFirstPage()) {
             throw new AppException(ErrorCodes.MOVIES_NOT_FOUND_BY_QUERY);
         }
-        return PageResponse.<MovieResponse>builder()
-                .currentPage(moviePage.getNumber())
-                .totalPages(moviePage.getTotalPages())
-                .pageSize(moviePage.getSize())
-                .totalElements(moviePage.getTotalElements())
-                .data(moviePage.getContent().stream()
-                        .map(movieMapper::toMovieResponse)
-                        .toList())
-                .build();
+
+        CursorPageResponse<MovieResponse> page = toMoviePage(rows, pageSize, key);
+        if (withTotal) {
+            page.setTotalElements(movieRepository.countSearch(query));
+        }
+        return page;
     }
 
     @Transactional(readOnly = true)
-    public PageResponse<MovieResponse> getMoviesByGenre(String genreId, Pageable pageable) {
-        Page<Movie> moviePage = movieRepository.findByGenreId(genreId, pageable);
-
-        if (moviePage.isEmpty()) {
+    public CursorPageResponse<MovieResponse> getMoviesByGenre(String genreId, String cursor, Integer size, boolean withTotal) {
+        int pageSize = cursorUtils.pageSize(size);
+        CursorUtils.SeekKey key = cursorUtils.decodeSeekKey(cursor);
+        List<KeysetRow> rows = key.backward()
+                ? movieRepository.findKeysByGenreIdBefore(genreId, key.createdAt(), key.id(), cursorUtils.seekLimit(pageSize))
+                : movieRepository.findKeysByGenreIdAfter(genreId, key.createdAt(), key.id(), cursorUtils.seekLimit(pageSize));
+
+        if (rows.isEmpty() && key.isFirstPage()) {
             throw new AppException(ErrorCodes.MOVIES_NOT_FOUND_BY_GENRE);
         }
 
-        return PageResponse.<MovieResponse>builder()
-                .currentPage(moviePage.getNumber())
-                .totalPages(moviePage.getTotalPages())
-                .pageSize(moviePage.getSize())
-                .totalElements(moviePage.getTotalElements())
-                .data(moviePage.getContent().stream()
-                        .map(movieMapper::toMovieResponse)
-                        .toList())
-                .build();
+        CursorPageResponse<MovieResponse> page = toMoviePage(rows, pageSize, key);
+        if (withTotal) {
+            page.setTotalElements(movieRepository.countByGenreId(genreId));
+        }
+        return page;
     }
 
     @Transactional(readOnly = true)
     public List<MovieResponse> getTopRatedMovies() {
-        return movieRepository.findTop10ByOrderByAverageRatingDesc()
-                .stream()
-                .map(movieMapper::toMovieResponse)
-                .toList();
+        return toMovieResponses(movieRepository.findTopRatedIds(PageRequest.ofSize(HOME_LIST_SIZE)));
     }
 
     @Transactional(readOnly = true)
     public List<MovieResponse> getLatestMovies() {
-        return movieRepository.findTop10ByOrderByCreatedAtDesc()
-                .stream()
+        return toMovieResponses(movieRepository.findLatestIds(PageRequest.ofSize(HOME_LIST_SIZE)));
+    }
+
+    private CursorPageResponse<MovieResponse> toMoviePage(List<KeysetRow> rows, int pageSize, CursorUtils.SeekKey key) {
+        return cursorUtils.toSeekPage(rows, pageSize, key, KeysetRow::getCreatedAt, KeysetRow::getId,
+                page -> toMovieResponses(page.stream().map(KeysetRow::getId).toList()));
+    }
+
+    private List<MovieResponse> toMovieResponses(List<String> ids) {
+        return movieRepository.findPageWithDetails(ids).stream()
                 .map(movieMapper::toMovieResponse)
                 .toList();
     }
 
+    /**
+     * The listeners look the movie up, so the events must not be seen before it is committed.
+     */
+    private void publishAfterCommit(String movieId, List<Object> uploads) {
+        if (uploads.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                uploads.forEach(event -> kafkaTemplate.send(event instanceof VideoUploadEvent
+                        ? PredefinedTopic.VIDEO_UPLOAD : PredefinedTopic.IMAGE_UPLOAD, movieId, event));
+            }
+        });
+    }
+
     private void uploadMovieVideoIfPresent(String movieId, MultipartFile videoFile) {
         if (videoFile != null && !videoFile.isEmpty()) {
             VideoRequest videoRequest = new VideoRequest();
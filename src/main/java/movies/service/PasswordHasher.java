@@ -0,0 +1,119 @@
+package movies.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.config.PasswordHashingProperties;
+import movies.exception.AppException;
+import movies.exception.ErrorCodes;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt on a small pool sized to the cores instead of on the request threads. A login storm then queues here
+ * while catalog requests keep their threads and CPU, and once the queue is full callers get
+ * {@link ErrorCodes#TOO_MANY_REQUESTS} instead of piling up.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PasswordHasher {
+    static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+    static final String METRIC_PREFIX = "auth.password";
+
+    PasswordEncoder passwordEncoder;
+    PasswordHashingProperties passwordHashingProperties;
+    MeterRegistry meterRegistry;
+
+    @NonFinal
+    ThreadPoolExecutor workers;
+
+    @NonFinal
+    Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        int concurrency = Math.max(1, passwordHashingProperties.getConcurrency());
+        workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, passwordHashingProperties.getQueueCapacity())),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, workers, "password-hash", List.of());
+        rejectedCounter = Counter.builder(METRIC_PREFIX + ".rejected")
+                .description("Password hashes turned away because the hashing pool was full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Whether {@code encodedPassword} was hashed with a cost other than the configured one, up or down.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != passwordHashingProperties.getStrength();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = workers.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new AppException(ErrorCodes.TOO_MANY_REQUESTS);
+        }
+
+        try {
+            return future.get(passwordHashingProperties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new AppException(ErrorCodes.TOO_MANY_REQUESTS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCodes.UNCATEGORIZED_EXCEPTION);
+        } catch (ExecutionException e) {
+            log.error("Password hashing failed", e.getCause());
+            throw new AppException(ErrorCodes.UNCATEGORIZED_EXCEPTION);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package movies.service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import movies.repository.MovieRepository;
+import movies.repository.SeriesRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keeps the per-title rating aggregate (count, sum, star histogram and average) stored on the movie and series rows,
+ * so listings and search sort by rating without aggregating the review table per request.
+ * <p>
+ * There is no review write path yet, so the aggregates are only rebuilt from the review table by
+ * {@link #recomputeAll()}, on a nightly schedule.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RatingService {
+    static final int RECOMPUTE_BATCH_SIZE = 500;
+
+    MovieRepository movieRepository;
+    SeriesRepository seriesRepository;
+
+    @Scheduled(cron = "${spring.ratings.recompute-cron:0 30 3 * * *}")
+    public void recomputeAll() {
+        int movies = recompute(movieRepository::findIdsAfter, movieRepository::recomputeRatings);
+        int series = recompute(seriesRepository::findIdsAfter, seriesRepository::recomputeRatings);
+        log.info("Recomputed rating aggregates for {} movie(s) and {} series", movies, series);
+    }
+
+    /**
+     * Walks the ids in keyset order and recomputes one batch per transaction, so the repair job never holds locks on
+     * the whole table.
+     */
+    private int recompute(BiFunction<String, Pageable, List<String>> findIdsAfter,
+                          Function<Collection<String>, Integer> recomputeRatings) {
+        Pageable batch = PageRequest.ofSize(RECOMPUTE_BATCH_SIZE);
+        String after = "";
+        int total = 0;
+
+        List<String> ids = findIdsAfter.apply(after, batch);
+        while (!ids.isEmpty()) {
+            total += recomputeRatings.apply(ids);
+            after = ids.get(ids.size() - 1);
+            ids = findIdsAfter.apply(after, batch);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,363 @@
+package movies.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedSearch;
+import movies.document.MovieDocument;
+import movies.document.SeriesDocument;
+import movies.entity.SearchOutbox;
+import movies.entity.Series;
+import movies.mapper.MovieDocumentMapper;
+import movies.mapper.SeriesDocumentMapper;
+import movies.repository.MovieRepository;
+import movies.repository.SearchOutboxRepository;
+import movies.repository.SeriesRepository;
+import movies.service.search.SearchEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Applies the {@link SearchOutbox} to the active {@link SearchEngine}.
+ * <p>
+ * Each pass claims a batch of due rows, keeps only the latest operation per title (ten edits to one movie become one
+ * document write) and sends the survivors as one bulk request per type. A failed batch stays in the outbox and is
+ * retried with exponential back-off. {@link #reindex()} rebuilds the index from the catalog in keyset chunks behind the
+ * engine's swap, so searches keep hitting the old index until the new one is complete.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SearchIndexer {
+    static final String METRIC_PREFIX = "search.indexer";
+    static final int REINDEX_BATCH_SIZE = 200;
+
+    SearchOutboxRepository searchOutboxRepository;
+    SearchEngine searchEngine;
+    SearchOutboxService searchOutboxService;
+    MovieRepository movieRepository;
+    SeriesRepository seriesRepository;
+    MovieDocumentMapper movieDocumentMapper;
+    SeriesDocumentMapper seriesDocumentMapper;
+    TransactionTemplate transactionTemplate;
+    MeterRegistry meterRegistry;
+
+    @NonFinal
+    @Value("${spring.search.indexer.batch-size:500}")
+    int batchSize;
+
+    @NonFinal
+    @Value("${spring.search.indexer.max-backoff:10m}")
+    Duration maxBackoff;
+
+    @NonFinal
+    Counter indexedCounter;
+
+    @NonFinal
+    Counter failureCounter;
+
+    // Titles applied while a rebuild is loading, id -> aggregate type; null when no rebuild runs
+    @NonFinal
+    volatile Map<String, String> touchedDuringReindex;
+
+    AtomicLong lagSeconds = new AtomicLong();
+    AtomicLong pending = new AtomicLong();
+    AtomicBoolean reindexing = new AtomicBoolean();
+    ExecutorService reindexExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("search-reindex-"));
+
+    @PostConstruct
+    public void init() {
+        indexedCounter = Counter.builder(METRIC_PREFIX + ".documents")
+                .description("Documents written to or removed from the search index")
+                .register(meterRegistry);
+        failureCounter = Counter.builder(METRIC_PREFIX + ".failures")
+                .description("Outbox batches that failed and were scheduled for retry")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".lag", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest catalog change not yet applied to the search index")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".pending", pending, AtomicLong::get)
+                .description("Catalog changes waiting in the search outbox")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reindexExecutor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${spring.search.indexer.interval:2s}")
+    public void drain() {
+        Integer drained;
+        do {
+            List<Long> claimed = new ArrayList<>();
+            try {
+                drained = transactionTemplate.execute(status -> drainBatch(claimed));
+            } catch (RuntimeException e) {
+                // The batch transaction has rolled back and released its row locks; the back-off is written in a
+                // transaction of its own, since the failed one may be rollback-only
+                recordFailure(claimed, e);
+                drained = 0;
+            }
+        } while (drained != null && drained == batchSize);
+
+        searchOutboxRepository.findFirstByOrderByIdAsc().ifPresentOrElse(
+                oldest -> lagSeconds.set(Math.max(0, Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toSeconds())),
+                () -> lagSeconds.set(0));
+        pending.set(searchOutboxRepository.count());
+    }
+
+    /**
+     * Starts a full rebuild in the background; returns false if one is already running.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    public boolean reindex() {
+        return startReindex();
+    }
+
+    private boolean startReindex() {
+        if (!reindexing.compareAndSet(false, true)) {
+            return false;
+        }
+        reindexExecutor.execute(() -> {
+            try {
+                reindexAll();
+            } catch (RuntimeException e) {
+                log.error("Search reindex failed", e);
+            } finally {
+                reindexing.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Rebuilds at startup when the engine has no usable index yet: the in-process index always starts empty, and
+     * Elasticsearch may still be on the pre-alias layout.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            if (searchEngine.needsRebuild()) {
+                startReindex();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not check the search index at startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claims one batch of due rows and applies it, returning the number of rows claimed. Their ids are added to
+     * {@code claimed} before anything is applied, so a failure can be recorded after this transaction rolls back.
+     */
+    private int drainBatch(List<Long> claimed) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SearchOutbox> rows = searchOutboxRepository.lockDue(now, PageRequest.ofSize(batchSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        rows.forEach(row -> claimed.add(row.getId()));
+
+        // Rows are in id order, so the last operation seen for a title is the one that counts
+        Map<String, String> movies = new LinkedHashMap<>();
+        Map<String, String> series = new LinkedHashMap<>();
+        for (SearchOutbox row : rows) {
+            Map<String, String> target = PredefinedSearch.AGGREGATE_SERIES.equals(row.getAggregateType()) ? series : movies;
+            target.put(row.getAggregateId(), row.getOperation());
+        }
+
+        applyMovies(movies);
+        applySeries(series);
+        searchOutboxRepository.deleteAllInBatch(rows);
+        Map<String, String> touched = touchedDuringReindex;
+        if (touched != null) {
+            movies.keySet().forEach(id -> touched.put(id, PredefinedSearch.AGGREGATE_MOVIE));
+            series.keySet().forEach(id -> touched.put(id, PredefinedSearch.AGGREGATE_SERIES));
+        }
+        indexedCounter.increment(movies.size() + series.size());
+        return rows.size();
+    }
+
+    private void recordFailure(List<Long> claimed, RuntimeException e) {
+        failureCounter.increment();
+        if (claimed.isEmpty()) {
+            log.warn("Failed to claim search outbox rows, will retry: {}", e.getMessage());
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<SearchOutbox> rows = searchOutboxRepository.findAllById(claimed);
+                for (SearchOutbox row : rows) {
+                    row.setAttempts(row.getAttempts() + 1);
+                    row.setNextAttemptAt(now.plus(backoff(row.getAttempts())));
+                }
+                searchOutboxRepository.saveAll(rows);
+            });
+        } catch (RuntimeException bookkeeping) {
+            log.warn("Could not record the back-off of {} search outbox row(s): {}",
+                    claimed.size(), bookkeeping.getMessage());
+        }
+        log.warn("Failed to apply {} search outbox row(s), will retry: {}", claimed.size(), e.getMessage());
+    }
+
+    private void applyMovies(Map<String, String> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        List<MovieDocument> documents = loadMovies(idsWith(operations, PredefinedSearch.OPERATION_UPSERT));
+        // An upsert whose movie is gone by now is a delete
+        Set<String> deleted = new HashSet<>(operations.keySet());
+        documents.forEach(document -> deleted.remove(document.getId()));
+
+        if (!documents.isEmpty()) {
+            searchEngine.indexAll(documents);
+        }
+        if (!deleted.isEmpty()) {
+            searchEngine.deleteAll(deleted);
+        }
+    }
+
+    private void applySeries(Map<String, String> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        List<SeriesDocument> documents = loadSeries(idsWith(operations, PredefinedSearch.OPERATION_UPSERT));
+        Set<String> deleted = new HashSet<>(operations.keySet());
+        documents.forEach(document -> deleted.remove(document.getId()));
+
+        if (!documents.isEmpty()) {
+            searchEngine.indexAllSeries(documents);
+        }
+        if (!deleted.isEmpty()) {
+            searchEngine.deleteAllSeries(deleted);
+        }
+    }
+
+    private List<MovieDocument> loadMovies(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return movieRepository.findWithDetailsByIdIn(ids).stream().map(movieDocumentMapper::toMovieDocument).toList();
+    }
+
+    private List<SeriesDocument> loadSeries(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Series> series = seriesRepository.findWithDetailsByIdIn(ids);
+        seriesRepository.fetchSeasonsByIdIn(ids);
+        return series.stream().map(seriesDocumentMapper::toSeriesDocument).toList();
+    }
+
+    private List<String> idsWith(Map<String, String> operations, String operation) {
+        List<String> ids = new ArrayList<>();
+        operations.forEach((id, op) -> {
+            if (op.equals(operation)) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = Duration.ofSeconds(1L << Math.min(attempts, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void reindexAll() {
+        long start = System.nanoTime();
+        int[] counts = new int[2];
+        touchedDuringReindex = new ConcurrentHashMap<>();
+        try {
+            searchEngine.rebuild(writer -> {
+                counts[0] = reindexChunks(movieRepository::findIdsAfter, ids -> writer.movies(loadMovies(ids)));
+                counts[1] = reindexChunks(seriesRepository::findIdsAfter, ids -> writer.series(loadSeries(ids)));
+            });
+        } finally {
+            requeue(touchedDuringReindex);
+            touchedDuringReindex = null;
+        }
+        log.info("Reindexed {} movie(s) and {} series in {} ms", counts[0], counts[1], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * A change applied while the rebuild was loading may have been overwritten by an older copy the loader read
+     * earlier, so every title touched meanwhile goes through the outbox once more.
+     */
+    private void requeue(Map<String, String> touched) {
+        if (touched.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> touched.forEach((id, type) -> {
+            if (PredefinedSearch.AGGREGATE_SERIES.equals(type)) {
+                searchOutboxService.seriesChanged(id);
+            } else {
+                searchOutboxService.movieChanged(id);
+            }
+        }));
+    }
+
+    /**
+     * Walks the ids in keyset order, loading and indexing one chunk per read-only transaction, so the rebuild never
+     * holds more than a chunk of entities in memory.
+     */
+    private int reindexChunks(BiFunction<String, Pageable, List<String>> findIdsAfter, Consumer<List<String>> indexChunk) {
+        Pageable chunk = PageRequest.ofSize(REINDEX_BATCH_SIZE);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        int total = 0;
+        String after = "";
+        while (true) {
+            String cursor = after;
+            List<String> ids = readOnly.execute(status -> {
+                List<String> page = findIdsAfter.apply(cursor, chunk);
+                if (!page.isEmpty()) {
+                    indexChunk.accept(page);
+                }
+                return page;
+            });
+            if (ids == null || ids.isEmpty()) {
+                return total;
+            }
+            total += ids.size();
+            after = ids.get(ids.size() - 1);
+        }
+    }
+}
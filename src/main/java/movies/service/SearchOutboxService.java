@@ -0,0 +1,66 @@
+package movies.service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import movies.constant.PredefinedSearch;
+import movies.entity.SearchOutbox;
+import movies.repository.SearchOutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records catalog changes that the search index has to follow. Each call joins the caller's transaction, so the
+ * outbox row commits or rolls back together with the change and the admin write never waits on the search backend;
+ * {@link SearchIndexer} applies the rows afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Transactional(propagation = Propagation.MANDATORY)
+public class SearchOutboxService {
+    SearchOutboxRepository searchOutboxRepository;
+
+    public void movieChanged(String movieId) {
+        record(PredefinedSearch.AGGREGATE_MOVIE, movieId, PredefinedSearch.OPERATION_UPSERT);
+    }
+
+    public void movieDeleted(String movieId) {
+        record(PredefinedSearch.AGGREGATE_MOVIE, movieId, PredefinedSearch.OPERATION_DELETE);
+    }
+
+    public void seriesChanged(String seriesId) {
+        record(PredefinedSearch.AGGREGATE_SERIES, seriesId, PredefinedSearch.OPERATION_UPSERT);
+    }
+
+    public void seriesDeleted(String seriesId) {
+        record(PredefinedSearch.AGGREGATE_SERIES, seriesId, PredefinedSearch.OPERATION_DELETE);
+    }
+
+    /**
+     * Season titles are part of the series document, so a season change re-indexes its series.
+     */
+    public void seasonChanged(String seriesId) {
+        seriesChanged(seriesId);
+    }
+
+    public void genreChanged(String genreId) {
+        LocalDateTime now = LocalDateTime.now();
+        searchOutboxRepository.enqueueMoviesOfGenre(genreId, now);
+        searchOutboxRepository.enqueueSeriesOfGenre(genreId, now);
+    }
+
+    private void record(String aggregateType, String aggregateId, String operation) {
+        LocalDateTime now = LocalDateTime.now();
+        searchOutboxRepository.save(SearchOutbox.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .operation(operation)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+}
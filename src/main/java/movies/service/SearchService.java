@@ -0,0 +1,61 @@
+package movies.service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import movies.dto.request.search.SearchRequest;
+import movies.dto.response.search.SearchResponse;
+import movies.dto.response.search.SuggestionResponse;
+import movies.dto.response.search.UnifiedSearchResponse;
+import movies.service.search.SearchEngine;
+import movies.service.search.TitleSuggester;
+import movies.utils.CursorUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Front door of the search subsystem: validates and times requests against whichever {@link SearchEngine} is active.
+ * The index itself is kept in step with the catalog by {@link SearchIndexer}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SearchService {
+    SearchEngine searchEngine;
+    TitleSuggester titleSuggester;
+
+    public SearchResponse search(SearchRequest request) {
+        clamp(request);
+
+        long start = System.nanoTime();
+        SearchResponse response = searchEngine.search(request);
+        response.setTookMs((System.nanoTime() - start) / 1_000_000);
+
+        log.debug("Search '{}' returned {} hit(s) in {} ms", request.getQuery(), response.getTotalElements(), response.getTookMs());
+        return response;
+    }
+
+    public UnifiedSearchResponse searchAll(SearchRequest request) {
+        clamp(request);
+
+        long start = System.nanoTime();
+        UnifiedSearchResponse response = searchEngine.searchAll(request);
+        response.setTookMs((System.nanoTime() - start) / 1_000_000);
+
+        log.debug("Unified search '{}' returned {} movie(s) and {} series in {} ms", request.getQuery(),
+                response.getMovies().getTotalElements(), response.getSeries().getTotalElements(), response.getTookMs());
+        return response;
+    }
+
+    public List<SuggestionResponse> suggest(String query, int limit) {
+        return titleSuggester.suggest(query, limit);
+    }
+
+    private void clamp(SearchRequest request) {
+        request.setPage(Math.max(0, request.getPage()));
+        request.setSize(Math.max(1, Math.min(CursorUtils.MAX_PAGE_SIZE, request.getSize())));
+    }
+}
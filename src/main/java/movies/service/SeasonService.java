@@ -6,6 +6,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import movies.dto.request.season.SeasonCreationRequest;
 import movies.dto.request.season.SeasonUpdateRequest;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.season.SeasonResponse;
 import movies.entity.Season;
 import movies.entity.Series;
@@ -14,10 +15,14 @@ import movies.exception.ErrorCodes;
 import movies.mapper.SeasonMapper;
 import movies.repository.SeasonRepository;
 import movies.repository.SeriesRepository;
+import movies.utils.CursorUtils;
+import movies.utils.NdjsonWriter;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,7 +33,10 @@ import java.util.stream.Collectors;
 public class SeasonService {
     SeasonRepository seasonRepository;
     SeasonMapper seasonMapper;
+    CursorUtils cursorUtils;
+    NdjsonWriter ndjsonWriter;
     SeriesRepository seriesRepository;
+    SearchOutboxService searchOutboxService;
 
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
@@ -44,6 +52,7 @@ public class SeasonService {
         season.setSeries(series);
 
         Season savedSeason = seasonRepository.save(season);
+        searchOutboxService.seasonChanged(series.getId());
 
         return seasonMapper.toSeasonResponse(savedSeason);
     }
@@ -57,17 +66,24 @@ public class SeasonService {
         seasonMapper.updateSeason(request, season);
 
         Season updatedSeason = seasonRepository.save(season);
+        searchOutboxService.seasonChanged(season.getSeries().getId());
 
         return seasonMapper.toSeasonResponse(updatedSeason);
 
     }
 
     @Transactional(readOnly = true)
-    public List<SeasonResponse> getAllSeason() {
-        return seasonRepository.findAll()
-                .stream()
-                .map(seasonMapper::toSeasonResponse)
-                .toList();
+    public CursorPageResponse<SeasonResponse> getAllSeason(String cursor, Integer size) {
+        int pageSize = cursorUtils.pageSize(size);
+        List<String> ids = seasonRepository.findIdsAfter(cursorUtils.decode(cursor), cursorUtils.seekLimit(pageSize));
+        return cursorUtils.toPage(ids, pageSize, id -> id,
+                page -> seasonRepository.findPageWithDetails(page).stream().map(seasonMapper::toSeasonResponse).toList());
+    }
+
+    @Transactional(readOnly = true)
+    public void exportSeasons(OutputStream out) throws IOException {
+        ndjsonWriter.writeInChunks(seasonRepository.streamIds(), seasonRepository::findPageWithDetails,
+                seasonMapper::toSeasonResponse, out);
     }
 
     @Transactional(readOnly = true)
@@ -79,10 +95,11 @@ public class SeasonService {
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
     public void deleteSeason(String seasonId) {
-        if (!seasonRepository.existsById(seasonId)) {
-            throw new AppException(ErrorCodes.SEASON_NOT_EXISTED);
-        }
-        seasonRepository.deleteById(seasonId);
+        Season season = seasonRepository.findById(seasonId)
+                .orElseThrow(() -> new AppException(ErrorCodes.SEASON_NOT_EXISTED));
+
+        seasonRepository.delete(season);
+        searchOutboxService.seasonChanged(season.getSeries().getId());
     }
 
     @Transactional(readOnly = true)
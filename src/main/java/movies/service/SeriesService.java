@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import movies.dto.request.series.SeriesRequest;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.response.PageResponse;
 import movies.dto.response.series.SeriesResponse;
 import movies.entity.Genre;
@@ -13,12 +14,16 @@ import movies.exception.AppException;
 import movies.exception.ErrorCodes;
 import movies.mapper.SeriesMapper;
 import movies.repository.SeriesRepository;
+import movies.utils.CursorUtils;
+import movies.utils.NdjsonWriter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Set;
 
@@ -30,7 +35,10 @@ import java.util.Set;
 public class SeriesService {
     SeriesRepository seriesRepository;
     SeriesMapper seriesMapper;
+    CursorUtils cursorUtils;
+    NdjsonWriter ndjsonWriter;
     GenreService genreService;
+    SearchOutboxService searchOutboxService;
 
 
     @Transactional
@@ -48,6 +56,7 @@ public class SeriesService {
         }
 
         Series savesSeries = seriesRepository.save(series);
+        searchOutboxService.seriesChanged(savesSeries.getId());
 
         return seriesMapper.toSeriesResponse(savesSeries);
     }
@@ -72,16 +81,23 @@ public class SeriesService {
 
 
         Series savesSeries = seriesRepository.save(series);
+        searchOutboxService.seriesChanged(savesSeries.getId());
 
         return seriesMapper.toSeriesResponse(savesSeries);
     }
 
     @Transactional(readOnly = true)
-    public List<SeriesResponse> getAllSeries() {
-        return seriesRepository.findAll()
-                .stream()
-                .map(seriesMapper::toSeriesResponse)
-                .toList();
+    public CursorPageResponse<SeriesResponse> getAllSeries(String cursor, Integer size) {
+        int pageSize = cursorUtils.pageSize(size);
+        List<String> ids = seriesRepository.findIdsAfter(cursorUtils.decode(cursor), cursorUtils.seekLimit(pageSize));
+        return cursorUtils.toPage(ids, pageSize, id -> id,
+                page -> seriesRepository.findPageWithDetails(page).stream().map(seriesMapper::toSeriesResponse).toList());
+    }
+
+    @Transactional(readOnly = true)
+    public void exportSeries(OutputStream out) throws IOException {
+        ndjsonWriter.writeInChunks(seriesRepository.streamIds(), seriesRepository::findPageWithDetails,
+                seriesMapper::toSeriesResponse, out);
     }
 
     @Transactional(readOnly = true)
@@ -97,6 +113,7 @@ public class SeriesService {
             throw new AppException(ErrorCodes.SERIES_NOT_EXISTED);
         }
         seriesRepository.deleteById(seriesId);
+        searchOutboxService.seriesDeleted(seriesId);
     }
 
     @Transactional(readOnly = true)
@@ -118,22 +135,24 @@ public class SeriesService {
     }
 
     @Transactional(readOnly = true)
-    public PageResponse<SeriesResponse> getSeriesByGenre(String genreId, Pageable pageable) {
-        Page<Series> seriesPage = seriesRepository.findByGenreId(genreId, pageable);
-
-        if (seriesPage.isEmpty()) {
+    public CursorPageResponse<SeriesResponse> getSeriesByGenre(String genreId, String cursor, Integer size, boolean withTotal) {
+        int pageSize = cursorUtils.pageSize(size);
+        CursorUtils.SeekKey key = cursorUtils.decodeSeekKey(cursor);
+        List<Series> rows = key.backward()
+                ? seriesRepository.findByGenreIdBefore(genreId, key.createdAt(), key.id(), cursorUtils.seekLimit(pageSize))
+                : seriesRepository.findByGenreIdAfter(genreId, key.createdAt(), key.id(), cursorUtils.seekLimit(pageSize));
+
+        if (rows.isEmpty() && key.isFirstPage()) {
             throw new AppException(ErrorCodes.SERIES_NOT_FOUND_BY_GENRE);
         }
 
-        return PageResponse.<SeriesResponse>builder()
-                .currentPage(seriesPage.getNumber())
-                .totalPages(seriesPage.getTotalPages())
-                .pageSize(seriesPage.getSize())
-                .totalElements(seriesPage.getTotalElements())
-                .data(seriesPage.getContent().stream()
-                        .map(seriesMapper::toSeriesResponse)
-                        .toList())
-                .build();
+        CursorPageResponse<SeriesResponse> page = cursorUtils.toSeekPage(rows, pageSize, key,
+                Series::getCreatedAt, Series::getId,
+                seriesPage -> seriesPage.stream().map(seriesMapper::toSeriesResponse).toList());
+        if (withTotal) {
+            page.setTotalElements(seriesRepository.countByGenreId(genreId));
+        }
+        return page;
     }
 
 
@@ -0,0 +1,112 @@
+package movies.service;
+
+import event.dto.TokenRevokedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedTopic;
+import movies.entity.InvalidatedToken;
+import movies.repository.InvalidatedTokenRepository;
+import movies.utils.BloomFilter;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers "has this token been revoked?" from memory, so authenticating a request costs no database round trip.
+ * <p>
+ * Almost every token checked has not been revoked, so the exact set sits behind a Bloom filter that rules those out
+ * without a map lookup. Revocations are saved to the {@code invalidated_token} table, which stays the source of truth,
+ * and broadcast on {@code token-revocations} so every instance applies them at once; the periodic sync only catches up on
+ * messages an instance missed. Entries are dropped once the token has expired, since an expired token is rejected
+ * anyway; expired rows are removed from the table by {@link InvalidatedTokenReaper}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TokenRevocationService {
+    static final int MIN_FILTER_CAPACITY = 1024;
+    static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+    InvalidatedTokenRepository invalidatedTokenRepository;
+    KafkaTemplate<String, Object> kafkaTemplate;
+
+    // JWT id -> expiry in epoch millis
+    Map<String, Long> revoked = new ConcurrentHashMap<>();
+    Object lock = new Object();
+
+    // Holds every key of revoked; replaced (under lock) when expired entries are dropped or it fills up
+    @NonFinal
+    volatile BloomFilter filter = new BloomFilter(MIN_FILTER_CAPACITY, FILTER_FALSE_POSITIVE_RATE);
+    @NonFinal
+    int filterCapacity = MIN_FILTER_CAPACITY;
+
+    public int size() {
+        return revoked.size();
+    }
+
+    public boolean isRevoked(String jwtId) {
+        return jwtId != null && filter.mightContain(jwtId) && revoked.containsKey(jwtId);
+    }
+
+    public void revoke(String jwtId, Date expiryTime) {
+        invalidatedTokenRepository.save(InvalidatedToken.builder().id(jwtId).expiryTime(expiryTime).build());
+        remember(jwtId, expiryTime.getTime());
+        kafkaTemplate.send(PredefinedTopic.TOKEN_REVOCATIONS, jwtId, TokenRevokedEvent.builder()
+                .jwtId(jwtId)
+                .expiresAt(expiryTime.getTime())
+                .build());
+    }
+
+    /**
+     * Applies a revocation made elsewhere (already persisted), without writing it again.
+     */
+    public void remember(String jwtId, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        synchronized (lock) {
+            revoked.put(jwtId, expiresAt);
+            if (revoked.size() > filterCapacity) {
+                rebuildFilter();
+            } else {
+                filter.put(jwtId);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${spring.jwt.revocation-sync:5m}", initialDelayString = "${spring.jwt.revocation-sync:5m}")
+    public void sync() {
+        Date now = new Date();
+        synchronized (lock) {
+            for (InvalidatedToken token : invalidatedTokenRepository.findByExpiryTimeAfter(now)) {
+                revoked.put(token.getId(), token.getExpiryTime().getTime());
+            }
+            revoked.values().removeIf(expiry -> expiry <= now.getTime());
+            rebuildFilter();
+        }
+        log.debug("Revocation set holds {} unexpired token(s)", revoked.size());
+    }
+
+    // Caller holds lock; writes to the new filter before publishing it, so no revoked id is ever missed
+    private void rebuildFilter() {
+        int capacity = Math.max(MIN_FILTER_CAPACITY, revoked.size() * 2);
+        BloomFilter rebuilt = new BloomFilter(capacity, FILTER_FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        filterCapacity = capacity;
+    }
+}
@@ -0,0 +1,545 @@
+package movies.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.config.TranscodeProperties;
+import movies.constant.PredefinedVideos;
+import movies.entity.Video;
+import movies.repository.VideoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs ffmpeg HLS transcodes off the request thread.
+ * <p>
+ * The {@code video} table is the durable queue: a job is a {@link Video} in status QUEUED. Jobs are pushed to a
+ * bounded worker pool right after the upload commits, and a scheduled dispatcher picks up whatever did not fit in
+ * the pool or is due for a retry.
+ * <p>
+ * A claimed job carries a lease: the node running it is recorded on the row and renews the lease on a heartbeat. A
+ * job left PROCESSING by a node that died stops being renewed and is re-queued once the lease expires, so starting
+ * or restarting one node never touches jobs other nodes are still running.
+ * <p>
+ * The heartbeat and the dispatcher run on a scheduler of their own rather than the application's shared
+ * {@code @Scheduled} pool: a slow unrelated job there must never delay a lease renewal past the lease, or this node
+ * would re-queue and then kill its own running transcodes.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TranscodeService {
+    static final int PROGRESS_STEP = 5;
+    static final int MAX_ERROR_LENGTH = 255;
+    static final String MASTER_PLAYLIST = "master.m3u8";
+    static final String MEDIA_PLAYLIST = "index.m3u8";
+
+    VideoRepository videoRepository;
+    TranscodeProperties transcodeProperties;
+
+    @NonFinal
+    @Value("${spring.file.video.hsl}")
+    String hlsDir;
+
+    @NonFinal
+    ThreadPoolExecutor workers;
+
+    @NonFinal
+    ScheduledExecutorService leaseScheduler;
+
+    Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // Jobs this node holds a lease on
+    Set<String> leased = ConcurrentHashMap.newKeySet();
+    Map<String, Process> running = new ConcurrentHashMap<>();
+    String nodeId = nodeId();
+
+    @PostConstruct
+    public void init() {
+        int concurrency = Math.max(1, transcodeProperties.getConcurrency());
+        workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, transcodeProperties.getQueueCapacity())),
+                new CustomizableThreadFactory("transcode-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Transcode worker pool started with {} worker(s)", concurrency);
+
+        // One thread each, so a slow dispatch query never holds up a heartbeat
+        leaseScheduler = Executors.newScheduledThreadPool(2, new CustomizableThreadFactory("transcode-lease-"));
+        long heartbeatMillis = transcodeProperties.getHeartbeatInterval().toMillis();
+        leaseScheduler.scheduleWithFixedDelay(() -> runQuietly("heartbeat", this::heartbeat),
+                heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        long dispatchMillis = transcodeProperties.getDispatchInterval().toMillis();
+        leaseScheduler.scheduleWithFixedDelay(() -> runQuietly("dispatch", this::dispatchPending),
+                dispatchMillis, dispatchMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseScheduler.shutdownNow();
+        workers.shutdownNow();
+        running.values().forEach(Process::destroy);
+    }
+
+    /**
+     * Queues a transcode for a video that is already persisted in status QUEUED. When called inside a transaction
+     * the job is submitted after commit so the worker never reads an uncommitted row.
+     */
+    public void enqueue(String videoId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(videoId);
+                }
+            });
+        } else {
+            submit(videoId);
+        }
+    }
+
+    public void dispatchPending() {
+        int reclaimed = videoRepository.reclaimExpired(
+                PredefinedVideos.STATUS_PROCESSING, PredefinedVideos.STATUS_QUEUED, LocalDateTime.now());
+        if (reclaimed > 0) {
+            log.info("Re-queued {} transcode job(s) whose lease expired", reclaimed);
+        }
+
+        videoRepository.findTop20ByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                        PredefinedVideos.STATUS_QUEUED, LocalDateTime.now())
+                .forEach(video -> submit(video.getId()));
+    }
+
+    /**
+     * Renews the lease of every job running here. A job whose lease was lost (this node stalled past the lease and
+     * another node re-queued it) is stopped, so two ffmpeg processes never write the same output directory.
+     */
+    public void heartbeat() {
+        LocalDateTime until = LocalDateTime.now().plus(transcodeProperties.getLeaseDuration());
+        for (String videoId : leased) {
+            if (videoRepository.renewLease(videoId, PredefinedVideos.STATUS_PROCESSING, nodeId, until) == 0) {
+                leased.remove(videoId);
+                Process process = running.get(videoId);
+                if (process != null) {
+                    process.destroy();
+                }
+                log.warn("Lost the lease on transcode of video {}, stopping it", videoId);
+            }
+        }
+    }
+
+    // An exception escaping a scheduleWithFixedDelay task would cancel every later run
+    private void runQuietly(String task, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.error("Transcode {} failed, retrying on the next tick", task, e);
+        }
+    }
+
+    private void submit(String videoId) {
+        if (!inFlight.add(videoId)) {
+            return;
+        }
+
+        try {
+            workers.execute(() -> {
+                try {
+                    runJob(videoId);
+                } finally {
+                    inFlight.remove(videoId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(videoId);
+            log.info("Transcode queue is full, video {} stays queued for the next dispatch", videoId);
+        }
+    }
+
+    private void runJob(String videoId) {
+        // Only one worker (on any node) wins the QUEUED -> PROCESSING transition
+        LocalDateTime until = LocalDateTime.now().plus(transcodeProperties.getLeaseDuration());
+        if (videoRepository.claim(videoId, PredefinedVideos.STATUS_QUEUED, PredefinedVideos.STATUS_PROCESSING,
+                nodeId, until) == 0) {
+            return;
+        }
+        leased.add(videoId);
+
+        try {
+            Video video = videoRepository.findById(videoId).orElse(null);
+            if (video == null) {
+                return;
+            }
+
+            try {
+                String hlsPath = transcode(video);
+                if (!stillOwned(videoId)) {
+                    return;
+                }
+
+                video.setHlsPath(hlsPath);
+                video.setStatus(PredefinedVideos.STATUS_READY);
+                video.setProgress(100);
+                video.setLastError(null);
+                releaseLease(video);
+                videoRepository.save(video);
+
+                log.info("Video {} transcoded to {}", videoId, hlsPath);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Transcode of video {} interrupted, it will be re-queued once its lease expires", videoId);
+            } catch (Exception e) {
+                // After a lost lease the row belongs to whichever node re-claimed it
+                if (stillOwned(videoId)) {
+                    handleFailure(video, e);
+                }
+            }
+        } finally {
+            leased.remove(videoId);
+        }
+    }
+
+    private boolean stillOwned(String videoId) {
+        LocalDateTime until = LocalDateTime.now().plus(transcodeProperties.getLeaseDuration());
+        return leased.contains(videoId)
+                && videoRepository.renewLease(videoId, PredefinedVideos.STATUS_PROCESSING, nodeId, until) > 0;
+    }
+
+    private void releaseLease(Video video) {
+        video.setLeaseOwner(null);
+        video.setLeaseExpiresAt(null);
+    }
+
+    private void handleFailure(Video video, Exception e) {
+        int attempts = video.getAttempts() == null ? 1 : video.getAttempts();
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        video.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        releaseLease(video);
+
+        if (attempts >= transcodeProperties.getMaxAttempts()) {
+            video.setStatus(PredefinedVideos.STATUS_FAILED);
+            log.error("Transcode of video {} failed after {} attempt(s), moved to dead letter", video.getId(), attempts, e);
+        } else {
+            long backoffMillis = transcodeProperties.getRetryBackoff().toMillis() * (1L << (attempts - 1));
+            video.setStatus(PredefinedVideos.STATUS_QUEUED);
+            video.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis)));
+            log.warn("Transcode of video {} failed (attempt {}), retrying in {} ms: {}",
+                    video.getId(), attempts, backoffMillis, message);
+        }
+
+        videoRepository.save(video);
+    }
+
+    private String transcode(Video video) throws IOException, InterruptedException {
+        Path sourcePath = Paths.get(video.getFilePath());
+        Path outputPath = Paths.get(hlsDir, video.getId());
+        Files.createDirectories(outputPath);
+
+        SourceInfo source = probe(sourcePath);
+        List<TranscodeProperties.Rendition> ladder = selectLadder(source);
+        for (TranscodeProperties.Rendition rendition : ladder) {
+            Files.createDirectories(outputPath.resolve(rendition.getName()));
+        }
+
+        List<String> command = buildCommand(sourcePath, outputPath, source, ladder);
+        log.info("Chạy lệnh xử lý video: {}", String.join(" ", command));
+
+        Path logFile = outputPath.resolve("ffmpeg.log");
+        Process process = new ProcessBuilder(command)
+                .redirectError(logFile.toFile())
+                .start();
+        running.put(video.getId(), process);
+
+        try (BufferedReader reader = process.inputReader(StandardCharsets.UTF_8)) {
+            int lastSaved = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int progress = parseProgress(line, source.durationSeconds());
+                if (progress >= lastSaved + PROGRESS_STEP) {
+                    videoRepository.updateProgress(video.getId(), progress);
+                    lastSaved = progress;
+                }
+            }
+
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("Xử lý video thất bại, exit code: " + exitCode + " (xem " + logFile + ")");
+            }
+        } finally {
+            running.remove(video.getId());
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+
+        return writeMasterPlaylist(outputPath, source, ladder).toString();
+    }
+
+    /**
+     * Keeps the renditions that do not upscale the source; a source smaller than the whole ladder still gets the
+     * lowest rung.
+     */
+    private List<TranscodeProperties.Rendition> selectLadder(SourceInfo source) {
+        List<TranscodeProperties.Rendition> ladder = transcodeProperties.getRenditions().stream()
+                .sorted(Comparator.comparingInt(TranscodeProperties.Rendition::getHeight))
+                .toList();
+
+        if (ladder.isEmpty()) {
+            throw new IllegalStateException("spring.transcode.renditions must not be empty");
+        }
+
+        if (source.height() <= 0) {
+            return ladder;
+        }
+
+        List<TranscodeProperties.Rendition> fitting = ladder.stream()
+                .filter(rendition -> rendition.getHeight() <= source.height())
+                .toList();
+        return fitting.isEmpty() ? List.of(ladder.get(0)) : fitting;
+    }
+
+    /**
+     * One decode feeding every rung: the video is split once and scaled per rendition inside a single filter graph,
+     * and keyframes are forced on segment boundaries so all variants switch cleanly.
+     */
+    private List<String> buildCommand(Path sourcePath, Path outputPath, SourceInfo source,
+                                      List<TranscodeProperties.Rendition> ladder) {
+        int segmentSeconds = transcodeProperties.getSegmentSeconds();
+        int variants = ladder.size();
+
+        StringBuilder filter = new StringBuilder("[0:v]split=").append(variants);
+        for (int i = 0; i < variants; i++) {
+            filter.append("[v").append(i).append("]");
+        }
+        for (int i = 0; i < variants; i++) {
+            filter.append(";[v").append(i).append("]scale=-2:").append(ladder.get(i).getHeight())
+                    .append("[v").append(i).append("out]");
+        }
+
+        List<String> command = new ArrayList<>(List.of(
+                transcodeProperties.getFfmpegPath(),
+                "-hide_banner", "-y", "-nostats", "-loglevel", "error",
+                "-progress", "pipe:1",
+                "-i", sourcePath.toString(),
+                "-filter_complex", filter.toString()
+        ));
+
+        StringJoiner streamMap = new StringJoiner(" ");
+        for (int i = 0; i < variants; i++) {
+            TranscodeProperties.Rendition rendition = ladder.get(i);
+            int bitrate = rendition.getVideoBitrateKbps();
+
+            command.addAll(List.of(
+                    "-map", "[v" + i + "out]",
+                    "-c:v:" + i, "libx264",
+                    "-profile:v:" + i, "main",
+                    "-level:v:" + i, levelOf(rendition),
+                    "-b:v:" + i, bitrate + "k",
+                    "-maxrate:v:" + i, peakVideoKbps(rendition) + "k",
+                    "-bufsize:v:" + i, (bitrate * 3 / 2) + "k"
+            ));
+
+            String variant = "v:" + i;
+            if (source.hasAudio()) {
+                command.addAll(List.of(
+                        "-map", "0:a:0",
+                        "-c:a:" + i, "aac",
+                        "-b:a:" + i, rendition.getAudioBitrateKbps() + "k",
+                        "-ac:a:" + i, "2"
+                ));
+                variant += ",a:" + i;
+            }
+            streamMap.add(variant + ",name:" + rendition.getName());
+        }
+
+        command.addAll(List.of(
+                "-preset", "veryfast",
+                "-sc_threshold", "0",
+                "-force_key_frames", "expr:gte(t,n_forced*" + segmentSeconds + ")",
+                "-f", "hls",
+                "-hls_time", String.valueOf(segmentSeconds),
+                "-hls_playlist_type", "vod",
+                "-hls_list_size", "0",
+                "-hls_flags", "independent_segments",
+                "-hls_segment_filename", outputPath.resolve("%v").resolve("segment_%03d.ts").toString(),
+                "-var_stream_map", streamMap.toString(),
+                outputPath.resolve("%v").resolve(MEDIA_PLAYLIST).toString()
+        ));
+        return command;
+    }
+
+    private Path writeMasterPlaylist(Path outputPath, SourceInfo source, List<TranscodeProperties.Rendition> ladder)
+            throws IOException {
+        StringBuilder playlist = new StringBuilder()
+                .append("#EXTM3U\n")
+                .append("#EXT-X-VERSION:3\n")
+                .append("#EXT-X-INDEPENDENT-SEGMENTS\n");
+
+        for (TranscodeProperties.Rendition rendition : ladder) {
+            int audioKbps = source.hasAudio() ? rendition.getAudioBitrateKbps() : 0;
+            String codecs = source.hasAudio()
+                    ? "avc1.4d40" + levelHex(rendition) + ",mp4a.40.2"
+                    : "avc1.4d40" + levelHex(rendition);
+
+            playlist.append("#EXT-X-STREAM-INF:")
+                    .append("BANDWIDTH=").append((peakVideoKbps(rendition) + audioKbps) * 1000L)
+                    .append(",AVERAGE-BANDWIDTH=").append((rendition.getVideoBitrateKbps() + audioKbps) * 1000L)
+                    .append(",RESOLUTION=").append(widthFor(source, rendition.getHeight()))
+                    .append("x").append(rendition.getHeight())
+                    .append(",CODECS=\"").append(codecs).append("\"\n")
+                    .append(rendition.getName()).append("/").append(MEDIA_PLAYLIST).append("\n");
+        }
+
+        // Written next to the variants and swapped in atomically so players never read a half-written master
+        Path master = outputPath.resolve(MASTER_PLAYLIST);
+        Path tmp = outputPath.resolve(MASTER_PLAYLIST + ".tmp");
+        Files.writeString(tmp, playlist, StandardCharsets.UTF_8);
+        Files.move(tmp, master, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return master;
+    }
+
+    private SourceInfo probe(Path sourcePath) throws IOException, InterruptedException {
+        Process probe = new ProcessBuilder(
+                transcodeProperties.getFfprobePath(),
+                "-v", "error",
+                "-show_entries", "stream=codec_type,width,height:format=duration",
+                "-of", "default=noprint_wrappers=1",
+                sourcePath.toString())
+                .redirectErrorStream(true)
+                .start();
+
+        String output;
+        try (InputStream in = probe.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        if (probe.waitFor() != 0) {
+            log.warn("ffprobe could not read {}: {}", sourcePath, output.trim());
+            return new SourceInfo(0, 0, 0, true);
+        }
+
+        double duration = 0;
+        int width = 0;
+        int height = 0;
+        boolean hasAudio = false;
+        for (String line : output.split("\\R")) {
+            int eq = line.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            String key = line.substring(0, eq).trim();
+            String value = line.substring(eq + 1).trim();
+            switch (key) {
+                case "codec_type" -> hasAudio |= "audio".equals(value);
+                case "width" -> width = width > 0 ? width : parseIntOrZero(value);
+                case "height" -> height = height > 0 ? height : parseIntOrZero(value);
+                case "duration" -> duration = parseDoubleOrZero(value);
+                default -> {
+                }
+            }
+        }
+        return new SourceInfo(duration, width, height, hasAudio);
+    }
+
+    private static String nodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+
+    private static int widthFor(SourceInfo source, int height) {
+        if (source.width() <= 0 || source.height() <= 0) {
+            return Math.round(height * 16 / 9f / 2) * 2;
+        }
+        // Same rounding as scale=-2:h, which keeps the width even
+        return Math.round((float) source.width() * height / source.height() / 2) * 2;
+    }
+
+    private static int peakVideoKbps(TranscodeProperties.Rendition rendition) {
+        return rendition.getVideoBitrateKbps() * 107 / 100;
+    }
+
+    private static String levelOf(TranscodeProperties.Rendition rendition) {
+        if (rendition.getHeight() <= 480) return "3.0";
+        if (rendition.getHeight() <= 720) return "3.1";
+        return "4.0";
+    }
+
+    private static String levelHex(TranscodeProperties.Rendition rendition) {
+        if (rendition.getHeight() <= 480) return "1e";
+        if (rendition.getHeight() <= 720) return "1f";
+        return "28";
+    }
+
+    private static int parseIntOrZero(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static double parseDoubleOrZero(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Maps an ffmpeg {@code -progress} line to a percentage, or returns -1 when the line carries no position.
+     */
+    private int parseProgress(String line, double durationSeconds) {
+        if (durationSeconds <= 0 || !(line.startsWith("out_time_us=") || line.startsWith("out_time_ms="))) {
+            return -1;
+        }
+
+        try {
+            // out_time_ms is, despite its name, also reported in microseconds
+            long micros = Long.parseLong(line.substring(line.indexOf('=') + 1).trim());
+            int percent = (int) (micros / 1_000_000.0 / durationSeconds * 100);
+            return Math.max(0, Math.min(99, percent));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record SourceInfo(double durationSeconds, int width, int height, boolean hasAudio) {
+    }
+}
@@ -0,0 +1,110 @@
+package movies.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import event.dto.PrincipalInvalidatedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import movies.constant.PredefinedTopic;
+import movies.entity.Role;
+import movies.entity.User;
+import movies.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * What authorization needs to know about a user (enabled flag, roles and the token scope built from them), kept per
+ * node so issuing a token does not reload the user and walk its roles every time.
+ * <p>
+ * Code that changes any of these must call {@link #invalidate}, which also broadcasts the change on
+ * {@code principal-invalidations} so every node drops its copy; the TTL only bounds how long a missed message can
+ * leave a stale entry behind.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UserPrincipalCache {
+    static final String METRIC_PREFIX = "auth.principal.cache";
+
+    UserRepository userRepository;
+    KafkaTemplate<String, Object> kafkaTemplate;
+    Cache<String, UserPrincipal> cache;
+
+    public record UserPrincipal(String id, boolean enabled, Set<String> roles, String scope) {
+        static UserPrincipal of(User user) {
+            Set<String> roles = user.getRoles() == null ? Set.of()
+                    : user.getRoles().stream().map(Role::getName).collect(Collectors.toUnmodifiableSet());
+            String scope = roles.stream().sorted().map(role -> "ROLE_" + role).collect(Collectors.joining(" "));
+            return new UserPrincipal(user.getId(), user.isEnabled(), roles, scope);
+        }
+    }
+
+    public UserPrincipalCache(
+            UserRepository userRepository,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            @Value("${spring.auth.principal-cache.ttl:10m}") Duration ttl,
+            @Value("${spring.auth.principal-cache.max-size:10000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, METRIC_PREFIX);
+        Gauge.builder(METRIC_PREFIX + ".hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of principal lookups answered from the cache")
+                .register(meterRegistry);
+    }
+
+    public Optional<UserPrincipal> find(String userId) {
+        // A null from the loader is not cached, so a user created later is still found
+        return Optional.ofNullable(cache.get(userId, id -> userRepository.findWithRolesById(id)
+                .map(UserPrincipal::of)
+                .orElse(null)));
+    }
+
+    /**
+     * Forgets {@code userId} now and, inside a transaction, again after commit, so a lookup racing the transaction
+     * cannot put the old state back. The other nodes are told once the change is committed, so they cannot reload
+     * the old state either.
+     */
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                    broadcast(userId);
+                }
+            });
+        } else {
+            broadcast(userId);
+        }
+    }
+
+    /**
+     * Applies an invalidation made on another node, without broadcasting it again.
+     */
+    public void evict(String userId) {
+        cache.invalidate(userId);
+    }
+
+    private void broadcast(String userId) {
+        kafkaTemplate.send(PredefinedTopic.PRINCIPAL_INVALIDATIONS, userId,
+                PrincipalInvalidatedEvent.builder().userId(userId).build());
+    }
+}
@@ -5,12 +5,14 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedMailTemplate;
 import movies.constant.PredefinedRole;
 import movies.constant.PredefinedToken;
+import movies.constant.PredefinedTopic;
 import movies.dto.request.user.UserCreationRequest;
 import movies.dto.request.user.UserUpdateRequest;
 import movies.dto.response.user.ForgotPasswordResponse;
-import movies.dto.response.PageResponse;
+import movies.dto.response.CursorPageResponse;
 import movies.dto.request.user.ForgotPasswordRequest;
 import movies.dto.response.user.UserResponse;
 import movies.entity.Role;
@@ -20,15 +22,17 @@ import movies.exception.ErrorCodes;
 import movies.mapper.UserMapper;
 import movies.repository.RoleRepository;
 import movies.repository.UserRepository;
+import movies.utils.CursorUtils;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.*;
 
@@ -39,17 +43,19 @@ import java.util.*;
 public class UserService {
     UserRepository userRepository;
     UserMapper userMapper;
-    PasswordEncoder passwordEncoder;
+    PasswordHasher passwordHasher;
+    UserPrincipalCache userPrincipalCache;
     RoleRepository roleRepository;
     AuthenticationService authenticationService;
     KafkaTemplate<String, Object> kafkaTemplate;
+    CursorUtils cursorUtils;
 
     @Transactional
     public UserResponse createUser(UserCreationRequest request) {
         validateUserRequest(request);
 
         User user = userMapper.toUser(request);
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
 
         String username = generateUsername(request);
         user.setUsername(username);
@@ -64,7 +70,7 @@ public class UserService {
             throw new AppException(ErrorCodes.UNCATEGORIZED_EXCEPTION);
         }
 
-        sendTokenToUser(user, PredefinedToken.VERIFICATION_TOKEN, "CONFIRM_EMAIL");
+        sendTokenToUser(user, PredefinedToken.VERIFICATION_TOKEN, PredefinedMailTemplate.CONFIRM_EMAIL);
 
         return userMapper.toUserResponse(user);
     }
@@ -75,7 +81,8 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new AppException(ErrorCodes.USER_NOT_EXISTED));
         userMapper.updateUser(user, request);
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
+        userPrincipalCache.invalidate(userId);
         return userMapper.toUserResponse(userRepository.save(user));
     }
 
@@ -88,13 +95,20 @@ public class UserService {
     }
 
     @Transactional(readOnly = true)
-    public PageResponse<UserResponse> getAllUser(int page, int size) {
-        Pageable pageable = PageRequest.of(page - 1, size);
-        Page<User> userPage = userRepository.findAll(pageable);
-
-        List<UserResponse> userResponses = userPage.getContent().stream().map(userMapper::toUserResponse).toList();
-
-        return PageResponse.<UserResponse>builder().currentPage(page).pageSize(size).totalElements(userPage.getTotalElements()).totalPages(userPage.getTotalPages()).data(userResponses).build();
+    public CursorPageResponse<UserResponse> getAllUser(String cursor, Integer size, boolean withTotal) {
+        int pageSize = cursorUtils.pageSize(size);
+        CursorUtils.SeekKey key = cursorUtils.decodeSeekKey(cursor);
+        List<User> rows = key.backward()
+                ? userRepository.findPageBefore(key.createdAt(), key.id(), cursorUtils.seekLimit(pageSize))
+                : userRepository.findPageAfter(key.createdAt(), key.id(), cursorUtils.seekLimit(pageSize));
+
+        CursorPageResponse<UserResponse> page = cursorUtils.toSeekPage(rows, pageSize, key,
+                User::getCreatedAt, User::getId,
+                userPage -> userPage.stream().map(userMapper::toUserResponse).toList());
+        if (withTotal) {
+            page.setTotalElements(userRepository.count());
+        }
+        return page;
     }
 
     @Transactional(readOnly = true)
@@ -109,6 +123,7 @@ public class UserService {
             throw new AppException(ErrorCodes.USER_NOT_EXISTED);
         }
         userRepository.deleteById(userId);
+        userPrincipalCache.invalidate(userId);
     }
 
     public ForgotPasswordResponse forgotPassword(ForgotPasswordRequest request) {
@@ -119,7 +134,7 @@ public class UserService {
             throw new AppException(ErrorCodes.EMAIL_NOT_CONFIRMED);
         }
 
-        sendTokenToUser(user, PredefinedToken.PASSWORD_RESET_TOKEN, "FORGOT_PASSWORD");
+        sendTokenToUser(user, PredefinedToken.PASSWORD_RESET_TOKEN, PredefinedMailTemplate.FORGOT_PASSWORD);
 
         return ForgotPasswordResponse.builder()
                 .status(true)
@@ -127,19 +142,33 @@ public class UserService {
                 .build();
     }
 
-    private void sendTokenToUser(User user, String tokenType, String subject) {
+    /**
+     * The language the client asked for, or null when it sent no Accept-Language header, so the renderer's default
+     * applies rather than the server's own locale.
+     */
+    private static String requestedLanguage() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && StringUtils.hasText(attributes.getRequest().getHeader(HttpHeaders.ACCEPT_LANGUAGE))) {
+            return LocaleContextHolder.getLocale().getLanguage();
+        }
+        return null;
+    }
+
+    private void sendTokenToUser(User user, String tokenType, String templateCode) {
         String token = authenticationService.generateEmailToken(user, tokenType);
 
         NotificationEvent notificationEvent = NotificationEvent.builder()
                 .channel("EMAIL")
                 .recipient(user.getEmail())
-                .subject(subject)
+                .templateCode(templateCode)
+                .locale(requestedLanguage())
+                .subject(templateCode)
                 .body("Hello, " + user.getUsername())
                 .param(Map.of("token", token,
                         "tokenType", tokenType))
                 .build();
 
-        kafkaTemplate.send("email-notifications", notificationEvent);
+        kafkaTemplate.send(PredefinedTopic.EMAIL_NOTIFICATIONS, user.getEmail(), notificationEvent);
     }
 
 
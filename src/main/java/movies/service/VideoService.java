@@ -24,20 +24,21 @@ import movies.mapper.VideoMapper;
 import movies.repository.EpisodeRepository;
 import movies.repository.MovieRepository;
 import movies.repository.VideoRepository;
+import movies.utils.FileUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Objects;
@@ -63,6 +64,10 @@ public class VideoService {
     Cloudinary cloudinary;
     StorageProperties storageProperties;
     VideoMapper videoMapper;
+    TranscodeService transcodeService;
+    FileUtils fileUtils;
+    ClaimCheckStore claimCheckStore;
+    TransactionTemplate transactionTemplate;
 
     @PostConstruct
     public void init() {
@@ -88,37 +93,126 @@ public class VideoService {
         Movie movie = movieRepository.findById(movieId)
                 .orElseThrow(() -> new AppException(ErrorCodes.MOVIE_NOT_EXISTED));
 
-        String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
+        Path staged = fileUtils.stageUpload(file);
+        try {
+            return videoMapper.toVideoResponse(
+                    storeVideo(staged, file.getOriginalFilename(), file.getContentType(), file.getSize(), movie));
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    /**
+     * Validates and stages the file and returns a claim-check event for it; the caller publishes it once the movie is
+     * committed.
+     */
+    public VideoUploadEvent stageUpload(MultipartFile file, String movieId) throws IOException {
+        validateVideo(file);
+
+        ClaimCheckStore.ClaimCheck claimCheck = claimCheckStore.stage(file);
+        return VideoUploadEvent.builder()
+                .movieId(movieId)
+                .fileName(file.getOriginalFilename())
+                .contentType(file.getContentType())
+                .stagingKey(claimCheck.key())
+                .sha256(claimCheck.sha256())
+                .fileSize(claimCheck.size())
+                .build();
+    }
+
+    /**
+     * Uploads the claim-checked file with no transaction open, which for a large video can take minutes, then saves
+     * the row in a short one. The staged file is copied rather than moved and only released once the row is
+     * committed, so a delivery that fails anywhere can be retried from the same claim check.
+     */
+    public VideoResponse uploadVideoFromEvent(VideoUploadEvent event) throws IOException {
+        if (!movieRepository.existsById(event.getMovieId())) {
+            throw new AppException(ErrorCodes.MOVIE_NOT_EXISTED);
+        }
+
+        Path staged = claimCheckStore.redeem(
+                new ClaimCheckStore.ClaimCheck(event.getStagingKey(), event.getSha256(), event.getFileSize()));
+        Video video = upload(staged, event.getFileName(), event.getContentType(), event.getFileSize(), true);
+
+        Video savedVideo;
+        try {
+            savedVideo = transactionTemplate.execute(status -> {
+                Movie movie = movieRepository.findById(event.getMovieId())
+                        .orElseThrow(() -> new AppException(ErrorCodes.MOVIE_NOT_EXISTED));
+                return attach(video, movie);
+            });
+        } catch (RuntimeException e) {
+            deleteStoredFile(video);
+            throw e;
+        }
+        claimCheckStore.release(event.getStagingKey());
+
+        return videoMapper.toVideoResponse(savedVideo);
+    }
+
+    /**
+     * Uploads a staged file to Cloudinary, or moves it to local storage and queues its transcode if that fails, and
+     * attaches the saved video to the movie.
+     */
+    private Video storeVideo(Path staged, String filename, String contentType, long size, Movie movie) throws IOException {
+        return attach(upload(staged, filename, contentType, size, false), movie);
+    }
+
+    /**
+     * Uploads a staged file to Cloudinary, or moves (copies, with {@code keepSource}) it to local storage if that
+     * fails. The returned video is not saved and has no movie yet.
+     */
+    private Video upload(Path staged, String filename, String contentType, long size, boolean keepSource)
+            throws IOException {
+        String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(filename));
         String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
         String uniqueFilename = UUID.randomUUID() + extension;
 
         Video video = Video.builder()
                 .fileName(uniqueFilename)
                 .originalFileName(originalFilename)
-                .fileType(file.getContentType())
-                .fileSize(file.getSize())
-                .movie(movie) // Set quan hệ trực tiếp
+                .fileType(contentType)
+                .fileSize(size)
                 .isStoredLocally(false)
                 .isStoredInCloudinary(false)
                 .build();
 
         try {
-            uploadToCloudinary(file, video);
+            uploadToCloudinary(staged, video);
         } catch (Exception e) {
             log.error("Failed to upload video to Cloudinary, falling back to local storage", e);
-            uploadLocally(file, video);
+            uploadLocally(staged, video, keepSource);
         }
 
         if (!video.getIsStoredLocally() && !video.getIsStoredInCloudinary()) {
             throw new AppException(ErrorCodes.VIDEO_PROCESSING_ERROR);
         }
+        return video;
+    }
+
+    /**
+     * Saves an uploaded video, attaches it to the movie and, for a local copy, queues its transcode after commit.
+     */
+    private Video attach(Video video, Movie movie) {
+        video.setMovie(movie); // Set quan hệ trực tiếp
+
+        // Cloudinary serves its own adaptive streams, only local copies need an HLS transcode
+        if (video.getIsStoredInCloudinary()) {
+            video.setStatus(PredefinedVideos.STATUS_READY);
+        } else {
+            markQueued(video);
+        }
 
         Video savedVideo = videoRepository.save(video);
         movie.setVideo(savedVideo);
 
         movieRepository.save(movie);
 
-        return videoMapper.toVideoResponse(savedVideo);
+        if (PredefinedVideos.STATUS_QUEUED.equals(savedVideo.getStatus())) {
+            transcodeService.enqueue(savedVideo.getId());
+        }
+
+        return savedVideo;
     }
 
     public void validateVideo(MultipartFile file) {
@@ -137,14 +231,16 @@ public class VideoService {
     }
 
     @SuppressWarnings("unchecked")
-    private void uploadToCloudinary(MultipartFile file, Video video) throws IOException {
+    private void uploadToCloudinary(Path staged, Video video) throws IOException {
         Map<String, Object> params = ObjectUtils.asMap(
                 "public_id", "videos/" + video.getFileName().substring(0, video.getFileName().lastIndexOf(".")),
                 "overwrite", true,
-                "resource_type", "video"
+                "resource_type", "video",
+                "chunk_size", PredefinedVideos.UPLOAD_CHUNK_SIZE
         );
 
-        Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(), params);
+        // Chunked upload straight from disk, heap use is one chunk regardless of the video size
+        Map<String, Object> uploadResult = cloudinary.uploader().uploadLarge(staged.toFile(), params);
 
         video.setCloudinaryPublicId((String) uploadResult.get("public_id"));
         video.setCloudinaryUrl((String) uploadResult.get("secure_url"));
@@ -154,7 +250,7 @@ public class VideoService {
         log.info("Video uploaded to Cloudinary: {}", video.getCloudinaryUrl());
     }
 
-    private void uploadLocally(MultipartFile file, Video video) throws IOException {
+    private void uploadLocally(Path staged, Video video, boolean keepSource) throws IOException {
         Path uploadPath = Paths.get(storageProperties.getUploadDir()).toAbsolutePath().normalize();
         if (!Files.exists(uploadPath)) {
             try {
@@ -166,40 +262,73 @@ public class VideoService {
         }
 
         Path targetLocation = uploadPath.resolve(video.getFileName());
-        Files.copy(file.getInputStream(), targetLocation);
+        if (keepSource) {
+            Files.copy(staged, targetLocation);
+        } else {
+            Files.move(staged, targetLocation);
+        }
 
         video.setIsStoredLocally(true);
         video.setFilePath(targetLocation.toString());
         video.setLocalUrl("/api/videos/local/" + video.getFileName());
     }
 
+    /**
+     * Removes the stored copy of a video whose row could not be saved.
+     */
+    private void deleteStoredFile(Video video) {
+        if (Boolean.TRUE.equals(video.getIsStoredInCloudinary()) && video.getCloudinaryPublicId() != null) {
+            try {
+                cloudinary.uploader().destroy(video.getCloudinaryPublicId(), ObjectUtils.asMap("resource_type", "video"));
+            } catch (Exception e) {
+                log.error("Failed to delete video from Cloudinary: {}", video.getCloudinaryPublicId(), e);
+            }
+        }
+
+        if (Boolean.TRUE.equals(video.getIsStoredLocally()) && video.getFilePath() != null) {
+            try {
+                Files.deleteIfExists(Paths.get(video.getFilePath()));
+            } catch (IOException e) {
+                log.error("Failed to delete local video file: {}", video.getFilePath(), e);
+            }
+        }
+    }
+
     public VideoResponse save(VideoRequest request, MultipartFile file) {
         try {
             String originalFilename = file.getOriginalFilename();
             String cleanFileName = StringUtils.cleanPath(originalFilename);
             Path targetPath = Paths.get(videoDir, cleanFileName);
 
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+            file.transferTo(targetPath);
             log.info("Đã lưu file video: {}", targetPath);
 
-            Video video = Video.builder()
-                    .filePath(targetPath.toString())
-                    .createdAt(LocalDateTime.now())
-                    .build();
-
-            attachToOwner(request, video);
-
-            Video savedVideo = videoRepository.save(video);
-
-            processVideo(savedVideo.getId());
-
-            return videoMapper.toVideoResponse(savedVideo);
+            return createFromFile(request, targetPath);
         } catch (IOException e) {
             log.error("Lỗi khi lưu video: {}", e.getMessage());
             throw new AppException(ErrorCodes.VIDEO_PROCESSING_ERROR);
         }
     }
 
+    /**
+     * Registers a source file that is already in the video directory and queues its transcode.
+     */
+    public VideoResponse createFromFile(VideoRequest request, Path sourcePath) {
+        Video video = Video.builder()
+                .filePath(sourcePath.toString())
+                .createdAt(LocalDateTime.now())
+                .build();
+        markQueued(video);
+
+        attachToOwner(request, video);
+
+        Video savedVideo = videoRepository.save(video);
+
+        transcodeService.enqueue(savedVideo.getId());
+
+        return videoMapper.toVideoResponse(savedVideo);
+    }
+
     private void attachToOwner(VideoRequest request, Video video) {
         if (request.getMovieId() != null) {
             Movie movie = movieRepository.findById(request.getMovieId())
@@ -220,41 +349,27 @@ public class VideoService {
         return videoMapper.toVideoResponse(video);
     }
 
-    public void processVideo(String videoId) {
+    @PreAuthorize("hasRole('ADMIN')")
+    public VideoResponse retryTranscode(String videoId) {
         Video video = videoRepository.findById(videoId)
                 .orElseThrow(() -> new AppException(ErrorCodes.VIDEO_NOT_EXISTED));
 
-        Path sourcePath = Paths.get(video.getFilePath());
-        Path outputPath = Paths.get(hlsDir, videoId);
-
-        try {
-            Files.createDirectories(outputPath);
-        } catch (IOException e) {
-            throw new RuntimeException("Không tạo được thư mục HLS: " + videoId);
+        if (!PredefinedVideos.STATUS_FAILED.equals(video.getStatus())) {
+            throw new AppException(ErrorCodes.VIDEO_NOT_RETRYABLE);
         }
 
-        String ffmpegCmd = String.format(
-                "ffmpeg -i \"%s\" -c:v libx264 -c:a aac -strict -2 -f hls -hls_time 10 -hls_list_size 0 -hls_segment_filename \"%s/segment_%%3d.ts\" \"%s/master.m3u8\"",
-                sourcePath, outputPath, outputPath
-        );
-
-        log.info("Chạy lệnh xử lý video: {}", ffmpegCmd);
-
-        try {
-            ProcessBuilder processBuilder = new ProcessBuilder("cmd.exe", "/c", ffmpegCmd);
-            processBuilder.inheritIO();
-            Process process = processBuilder.start();
-            int exitCode = process.waitFor();
-
-            if (exitCode != 0) {
-                throw new RuntimeException("Xử lý video thất bại, exit code: " + exitCode);
-            }
+        markQueued(video);
+        Video savedVideo = videoRepository.save(video);
+        transcodeService.enqueue(savedVideo.getId());
 
-            video.setHlsPath(outputPath.resolve("master.m3u8").toString());
-            videoRepository.save(video);
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException("Lỗi khi xử lý video: " + e.getMessage());
-        }
+        return videoMapper.toVideoResponse(savedVideo);
+    }
 
+    private void markQueued(Video video) {
+        video.setStatus(PredefinedVideos.STATUS_QUEUED);
+        video.setProgress(0);
+        video.setAttempts(0);
+        video.setLastError(null);
+        video.setNextAttemptAt(LocalDateTime.now());
     }
 }
@@ -0,0 +1,106 @@
+package movies.service.search;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexInformation;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Each document type is served through an alias ({@code movies}, {@code series}) that points at one versioned index
+ * ({@code movies_v20250101_120000}). A rebuild fills a new version off to the side and then moves the alias in a
+ * single atomic request, so searches never see a half-built or empty index.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ConditionalOnProperty(name = "elasticsearch.enabled", havingValue = "true", matchIfMissing = true)
+public class ElasticsearchIndexManager {
+    static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    ElasticsearchOperations elasticsearchOperations;
+
+    public String alias(Class<?> type) {
+        return elasticsearchOperations.getIndexCoordinatesFor(type).getIndexName();
+    }
+
+    /**
+     * Whether the alias exists and is an alias; a concrete index under that name is the pre-alias layout.
+     */
+    public boolean isAliased(Class<?> type) {
+        String alias = alias(type);
+        List<String> indices = backingIndices(alias);
+        return !indices.isEmpty() && !indices.contains(alias);
+    }
+
+    /**
+     * Creates an empty index for the next version of {@code type}, with the settings and mapping from its annotations.
+     */
+    public String createVersion(Class<?> type) {
+        IndexOperations typeOperations = elasticsearchOperations.indexOps(type);
+        String index = alias(type) + "_v" + LocalDateTime.now().format(VERSION_FORMAT);
+
+        elasticsearchOperations.indexOps(IndexCoordinates.of(index))
+                .create(typeOperations.createSettings(), typeOperations.createMapping());
+        log.info("Created search index {}", index);
+        return index;
+    }
+
+    /**
+     * Points the alias of {@code type} at {@code index} and drops the indices it pointed at before.
+     */
+    public void promote(Class<?> type, String index) {
+        String alias = alias(type);
+        List<String> previous = backingIndices(alias);
+        elasticsearchOperations.indexOps(IndexCoordinates.of(index)).refresh();
+
+        if (previous.contains(alias)) {
+            // A concrete index holds the alias name (the old shared layout or an auto-created index); it has to go
+            // before the alias can be created, so there is a short gap on this one-off migration
+            drop(alias);
+            previous = List.of();
+        }
+
+        AliasActions actions = new AliasActions(new AliasAction.Add(AliasActionParameters.builder()
+                .withIndices(index)
+                .withAliases(alias)
+                .withIsWriteIndex(true)
+                .build()));
+        for (String old : previous) {
+            actions.add(new AliasAction.Remove(AliasActionParameters.builder()
+                    .withIndices(old)
+                    .withAliases(alias)
+                    .build()));
+        }
+        elasticsearchOperations.indexOps(IndexCoordinates.of(index)).alias(actions);
+        log.info("Alias {} now points at {}", alias, index);
+
+        previous.forEach(this::drop);
+    }
+
+    public void drop(String index) {
+        elasticsearchOperations.indexOps(IndexCoordinates.of(index)).delete();
+        log.info("Dropped search index {}", index);
+    }
+
+    private List<String> backingIndices(String alias) {
+        IndexOperations operations = elasticsearchOperations.indexOps(IndexCoordinates.of(alias));
+        if (!operations.exists()) {
+            return List.of();
+        }
+        return operations.getInformation().stream().map(IndexInformation::getName).toList();
+    }
+}
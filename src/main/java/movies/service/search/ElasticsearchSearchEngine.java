@@ -0,0 +1,272 @@
+package movies.service.search;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.document.MovieDocument;
+import movies.document.SeriesDocument;
+import movies.dto.request.search.SearchRequest;
+import movies.dto.response.search.FacetBucket;
+import movies.dto.response.search.SearchHitResponse;
+import movies.dto.response.search.SearchResponse;
+import movies.dto.response.search.UnifiedSearchResponse;
+import movies.mapper.MovieDocumentMapper;
+import movies.mapper.SeriesDocumentMapper;
+import movies.repository.elasticsearch.MovieElasticsearchRepository;
+import movies.repository.elasticsearch.SeriesElasticsearchRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Search on the {@code movies} and {@code series} aliases: a fuzzy multi-match over the accent-folded Vietnamese and
+ * the stemmed English sub-fields (title boosted over description) with genre, country and year filters, and terms
+ * aggregations for the facets.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ConditionalOnProperty(name = "elasticsearch.enabled", havingValue = "true", matchIfMissing = true)
+public class ElasticsearchSearchEngine implements SearchEngine {
+    static final List<String> MOVIE_FIELDS = List.of("title^3", "title.en^2", "description", "description.en");
+    static final List<String> SERIES_FIELDS = List.of("title^3", "title.en^2", "seasonTitles^2", "description", "description.en");
+
+    ElasticsearchOperations elasticsearchOperations;
+    ElasticsearchIndexManager elasticsearchIndexManager;
+    MovieElasticsearchRepository movieElasticsearchRepository;
+    SeriesElasticsearchRepository seriesElasticsearchRepository;
+    MovieDocumentMapper movieDocumentMapper;
+    SeriesDocumentMapper seriesDocumentMapper;
+
+    // The versioned indices being filled by a rebuild; writes go there as well as to the aliases
+    @NonFinal
+    volatile Rebuild rebuild;
+
+    record Rebuild(String movieIndex, String seriesIndex) {
+    }
+
+    @Override
+    public SearchResponse search(SearchRequest request) {
+        SearchHits<MovieDocument> searchHits = elasticsearchOperations.search(movieQuery(request), MovieDocument.class);
+        return toResponse(searchHits, request, movieDocumentMapper::toSearchHit);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public UnifiedSearchResponse searchAll(SearchRequest request) {
+        // One _msearch request for both aliases
+        List<SearchHits<?>> results = elasticsearchOperations.multiSearch(
+                List.of(movieQuery(request), seriesQuery(request)),
+                List.of(MovieDocument.class, SeriesDocument.class));
+
+        return UnifiedSearchResponse.builder()
+                .movies(toResponse((SearchHits<MovieDocument>) results.get(0), request, movieDocumentMapper::toSearchHit))
+                .series(toResponse((SearchHits<SeriesDocument>) results.get(1), request, seriesDocumentMapper::toSearchHit))
+                .build();
+    }
+
+    @Override
+    public void indexAll(Collection<MovieDocument> documents) {
+        movieElasticsearchRepository.saveAll(documents);
+        Rebuild target = rebuild;
+        if (target != null) {
+            elasticsearchOperations.save(documents, IndexCoordinates.of(target.movieIndex()));
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        movieElasticsearchRepository.deleteAllById(ids);
+        Rebuild target = rebuild;
+        if (target != null) {
+            ids.forEach(id -> elasticsearchOperations.delete(id, IndexCoordinates.of(target.movieIndex())));
+        }
+    }
+
+    @Override
+    public void indexAllSeries(Collection<SeriesDocument> documents) {
+        seriesElasticsearchRepository.saveAll(documents);
+        Rebuild target = rebuild;
+        if (target != null) {
+            elasticsearchOperations.save(documents, IndexCoordinates.of(target.seriesIndex()));
+        }
+    }
+
+    @Override
+    public void deleteAllSeries(Collection<String> ids) {
+        seriesElasticsearchRepository.deleteAllById(ids);
+        Rebuild target = rebuild;
+        if (target != null) {
+            ids.forEach(id -> elasticsearchOperations.delete(id, IndexCoordinates.of(target.seriesIndex())));
+        }
+    }
+
+    @Override
+    public void rebuild(Consumer<IndexWriter> loader) {
+        Rebuild target = new Rebuild(
+                elasticsearchIndexManager.createVersion(MovieDocument.class),
+                elasticsearchIndexManager.createVersion(SeriesDocument.class));
+        rebuild = target;
+        try {
+            loader.accept(new IndexWriter() {
+                @Override
+                public void movies(Collection<MovieDocument> documents) {
+                    elasticsearchOperations.save(documents, IndexCoordinates.of(target.movieIndex()));
+                }
+
+                @Override
+                public void series(Collection<SeriesDocument> documents) {
+                    elasticsearchOperations.save(documents, IndexCoordinates.of(target.seriesIndex()));
+                }
+            });
+            elasticsearchIndexManager.promote(MovieDocument.class, target.movieIndex());
+            elasticsearchIndexManager.promote(SeriesDocument.class, target.seriesIndex());
+        } catch (RuntimeException e) {
+            elasticsearchIndexManager.drop(target.movieIndex());
+            elasticsearchIndexManager.drop(target.seriesIndex());
+            throw e;
+        } finally {
+            rebuild = null;
+        }
+    }
+
+    @Override
+    public boolean needsRebuild() {
+        return !elasticsearchIndexManager.isAliased(MovieDocument.class)
+                || !elasticsearchIndexManager.isAliased(SeriesDocument.class);
+    }
+
+    private NativeQuery movieQuery(SearchRequest request) {
+        return NativeQuery.builder()
+                .withQuery(q -> q.bool(bool -> buildQuery(bool, request, MOVIE_FIELDS, true)))
+                .withAggregation(FACET_GENRES, termsAggregation("genres"))
+                .withAggregation(FACET_COUNTRIES, termsAggregation("country"))
+                .withAggregation(FACET_YEARS, termsAggregation("releaseYear"))
+                .withPageable(PageRequest.of(request.getPage(), request.getSize()))
+                .withTrackTotalHits(true)
+                .build();
+    }
+
+    private NativeQuery seriesQuery(SearchRequest request) {
+        return NativeQuery.builder()
+                .withQuery(q -> q.bool(bool -> buildQuery(bool, request, SERIES_FIELDS, false)))
+                .withAggregation(FACET_GENRES, termsAggregation("genres"))
+                .withAggregation(FACET_COUNTRIES, termsAggregation("country"))
+                .withPageable(PageRequest.of(request.getPage(), request.getSize()))
+                .withTrackTotalHits(true)
+                .build();
+    }
+
+    private <D> SearchResponse toResponse(SearchHits<D> searchHits, SearchRequest request,
+                                          Function<D, SearchHitResponse> toHit) {
+        List<SearchHitResponse> hits = searchHits.getSearchHits().stream()
+                .map(searchHit -> {
+                    SearchHitResponse hit = toHit.apply(searchHit.getContent());
+                    hit.setScore(searchHit.getScore());
+                    return hit;
+                })
+                .toList();
+
+        long total = searchHits.getTotalHits();
+        return SearchResponse.builder()
+                .currentPage(request.getPage())
+                .pageSize(request.getSize())
+                .totalElements(total)
+                .totalPages((int) ((total + request.getSize() - 1) / request.getSize()))
+                .data(hits)
+                .facets(facets((ElasticsearchAggregations) searchHits.getAggregations()))
+                .build();
+    }
+
+    private BoolQuery.Builder buildQuery(BoolQuery.Builder bool, SearchRequest request, List<String> fields,
+                                         boolean byYear) {
+        if (request.getQuery() != null && !request.getQuery().isBlank()) {
+            bool.must(must -> must.multiMatch(match -> match
+                    .query(request.getQuery())
+                    .fields(fields)
+                    .fuzziness("AUTO")
+                    .prefixLength(1)));
+        } else {
+            bool.must(must -> must.matchAll(all -> all));
+        }
+
+        if (request.getGenres() != null && !request.getGenres().isEmpty()) {
+            bool.filter(termsFilter("genres", request.getGenres()));
+        }
+        if (request.getCountries() != null && !request.getCountries().isEmpty()) {
+            bool.filter(termsFilter("country", request.getCountries()));
+        }
+        if (byYear && (request.getYearFrom() != null || request.getYearTo() != null)) {
+            bool.filter(filter -> filter.range(range -> range.number(year -> {
+                year.field("releaseYear");
+                if (request.getYearFrom() != null) {
+                    year.gte(request.getYearFrom().doubleValue());
+                }
+                if (request.getYearTo() != null) {
+                    year.lte(request.getYearTo().doubleValue());
+                }
+                return year;
+            })));
+        }
+        return bool;
+    }
+
+    private Query termsFilter(String field, Set<String> values) {
+        List<FieldValue> fieldValues = values.stream().map(FieldValue::of).toList();
+        return Query.of(q -> q.terms(terms -> terms.field(field).terms(value -> value.value(fieldValues))));
+    }
+
+    private Aggregation termsAggregation(String field) {
+        return Aggregation.of(aggregation -> aggregation.terms(terms -> terms.field(field).size(FACET_SIZE)));
+    }
+
+    private Map<String, List<FacetBucket>> facets(ElasticsearchAggregations aggregations) {
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        if (aggregations == null) {
+            return facets;
+        }
+
+        for (String name : List.of(FACET_GENRES, FACET_COUNTRIES, FACET_YEARS)) {
+            var aggregation = aggregations.get(name);
+            if (aggregation != null) {
+                facets.put(name, buckets(aggregation.aggregation().getAggregate()));
+            }
+        }
+        return facets;
+    }
+
+    private List<FacetBucket> buckets(Aggregate aggregate) {
+        if (aggregate.isSterms()) {
+            return aggregate.sterms().buckets().array().stream()
+                    .map(bucket -> new FacetBucket(bucket.key().stringValue(), bucket.docCount()))
+                    .toList();
+        }
+        if (aggregate.isLterms()) {
+            return aggregate.lterms().buckets().array().stream()
+                    .map(bucket -> new FacetBucket(String.valueOf(bucket.key()), bucket.docCount()))
+                    .toList();
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,418 @@
+package movies.service.search;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.document.MovieDocument;
+import movies.document.SeriesDocument;
+import movies.dto.request.search.SearchRequest;
+import movies.dto.response.search.FacetBucket;
+import movies.dto.response.search.SearchHitResponse;
+import movies.dto.response.search.SearchResponse;
+import movies.dto.response.search.UnifiedSearchResponse;
+import movies.mapper.MovieDocumentMapper;
+import movies.mapper.SeriesDocumentMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Embedded inverted index used when Elasticsearch is switched off, so search (ranking, typo tolerance and facets)
+ * works on a laptop or in tests without a cluster.
+ * <p>
+ * Terms are accent-folded by {@link TextNormalizer}. A query term matches its exact term, terms it is a prefix of
+ * (last term only, for search-as-you-type) and, when it has no exact match, terms within one or two edits. Scores are
+ * tf-idf with title hits weighted over description hits. Movies and series live in separate indexes, as they do in
+ * Elasticsearch, so each keeps its own term statistics.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@ConditionalOnProperty(name = "elasticsearch.enabled", havingValue = "false")
+public class InMemorySearchEngine implements SearchEngine {
+    static final double TITLE_WEIGHT = 3.0;
+    static final double PREFIX_WEIGHT = 0.8;
+    static final double FUZZY_WEIGHT = 0.5;
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    MovieDocumentMapper movieDocumentMapper;
+    SeriesDocumentMapper seriesDocumentMapper;
+
+    // Guards every index below, including one being rebuilt
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @NonFinal
+    TextIndex<MovieDocument> movies = new TextIndex<>();
+
+    @NonFinal
+    TextIndex<SeriesDocument> series = new TextIndex<>();
+
+    // Set while a rebuild is loading, so concurrent writes reach the new indexes too
+    @NonFinal
+    TextIndex<MovieDocument> rebuildingMovies;
+
+    @NonFinal
+    TextIndex<SeriesDocument> rebuildingSeries;
+
+    @NonFinal
+    volatile boolean built;
+
+    /**
+     * The searchable fields of a movie or series document.
+     */
+    record Entry<D>(D document, String id, String title, String description, Set<String> genres, String country,
+                    Integer releaseYear, Double averageRating) {
+    }
+
+    record Posting(int titleFrequency, int descriptionFrequency) {
+    }
+
+    @Override
+    public void indexAll(Collection<MovieDocument> batch) {
+        write(() -> batch.forEach(document -> {
+            movies.add(movieEntry(document));
+            if (rebuildingMovies != null) {
+                rebuildingMovies.add(movieEntry(document));
+            }
+        }));
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        write(() -> ids.forEach(id -> {
+            movies.remove(id);
+            if (rebuildingMovies != null) {
+                rebuildingMovies.remove(id);
+            }
+        }));
+    }
+
+    @Override
+    public void indexAllSeries(Collection<SeriesDocument> batch) {
+        write(() -> batch.forEach(document -> {
+            series.add(seriesEntry(document));
+            if (rebuildingSeries != null) {
+                rebuildingSeries.add(seriesEntry(document));
+            }
+        }));
+    }
+
+    @Override
+    public void deleteAllSeries(Collection<String> ids) {
+        write(() -> ids.forEach(id -> {
+            series.remove(id);
+            if (rebuildingSeries != null) {
+                rebuildingSeries.remove(id);
+            }
+        }));
+    }
+
+    @Override
+    public void rebuild(Consumer<IndexWriter> loader) {
+        write(() -> {
+            rebuildingMovies = new TextIndex<>();
+            rebuildingSeries = new TextIndex<>();
+        });
+        try {
+            loader.accept(new IndexWriter() {
+                @Override
+                public void movies(Collection<MovieDocument> documents) {
+                    write(() -> documents.forEach(document -> rebuildingMovies.add(movieEntry(document))));
+                }
+
+                @Override
+                public void series(Collection<SeriesDocument> documents) {
+                    write(() -> documents.forEach(document -> rebuildingSeries.add(seriesEntry(document))));
+                }
+            });
+            write(() -> {
+                movies = rebuildingMovies;
+                series = rebuildingSeries;
+            });
+            built = true;
+        } finally {
+            write(() -> {
+                rebuildingMovies = null;
+                rebuildingSeries = null;
+            });
+        }
+    }
+
+    @Override
+    public boolean needsRebuild() {
+        return !built;
+    }
+
+    @Override
+    public SearchResponse search(SearchRequest request) {
+        lock.readLock().lock();
+        try {
+            return search(movies, request, true, movieDocumentMapper::toSearchHit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public UnifiedSearchResponse searchAll(SearchRequest request) {
+        lock.readLock().lock();
+        try {
+            return UnifiedSearchResponse.builder()
+                    .movies(search(movies, request, true, movieDocumentMapper::toSearchHit))
+                    .series(search(series, request, false, seriesDocumentMapper::toSearchHit))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <D> SearchResponse search(TextIndex<D> index, SearchRequest request, boolean byYear,
+                                      Function<D, SearchHitResponse> toHit) {
+        Map<String, Double> scores = index.score(TextNormalizer.tokenize(request.getQuery()));
+
+        List<Entry<D>> matches = scores.keySet().stream()
+                .map(index.entries::get)
+                .filter(entry -> matchesFilters(entry, request, byYear))
+                .sorted(Comparator.<Entry<D>>comparingDouble(entry -> -scores.get(entry.id()))
+                        .thenComparingDouble(entry -> -Optional.ofNullable(entry.averageRating()).orElse(0.0))
+                        .thenComparing(Entry::id))
+                .toList();
+
+        int from = Math.min(request.getPage() * request.getSize(), matches.size());
+        int to = Math.min(from + request.getSize(), matches.size());
+        List<SearchHitResponse> hits = matches.subList(from, to).stream()
+                .map(entry -> {
+                    SearchHitResponse hit = toHit.apply(entry.document());
+                    hit.setScore(scores.get(entry.id()));
+                    return hit;
+                })
+                .toList();
+
+        return SearchResponse.builder()
+                .currentPage(request.getPage())
+                .pageSize(request.getSize())
+                .totalElements(matches.size())
+                .totalPages((matches.size() + request.getSize() - 1) / request.getSize())
+                .data(hits)
+                .facets(facets(matches, byYear))
+                .build();
+    }
+
+    private boolean matchesFilters(Entry<?> entry, SearchRequest request, boolean byYear) {
+        if (request.getGenres() != null && !request.getGenres().isEmpty()
+                && (entry.genres() == null || Collections.disjoint(entry.genres(), request.getGenres()))) {
+            return false;
+        }
+        if (request.getCountries() != null && !request.getCountries().isEmpty()
+                && !request.getCountries().contains(entry.country())) {
+            return false;
+        }
+        if (!byYear) {
+            return true;
+        }
+        Integer year = entry.releaseYear();
+        if (request.getYearFrom() != null && (year == null || year < request.getYearFrom())) {
+            return false;
+        }
+        return request.getYearTo() == null || (year != null && year <= request.getYearTo());
+    }
+
+    private Map<String, List<FacetBucket>> facets(List<? extends Entry<?>> matches, boolean byYear) {
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        facets.put(FACET_GENRES, buckets(matches.stream()
+                .flatMap(entry -> Optional.ofNullable(entry.genres()).orElse(Set.of()).stream())));
+        facets.put(FACET_COUNTRIES, buckets(matches.stream().map(Entry::country)));
+        if (byYear) {
+            facets.put(FACET_YEARS, buckets(matches.stream()
+                    .map(Entry::releaseYear)
+                    .filter(Objects::nonNull)
+                    .map(String::valueOf)));
+        }
+        return facets;
+    }
+
+    private List<FacetBucket> buckets(Stream<String> values) {
+        return values.filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(FACET_SIZE)
+                .map(entry -> new FacetBucket(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private Entry<MovieDocument> movieEntry(MovieDocument document) {
+        return new Entry<>(document, document.getId(), document.getTitle(), document.getDescription(),
+                document.getGenres(), document.getCountry(), document.getReleaseYear(), document.getAverageRating());
+    }
+
+    private Entry<SeriesDocument> seriesEntry(SeriesDocument document) {
+        // Season titles are searchable alongside the description
+        String seasons = document.getSeasonTitles() == null ? "" : String.join(" ", document.getSeasonTitles());
+        String description = document.getDescription() == null ? seasons : document.getDescription() + " " + seasons;
+        return new Entry<>(document, document.getId(), document.getTitle(), description,
+                document.getGenres(), document.getCountry(), null, document.getAverageRating());
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Documents of one type and their postings. Not thread-safe; callers hold the engine lock.
+     */
+    static final class TextIndex<D> {
+        final Map<String, Entry<D>> entries = new HashMap<>();
+        // term -> document id -> frequencies; sorted so prefix lookups are a range scan
+        final NavigableMap<String, Map<String, Posting>> postings = new TreeMap<>();
+
+        void add(Entry<D> entry) {
+            remove(entry.id());
+            entries.put(entry.id(), entry);
+
+            Map<String, Integer> titleCounts = countTerms(entry.title());
+            Map<String, Integer> descriptionCounts = countTerms(entry.description());
+            Set<String> terms = new HashSet<>(titleCounts.keySet());
+            terms.addAll(descriptionCounts.keySet());
+
+            for (String term : terms) {
+                postings.computeIfAbsent(term, key -> new HashMap<>())
+                        .put(entry.id(), new Posting(titleCounts.getOrDefault(term, 0), descriptionCounts.getOrDefault(term, 0)));
+            }
+        }
+
+        void remove(String id) {
+            Entry<D> previous = entries.remove(id);
+            if (previous == null) {
+                return;
+            }
+
+            Set<String> terms = new HashSet<>(TextNormalizer.tokenize(previous.title()));
+            terms.addAll(TextNormalizer.tokenize(previous.description()));
+            for (String term : terms) {
+                Map<String, Posting> termPostings = postings.get(term);
+                if (termPostings != null) {
+                    termPostings.remove(id);
+                    if (termPostings.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns every matching document with its score; an empty query matches everything with score 0.
+         */
+        Map<String, Double> score(List<String> queryTerms) {
+            Map<String, Double> scores = new HashMap<>();
+            if (queryTerms.isEmpty()) {
+                entries.keySet().forEach(id -> scores.put(id, 0.0));
+                return scores;
+            }
+
+            int documentCount = Math.max(1, entries.size());
+            for (int i = 0; i < queryTerms.size(); i++) {
+                String queryTerm = queryTerms.get(i);
+                boolean last = i == queryTerms.size() - 1;
+
+                for (Map.Entry<String, Double> expansion : expand(queryTerm, last).entrySet()) {
+                    Map<String, Posting> termPostings = postings.get(expansion.getKey());
+                    double idf = Math.log(1.0 + (double) documentCount / termPostings.size());
+
+                    termPostings.forEach((id, posting) -> {
+                        double tf = TITLE_WEIGHT * Math.log1p(posting.titleFrequency()) + Math.log1p(posting.descriptionFrequency());
+                        scores.merge(id, expansion.getValue() * idf * tf, Double::sum);
+                    });
+                }
+            }
+            return scores;
+        }
+
+        /**
+         * Maps a query term to the indexed terms it should match and the weight of each.
+         */
+        private Map<String, Double> expand(String queryTerm, boolean last) {
+            Map<String, Double> terms = new HashMap<>();
+            if (postings.containsKey(queryTerm)) {
+                terms.put(queryTerm, 1.0);
+            }
+
+            if (last && queryTerm.length() >= MIN_PREFIX_LENGTH) {
+                postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false)
+                        .keySet()
+                        .forEach(term -> terms.putIfAbsent(term, PREFIX_WEIGHT));
+            }
+
+            int maxEdits = maxEdits(queryTerm);
+            if (terms.isEmpty() && maxEdits > 0) {
+                for (String term : postings.keySet()) {
+                    if (Math.abs(term.length() - queryTerm.length()) <= maxEdits
+                            && term.charAt(0) == queryTerm.charAt(0)
+                            && editDistance(queryTerm, term, maxEdits) <= maxEdits) {
+                        terms.put(term, FUZZY_WEIGHT);
+                    }
+                }
+            }
+            return terms;
+        }
+
+        // Same thresholds as Elasticsearch's fuzziness AUTO
+        private static int maxEdits(String term) {
+            if (term.length() < 3) {
+                return 0;
+            }
+            return term.length() < 6 ? 1 : 2;
+        }
+
+        /**
+         * Levenshtein distance, giving up early (returning limit + 1) once every cell of a row exceeds the limit.
+         */
+        private static int editDistance(String a, String b, int limit) {
+            int[] previous = new int[b.length() + 1];
+            int[] current = new int[b.length() + 1];
+            for (int j = 0; j <= b.length(); j++) {
+                previous[j] = j;
+            }
+
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                int rowMin = current[0];
+                for (int j = 1; j <= b.length(); j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                    rowMin = Math.min(rowMin, current[j]);
+                }
+                if (rowMin > limit) {
+                    return limit + 1;
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return previous[b.length()];
+        }
+
+        private static Map<String, Integer> countTerms(String text) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (String token : TextNormalizer.tokenize(text)) {
+                counts.merge(token, 1, Integer::sum);
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package movies.service.search;
+
+import movies.document.MovieDocument;
+import movies.document.SeriesDocument;
+import movies.dto.request.search.SearchRequest;
+import movies.dto.response.search.SearchResponse;
+import movies.dto.response.search.UnifiedSearchResponse;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Backend behind {@code /search}: Elasticsearch when {@code elasticsearch.enabled=true}, otherwise an in-process
+ * inverted index with the same ranking rules in spirit (title over description, typo tolerant) and the same facets.
+ */
+public interface SearchEngine {
+    String FACET_GENRES = "genres";
+    String FACET_COUNTRIES = "countries";
+    String FACET_YEARS = "years";
+    int FACET_SIZE = 20;
+
+    SearchResponse search(SearchRequest request);
+
+    /**
+     * Searches movies and series with the same query in one round trip. Year filters apply to movies only.
+     */
+    UnifiedSearchResponse searchAll(SearchRequest request);
+
+    void indexAll(Collection<MovieDocument> documents);
+
+    void deleteAll(Collection<String> ids);
+
+    void indexAllSeries(Collection<SeriesDocument> documents);
+
+    void deleteAllSeries(Collection<String> ids);
+
+    /**
+     * Builds a fresh index from whatever {@code loader} writes and swaps it in once the loader returns, so searches
+     * keep hitting the old index until the new one is complete. Writes made through this engine meanwhile reach both.
+     */
+    void rebuild(Consumer<IndexWriter> loader);
+
+    /**
+     * Whether the index is missing or not yet in its current layout and should be rebuilt from the database.
+     */
+    boolean needsRebuild();
+
+    interface IndexWriter {
+        void movies(Collection<MovieDocument> documents);
+
+        void series(Collection<SeriesDocument> documents);
+    }
+}
@@ -0,0 +1,38 @@
+package movies.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds text the way the in-process index compares it: lower case, diacritics stripped (Vietnamese included, so
+ * "Hà Nội" and "ha noi" match) and split on anything that is not a letter or digit.
+ */
+public final class TextNormalizer {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        // đ has no decomposition, so it survives NFD and is folded by hand
+        return DIACRITICS.matcher(decomposed).replaceAll("").replace('đ', 'd');
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,300 @@
+package movies.service.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedSearch;
+import movies.dto.response.search.SuggestionResponse;
+import movies.repository.MovieRepository;
+import movies.repository.SeriesRepository;
+import movies.repository.SuggestionRow;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Title suggestions for search-as-you-type, answered from memory without touching the database.
+ * <p>
+ * Every title is folded by {@link TextNormalizer} and stored under one key per word start ("ha noi mua dong" is also
+ * reachable as "noi mua dong" and "mua dong"), in one sorted array, so all keys with a given prefix are a contiguous
+ * range found by binary search. Ranking is by popularity (watches, then ratings weighted by their average), with a
+ * boost when the prefix matches the start of the title. A segment tree over the key weights finds the best keys of any
+ * range without scanning it, so a short prefix covering most of the catalog is ranked as exactly as a long one. One-
+ * and two-character prefixes are asked for most, so their answers are precomputed. The snapshot is immutable and
+ * rebuilt on a schedule, so lookups take no locks.
+ */
+@Component
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TitleSuggester {
+    public static final int MAX_LIMIT = 20;
+    static final int PRECOMPUTED_PREFIX_LENGTH = 2;
+    static final int MAX_WORD_STARTS = 8;
+    static final double TITLE_START_BOOST = 2.0;
+    static final String METRIC_PREFIX = "search.suggest";
+
+    MovieRepository movieRepository;
+    SeriesRepository seriesRepository;
+    TransactionTemplate transactionTemplate;
+    Timer buildTimer;
+    Timer lookupTimer;
+
+    @NonFinal
+    volatile Snapshot snapshot = Snapshot.build(List.of());
+
+    public TitleSuggester(MovieRepository movieRepository, SeriesRepository seriesRepository,
+                          TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.movieRepository = movieRepository;
+        this.seriesRepository = seriesRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setReadOnly(true);
+
+        this.buildTimer = Timer.builder(METRIC_PREFIX + ".build")
+                .description("Time to rebuild the title suggestion index")
+                .register(meterRegistry);
+        this.lookupTimer = Timer.builder(METRIC_PREFIX + ".lookup")
+                .description("Time to answer one suggestion request")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".keys", this, suggester -> suggester.snapshot.keys.length)
+                .description("Keys held by the title suggestion index")
+                .register(meterRegistry);
+    }
+
+    public List<SuggestionResponse> suggest(String query, int limit) {
+        String prefix = String.join(" ", TextNormalizer.tokenize(query));
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        int size = Math.max(1, Math.min(MAX_LIMIT, limit));
+        return lookupTimer.record(() -> snapshot.lookup(prefix, size));
+    }
+
+    @Scheduled(fixedDelayString = "${spring.search.suggest.refresh:5m}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        List<Entry> entries = transactionTemplate.execute(status -> {
+            List<Entry> loaded = new ArrayList<>();
+            try (Stream<SuggestionRow> movies = movieRepository.streamSuggestionRows()) {
+                movies.forEach(row -> loaded.add(Entry.of(PredefinedSearch.AGGREGATE_MOVIE, row)));
+            }
+            try (Stream<SuggestionRow> series = seriesRepository.streamSuggestionRows()) {
+                series.forEach(row -> loaded.add(Entry.of(PredefinedSearch.AGGREGATE_SERIES, row)));
+            }
+            return loaded;
+        });
+
+        Snapshot built = Snapshot.build(entries == null ? List.of() : entries);
+        snapshot = built;
+        long elapsed = System.nanoTime() - start;
+        buildTimer.record(Duration.ofNanos(elapsed));
+        log.debug("Rebuilt title suggestions: {} title(s), {} key(s) in {} ms",
+                built.suggestions.length, built.keys.length, elapsed / 1_000_000);
+    }
+
+    record Entry(SuggestionResponse suggestion, List<String> tokens, double popularity) {
+        static Entry of(String type, SuggestionRow row) {
+            double rating = row.getAverageRating() == null ? 0.0 : row.getAverageRating();
+            long ratings = row.getRatingCount() == null ? 0 : row.getRatingCount();
+            long watches = row.getWatchCount() == null ? 0 : row.getWatchCount();
+            double popularity = Math.log1p(watches) + Math.log1p(ratings) * rating / 5.0;
+
+            SuggestionResponse suggestion = new SuggestionResponse(type, row.getId(), row.getTitle(), row.getPosterUrl());
+            return new Entry(suggestion, TextNormalizer.tokenize(row.getTitle()), popularity);
+        }
+    }
+
+    /**
+     * Parallel arrays sorted by key: {@code keys[i]} belongs to title {@code owners[i]} and ranks with
+     * {@code weights[i]}.
+     */
+    static final class Snapshot {
+        final String[] keys;
+        final int[] owners;
+        final double[] weights;
+        final SuggestionResponse[] suggestions;
+        // Segment tree over key positions; each node holds the best key of its range, leaves start at keys.length
+        final int[] best;
+        // Best titles, best first, for every prefix of up to PRECOMPUTED_PREFIX_LENGTH characters
+        final Map<String, int[]> shortPrefixes;
+
+        private Snapshot(String[] keys, int[] owners, double[] weights, SuggestionResponse[] suggestions) {
+            this.keys = keys;
+            this.owners = owners;
+            this.weights = weights;
+            this.suggestions = suggestions;
+            this.best = buildTree();
+            this.shortPrefixes = precompute();
+        }
+
+        static Snapshot build(List<Entry> entries) {
+            List<String> keyList = new ArrayList<>();
+            List<Integer> ownerList = new ArrayList<>();
+            List<Double> weightList = new ArrayList<>();
+            SuggestionResponse[] suggestions = new SuggestionResponse[entries.size()];
+
+            for (int owner = 0; owner < entries.size(); owner++) {
+                Entry entry = entries.get(owner);
+                suggestions[owner] = entry.suggestion();
+                List<String> tokens = entry.tokens();
+                for (int start = 0; start < Math.min(tokens.size(), MAX_WORD_STARTS); start++) {
+                    keyList.add(String.join(" ", tokens.subList(start, tokens.size())));
+                    ownerList.add(owner);
+                    // +1 so unrated, unwatched titles still get the title-start boost
+                    weightList.add((entry.popularity() + 1.0) * (start == 0 ? TITLE_START_BOOST : 1.0));
+                }
+            }
+
+            Integer[] order = IntStream.range(0, keyList.size()).boxed().toArray(Integer[]::new);
+            Arrays.sort(order, Comparator.comparing(keyList::get));
+
+            String[] keys = new String[order.length];
+            int[] owners = new int[order.length];
+            double[] weights = new double[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyList.get(order[i]);
+                owners[i] = ownerList.get(order[i]);
+                weights[i] = weightList.get(order[i]);
+            }
+            return new Snapshot(keys, owners, weights, suggestions);
+        }
+
+        List<SuggestionResponse> lookup(String prefix, int limit) {
+            int[] ranked;
+            if (prefix.length() <= PRECOMPUTED_PREFIX_LENGTH) {
+                ranked = shortPrefixes.getOrDefault(prefix, new int[0]);
+            } else {
+                // Every key starting with the prefix sorts before prefix + U+FFFF
+                ranked = rank(lowerBound(prefix), lowerBound(prefix + Character.MAX_VALUE), limit);
+            }
+
+            List<SuggestionResponse> result = new ArrayList<>(Math.min(limit, ranked.length));
+            for (int i = 0; i < ranked.length && i < limit; i++) {
+                result.add(suggestions[ranked[i]]);
+            }
+            return result;
+        }
+
+        /**
+         * Titles owning the keys in [from, to), best first, each title once under its best key. The best key of the
+         * range is taken from the tree, and the range is split around it; only as many keys are visited as it takes
+         * to find {@code limit} distinct titles, at most MAX_WORD_STARTS per title.
+         */
+        private int[] rank(int from, int to, int limit) {
+            // {from, to, best key}, best key first
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> a[2] == b[2] ? 0 : better(a[2], b[2]) == a[2] ? -1 : 1);
+            addRange(ranges, from, to);
+
+            Set<Integer> titles = new LinkedHashSet<>();
+            while (!ranges.isEmpty() && titles.size() < limit) {
+                int[] range = ranges.poll();
+                int key = range[2];
+                titles.add(owners[key]);
+                addRange(ranges, range[0], key);
+                addRange(ranges, key + 1, range[1]);
+            }
+            return titles.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private void addRange(PriorityQueue<int[]> ranges, int from, int to) {
+            if (from < to) {
+                ranges.add(new int[]{from, to, bestIn(from, to)});
+            }
+        }
+
+        /**
+         * The better of two keys: higher weight, then shorter title, then earlier key; -1 stands for no key.
+         */
+        private int better(int a, int b) {
+            if (a < 0 || b < 0) {
+                return a < 0 ? b : a;
+            }
+            if (weights[a] != weights[b]) {
+                return weights[a] > weights[b] ? a : b;
+            }
+            int lengthA = suggestions[owners[a]].getTitle().length();
+            int lengthB = suggestions[owners[b]].getTitle().length();
+            if (lengthA != lengthB) {
+                return lengthA < lengthB ? a : b;
+            }
+            return Math.min(a, b);
+        }
+
+        private int[] buildTree() {
+            int n = keys.length;
+            int[] tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int node = n - 1; node > 0; node--) {
+                tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+            }
+            return tree;
+        }
+
+        private int bestIn(int from, int to) {
+            int n = keys.length;
+            int result = -1;
+            for (int low = from + n, high = to + n; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) {
+                    result = better(result, best[low++]);
+                }
+                if ((high & 1) == 1) {
+                    result = better(result, best[--high]);
+                }
+            }
+            return result;
+        }
+
+        private Map<String, int[]> precompute() {
+            Map<String, int[]> ranked = new HashMap<>();
+            for (int length = 1; length <= PRECOMPUTED_PREFIX_LENGTH; length++) {
+                int from = 0;
+                while (from < keys.length) {
+                    if (keys[from].length() < length) {
+                        from++;
+                        continue;
+                    }
+                    String prefix = keys[from].substring(0, length);
+                    int to = from + 1;
+                    while (to < keys.length && keys[to].startsWith(prefix)) {
+                        to++;
+                    }
+                    ranked.put(prefix, rank(from, to, MAX_LIMIT));
+                    from = to;
+                }
+            }
+            return ranked;
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package movies.utils;
+
+import movies.dto.response.CursorPageResponse;
+import movies.exception.AppException;
+import movies.exception.ErrorCodes;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+@Component
+public class CursorUtils {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Start key of the first page of a newest-first listing; later than any real createdAt
+    static final LocalDateTime NEWEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    static final char FORWARD = '>';
+    static final char BACKWARD = '<';
+    static final String SEPARATOR = "|";
+
+    /**
+     * Position in a listing ordered by (createdAt, id) descending. A backward key asks for the page before it.
+     */
+    public record SeekKey(LocalDateTime createdAt, String id, boolean backward) {
+        public boolean isFirstPage() {
+            return id.isEmpty();
+        }
+    }
+
+    /**
+     * Encode the sort key of the last row of a page as an opaque cursor
+     *
+     * @param key the sort key
+     * @return a URL-safe cursor
+     */
+    public String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encode(String)}
+     *
+     * @param cursor the cursor sent by the client, may be null for the first page
+     * @return the sort key to seek after, empty for the first page
+     */
+    public String decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return "";
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCodes.INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * Decode a cursor produced by {@link #toSeekPage}
+     *
+     * @param cursor the cursor sent by the client, may be null for the first page
+     * @return the key to seek from
+     */
+    public SeekKey decodeSeekKey(String cursor) {
+        String raw = decode(cursor);
+        if (raw.isEmpty()) {
+            return new SeekKey(NEWEST, "", false);
+        }
+
+        int separator = raw.indexOf(SEPARATOR);
+        char direction = raw.charAt(0);
+        if (separator < 2 || (direction != FORWARD && direction != BACKWARD) || separator == raw.length() - 1) {
+            throw new AppException(ErrorCodes.INVALID_CURSOR);
+        }
+        try {
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(1, separator));
+            return new SeekKey(createdAt, raw.substring(separator + 1), direction == BACKWARD);
+        } catch (DateTimeParseException e) {
+            throw new AppException(ErrorCodes.INVALID_CURSOR);
+        }
+    }
+
+    /**
+     * Clamp a requested page size into [1, MAX_PAGE_SIZE]
+     */
+    public int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(MAX_PAGE_SIZE, size));
+    }
+
+    /**
+     * Limit for a seek query: one row more than the page, so the extra row tells whether a next page exists
+     */
+    public Pageable seekLimit(int size) {
+        return PageRequest.ofSize(size + 1);
+    }
+
+    /**
+     * Build a page from the rows of a seek query run with {@link #seekLimit(int)}
+     *
+     * @param rows   the rows returned, at most size + 1
+     * @param size   the page size
+     * @param keyOf  extracts the sort key of a row
+     * @param mapper maps the rows of the page to response DTOs
+     * @return the page with a cursor to the next one
+     */
+    public <E, T> CursorPageResponse<T> toPage(List<E> rows, int size,
+                                               Function<E, String> keyOf, Function<List<E>, List<T>> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+
+        return CursorPageResponse.<T>builder()
+                .pageSize(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? encode(keyOf.apply(page.get(page.size() - 1))) : null)
+                .data(mapper.apply(page))
+                .build();
+    }
+
+    /**
+     * Build a page from the rows of a (createdAt, id) seek query run with {@link #seekLimit(int)}.
+     * Forward queries return rows newest first; backward queries return them oldest first and are flipped here.
+     *
+     * @param rows        the rows returned, at most size + 1
+     * @param size        the page size
+     * @param key         the key the query seeked from
+     * @param createdAtOf extracts createdAt of a row
+     * @param idOf        extracts the id of a row
+     * @param mapper      maps the rows of the page to response DTOs
+     * @return the page with cursors to its neighbours
+     */
+    public <E, T> CursorPageResponse<T> toSeekPage(List<E> rows, int size, SeekKey key,
+                                                   Function<E, LocalDateTime> createdAtOf, Function<E, String> idOf,
+                                                   Function<List<E>, List<T>> mapper) {
+        boolean more = rows.size() > size;
+        List<E> page = new ArrayList<>(more ? rows.subList(0, size) : rows);
+
+        boolean hasNext;
+        boolean hasPrevious;
+        if (key.backward()) {
+            Collections.reverse(page);
+            hasNext = true;
+            hasPrevious = more;
+        } else {
+            hasNext = more;
+            hasPrevious = !key.isFirstPage();
+        }
+
+        if (page.isEmpty()) {
+            return CursorPageResponse.<T>builder().pageSize(size).build();
+        }
+
+        E first = page.get(0);
+        E last = page.get(page.size() - 1);
+        return CursorPageResponse.<T>builder()
+                .pageSize(size)
+                .hasNext(hasNext)
+                .hasPrevious(hasPrevious)
+                .nextCursor(hasNext ? encodeSeekKey(createdAtOf.apply(last), idOf.apply(last), FORWARD) : null)
+                .prevCursor(hasPrevious ? encodeSeekKey(createdAtOf.apply(first), idOf.apply(first), BACKWARD) : null)
+                .data(mapper.apply(page))
+                .build();
+    }
+
+    private String encodeSeekKey(LocalDateTime createdAt, String id, char direction) {
+        return encode(direction + createdAt.toString() + SEPARATOR + id);
+    }
+}
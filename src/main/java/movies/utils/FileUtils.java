@@ -48,6 +48,31 @@ public class FileUtils {
         return targetLocation;
     }
 
+    /**
+     * Stage an upload in a temp file without reading it into memory.
+     * Multipart parts are already spooled to disk by the servlet container, so this is a rename or a
+     * buffered stream copy, never a full in-heap read.
+     *
+     * @param file the uploaded file
+     * @return the path of the staged temp file, owned by the caller
+     * @throws IOException if an I/O error occurs
+     */
+    public Path stageUpload(MultipartFile file) throws IOException {
+        String originalFilename = file.getOriginalFilename();
+        String extension = originalFilename != null && originalFilename.contains(".")
+                ? originalFilename.substring(originalFilename.lastIndexOf("."))
+                : null;
+
+        Path staged = Files.createTempFile("upload-", extension);
+        try {
+            file.transferTo(staged.toFile());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+        return staged;
+    }
+
     /**
      * Delete a file
      *
@@ -0,0 +1,86 @@
+package movies.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class NdjsonWriter {
+    static final int FLUSH_EVERY = 100;
+
+    EntityManager entityManager;
+    ObjectMapper objectMapper;
+
+    /**
+     * Write a streamed query result as newline-delimited JSON, one object per line.
+     * Must run inside the (read-only) transaction that opened the stream. The persistence context is cleared every
+     * {@value #FLUSH_EVERY} rows, so memory stays flat however many rows are exported.
+     *
+     * @param rows   the streamed entities, closed when done
+     * @param mapper maps an entity to its response DTO
+     * @param out    the response body
+     * @throws IOException if the client goes away
+     */
+    public <E, T> void write(Stream<E> rows, Function<E, T> mapper, OutputStream out) throws IOException {
+        try (rows) {
+            int written = 0;
+            Iterator<E> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(mapper.apply(iterator.next())));
+                out.write('\n');
+
+                if (++written % FLUSH_EVERY == 0) {
+                    out.flush();
+                    entityManager.clear();
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Write rows whose responses need associations, as newline-delimited JSON. Only the ids are streamed; every
+     * {@value #FLUSH_EVERY} ids are loaded together by {@code loader} (a fetch-planned batch query), so associations
+     * cost a few queries per chunk instead of several per row. Must run inside the (read-only) transaction that
+     * opened the stream.
+     *
+     * @param ids    the streamed ids, closed when done
+     * @param loader loads the entities of one chunk of ids, in order
+     * @param mapper maps an entity to its response DTO
+     * @param out    the response body
+     * @throws IOException if the client goes away
+     */
+    public <E, T> void writeInChunks(Stream<String> ids, Function<List<String>, List<E>> loader,
+                                     Function<E, T> mapper, OutputStream out) throws IOException {
+        try (ids) {
+            List<String> chunk = new ArrayList<>(FLUSH_EVERY);
+            Iterator<String> iterator = ids.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == FLUSH_EVERY || !iterator.hasNext()) {
+                    for (E row : loader.apply(chunk)) {
+                        out.write(objectMapper.writeValueAsBytes(mapper.apply(row)));
+                        out.write('\n');
+                    }
+                    out.flush();
+                    entityManager.clear();
+                    chunk.clear();
+                }
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package movies.listener;
+
+import event.dto.ImageUploadEvent;
+import event.dto.NotificationEvent;
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import movies.config.KafkaConfig;
+import movies.constant.PredefinedTopic;
+import movies.exception.AppException;
+import movies.exception.ErrorCodes;
+import movies.repository.MovieRepository;
+import movies.service.EmailService;
+import movies.service.ImageService;
+import movies.service.MailDispatcher;
+import movies.service.VideoService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the Kafka listeners against an embedded broker with the real {@link KafkaConfig}: batch consumption of
+ * notifications, retry with back-off, routing to {@code <topic>.DLT} and skipping records that cannot be read. The
+ * services behind the listeners are mocks, so the throughput figure logged is that of Kafka and the listener alone.
+ */
+@Slf4j
+@SpringBootTest(classes = {KafkaConfig.class, NotificationKafkaListener.class}, properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.retry.initial-interval=50ms",
+        "spring.kafka.retry.max-interval=100ms",
+        "spring.kafka.retry.max-elapsed=1s"
+})
+@ImportAutoConfiguration(KafkaAutoConfiguration.class)
+@EmbeddedKafka(partitions = 3, topics = {
+        PredefinedTopic.EMAIL_NOTIFICATIONS, PredefinedTopic.EMAIL_NOTIFICATIONS + PredefinedTopic.DEAD_LETTER_SUFFIX,
+        PredefinedTopic.IMAGE_UPLOAD, PredefinedTopic.IMAGE_UPLOAD + PredefinedTopic.DEAD_LETTER_SUFFIX,
+        PredefinedTopic.VIDEO_UPLOAD, PredefinedTopic.VIDEO_UPLOAD + PredefinedTopic.DEAD_LETTER_SUFFIX})
+class NotificationKafkaListenerTest {
+    static final int THROUGHPUT_EVENTS = 5_000;
+    // Creating a session loads the mail providers, which would dominate the timing if done per message
+    static final Session MAIL_SESSION = Session.getInstance(new Properties());
+
+    @Autowired
+    KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    KafkaListenerEndpointRegistry registry;
+
+    @MockitoBean
+    EmailService emailService;
+
+    @MockitoBean
+    MailDispatcher mailDispatcher;
+
+    @MockitoBean
+    ImageService imageService;
+
+    @MockitoBean
+    VideoService videoService;
+
+    @MockitoBean
+    MovieRepository movieRepository;
+
+    // Recipient or movie id -> times the mocked service was called with it
+    Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        calls.clear();
+
+        when(emailService.composeTokenEmail(anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> email(invocation.getArgument(0)));
+        when(mailDispatcher.send(any())).thenAnswer(invocation -> {
+            String recipient = ((MimeMessage) invocation.getArgument(0)).getAllRecipients()[0].toString();
+            count(recipient);
+            return recipient.startsWith("bounce")
+                    ? CompletableFuture.failedFuture(new MailSendException("mailbox full"))
+                    : CompletableFuture.completedFuture(null);
+        });
+        doAnswer(invocation -> {
+            String movieId = ((ImageUploadEvent) invocation.getArgument(0)).getMovieId();
+            int attempt = count(movieId);
+            if (movieId.startsWith("missing")) {
+                throw new AppException(ErrorCodes.MOVIE_NOT_EXISTED);
+            }
+            if (movieId.startsWith("flaky") && attempt < 3) {
+                throw new IOException("upload timed out");
+            }
+            return null;
+        }).when(imageService).uploadImageFromEvent(any());
+
+        registry.getListenerContainers().forEach(container ->
+                ContainerTestUtils.waitForAssignment(container, embeddedKafka.getPartitionsPerTopic()));
+    }
+
+    @Test
+    void notificationBatchThroughput() {
+        String run = UUID.randomUUID().toString();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < THROUGHPUT_EVENTS; i++) {
+            String recipient = "load-" + run + "-" + i + "@example.com";
+            kafkaTemplate.send(PredefinedTopic.EMAIL_NOTIFICATIONS, recipient, notification(recipient));
+        }
+        kafkaTemplate.flush();
+        long produced = System.nanoTime();
+
+        await().atMost(Duration.ofMinutes(1)).until(() -> delivered("load-" + run) >= THROUGHPUT_EVENTS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("Notifications: {} events produced in {} ms, produced and consumed in {} ms, {} events/s",
+                THROUGHPUT_EVENTS, (produced - start) / 1_000_000, Math.round(seconds * 1000),
+                Math.round(THROUGHPUT_EVENTS / seconds));
+        assertThat(delivered("load-" + run)).isEqualTo(THROUGHPUT_EVENTS);
+    }
+
+    @Test
+    void failedSendIsDeadLetteredOnceAndTheRestOfTheBatchGoesOut() {
+        String bounced = "bounce-" + UUID.randomUUID() + "@example.com";
+        String fine = "fine-" + UUID.randomUUID() + "@example.com";
+
+        kafkaTemplate.send(PredefinedTopic.EMAIL_NOTIFICATIONS, bounced, notification(bounced));
+        kafkaTemplate.send(PredefinedTopic.EMAIL_NOTIFICATIONS, fine, notification(fine));
+
+        ConsumerRecord<String, String> deadLetter = awaitDeadLetter(PredefinedTopic.EMAIL_NOTIFICATIONS,
+                record -> bounced.equals(record.key()));
+
+        assertThat(header(deadLetter, KafkaHeaders.DLT_ORIGINAL_TOPIC)).isEqualTo(PredefinedTopic.EMAIL_NOTIFICATIONS);
+        assertThat(header(deadLetter, KafkaHeaders.DLT_EXCEPTION_FQCN)).isEqualTo(MailSendException.class.getName());
+        await().atMost(Duration.ofSeconds(30)).until(() -> delivered(fine) == 1);
+        // The dispatcher retries on its own; the listener must not send the message again
+        assertThat(delivered(bounced)).isEqualTo(1);
+    }
+
+    @Test
+    void unreadableRecordIsDeadLetteredWithoutBlockingThePartition() {
+        String poisonKey = "poison-" + UUID.randomUUID();
+        String fine = "after-poison-" + UUID.randomUUID() + "@example.com";
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(embeddedKafka);
+        try (Producer<String, String> producer =
+                     new KafkaProducer<>(producerProps, new StringSerializer(), new StringSerializer())) {
+            producer.send(new ProducerRecord<>(PredefinedTopic.EMAIL_NOTIFICATIONS, 0, poisonKey, "{not json"));
+            producer.flush();
+        }
+        kafkaTemplate.send(PredefinedTopic.EMAIL_NOTIFICATIONS, 0, fine, notification(fine));
+
+        ConsumerRecord<String, String> deadLetter = awaitDeadLetter(PredefinedTopic.EMAIL_NOTIFICATIONS,
+                record -> poisonKey.equals(record.key()));
+
+        assertThat(header(deadLetter, KafkaHeaders.DLT_EXCEPTION_FQCN))
+                .isEqualTo(DeserializationException.class.getName());
+        await().atMost(Duration.ofSeconds(30)).until(() -> delivered(fine) == 1);
+    }
+
+    @Test
+    void transientFailureIsRetriedWithBackOff() {
+        String movieId = "flaky-" + UUID.randomUUID();
+
+        kafkaTemplate.send(PredefinedTopic.IMAGE_UPLOAD, movieId, imageUpload(movieId));
+
+        await().atMost(Duration.ofSeconds(30)).until(() -> delivered(movieId) == 3);
+        // Give a fourth delivery the chance to happen if the success were not committed
+        await().during(500, TimeUnit.MILLISECONDS).until(() -> delivered(movieId) == 3);
+    }
+
+    @Test
+    void rejectedEventSkipsRetriesAndGoesToTheDeadLetterTopic() {
+        String movieId = "missing-" + UUID.randomUUID();
+
+        kafkaTemplate.send(PredefinedTopic.IMAGE_UPLOAD, movieId, imageUpload(movieId));
+
+        ConsumerRecord<String, String> deadLetter = awaitDeadLetter(PredefinedTopic.IMAGE_UPLOAD,
+                record -> movieId.equals(record.key()));
+
+        assertThat(header(deadLetter, KafkaHeaders.DLT_ORIGINAL_TOPIC)).isEqualTo(PredefinedTopic.IMAGE_UPLOAD);
+        assertThat(delivered(movieId)).isEqualTo(1);
+    }
+
+    private ConsumerRecord<String, String> awaitDeadLetter(String topic,
+            Predicate<ConsumerRecord<String, String>> match) {
+        Map<String, Object> consumerProps =
+                KafkaTestUtils.consumerProps("dlt-" + UUID.randomUUID(), "false", embeddedKafka);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, topic + PredefinedTopic.DEAD_LETTER_SUFFIX);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (System.nanoTime() < deadline) {
+                for (ConsumerRecord<String, String> record :
+                        KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(1))) {
+                    if (match.test(record)) {
+                        return record;
+                    }
+                }
+            }
+        }
+        throw new AssertionError("No matching record on " + topic + PredefinedTopic.DEAD_LETTER_SUFFIX);
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private int count(String key) {
+        return calls.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private int delivered(String keyPrefix) {
+        return calls.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(keyPrefix))
+                .mapToInt(entry -> entry.getValue().get())
+                .sum();
+    }
+
+    private static NotificationEvent notification(String recipient) {
+        return NotificationEvent.builder()
+                .channel("EMAIL")
+                .recipient(recipient)
+                .param(Map.of("token", "t", "tokenType", "VERIFICATION"))
+                .build();
+    }
+
+    private static ImageUploadEvent imageUpload(String movieId) {
+        return ImageUploadEvent.builder()
+                .movieId(movieId)
+                .fileName("poster.jpg")
+                .contentType("image/jpeg")
+                .stagingKey(UUID.randomUUID().toString())
+                .fileSize(1)
+                .build();
+    }
+
+    private static MimeMessage email(String recipient) throws Exception {
+        MimeMessage message = new MimeMessage(MAIL_SESSION);
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(recipient));
+        return message;
+    }
+}
@@ -0,0 +1,234 @@
+package movies.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import movies.config.AuditingConfig;
+import movies.dto.response.episode.EpisodeResponse;
+import movies.dto.response.genre.GenreResponse;
+import movies.dto.response.season.SeasonResponse;
+import movies.dto.response.series.SeriesResponse;
+import movies.entity.Episode;
+import movies.entity.Genre;
+import movies.entity.Movie;
+import movies.entity.Season;
+import movies.entity.Series;
+import movies.entity.Video;
+import movies.mapper.EpisodeMapper;
+import movies.mapper.EpisodeMapperImpl;
+import movies.mapper.GenreMapper;
+import movies.mapper.GenreMapperImpl;
+import movies.mapper.SeasonMapper;
+import movies.mapper.SeasonMapperImpl;
+import movies.mapper.SeriesMapper;
+import movies.mapper.SeriesMapperImpl;
+import movies.mapper.VideoMapperImpl;
+import movies.utils.NdjsonWriter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The series, season, episode and genre counterpart of {@link MovieRepositoryFetchPlanTest}: listing pages and
+ * exports cost a fixed handful of statements, not a few per row.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AuditingConfig.class, NdjsonWriter.class, SeriesMapperImpl.class, SeasonMapperImpl.class,
+        EpisodeMapperImpl.class, GenreMapperImpl.class, VideoMapperImpl.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class CatalogFetchPlanTest {
+    static final int SERIES = 10;
+    static final int SEASONS_PER_SERIES = 2;
+    static final int EPISODES_PER_SEASON = 3;
+    static final int MOVIES = 20;
+
+    // Keys, rows with their single-valued and first collection, the second collection
+    static final long PAGE_STATEMENT_BUDGET = 3;
+
+    @Autowired
+    SeriesRepository seriesRepository;
+
+    @Autowired
+    SeasonRepository seasonRepository;
+
+    @Autowired
+    EpisodeRepository episodeRepository;
+
+    @Autowired
+    GenreRepository genreRepository;
+
+    @Autowired
+    SeriesMapper seriesMapper;
+
+    @Autowired
+    SeasonMapper seasonMapper;
+
+    @Autowired
+    EpisodeMapper episodeMapper;
+
+    @Autowired
+    GenreMapper genreMapper;
+
+    @Autowired
+    NdjsonWriter ndjsonWriter;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        List<Genre> genres = new ArrayList<>();
+        for (String name : List.of("Drama", "Comedy", "Crime", "Horror")) {
+            genres.add(entityManager.persist(Genre.builder().name(name).build()));
+        }
+
+        for (int i = 0; i < SERIES; i++) {
+            Series series = entityManager.persist(Series.builder()
+                    .title("Series " + i)
+                    .genres(new HashSet<>(Set.of(genres.get(i % 4), genres.get((i + 1) % 4))))
+                    .build());
+            for (int s = 1; s <= SEASONS_PER_SERIES; s++) {
+                Season season = entityManager.persist(Season.builder()
+                        .seasonNumber(s)
+                        .title("Series " + i + " season " + s)
+                        .series(series)
+                        .build());
+                for (int e = 1; e <= EPISODES_PER_SEASON; e++) {
+                    Episode episode = entityManager.persist(Episode.builder()
+                            .episodeNumber(e)
+                            .title("S" + s + "E" + e)
+                            .season(season)
+                            .build());
+                    entityManager.persist(Video.builder()
+                            .fileName(series.getId() + "-" + s + "-" + e + ".mp4")
+                            .episode(episode)
+                            .build());
+                }
+            }
+        }
+
+        for (int i = 0; i < MOVIES; i++) {
+            Movie movie = entityManager.persist(Movie.builder()
+                    .title("Movie " + i)
+                    .genres(new HashSet<>(Set.of(genres.get(i % 4))))
+                    .build());
+            if (i % 2 == 0) {
+                entityManager.persist(Video.builder().fileName("movie-" + i + ".mp4").movie(movie).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageOfSeriesStaysWithinStatementBudget() {
+        List<SeriesResponse> page = seriesRepository.findPageWithDetails(
+                seriesRepository.findIdsAfter("", PageRequest.ofSize(SERIES))).stream()
+                .map(seriesMapper::toSeriesResponse)
+                .toList();
+
+        assertThat(page).hasSize(SERIES).allSatisfy(series -> {
+            assertThat(series.getGenres()).hasSize(2);
+            assertThat(series.getSeasons()).hasSize(SEASONS_PER_SERIES);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+
+    @Test
+    void pageOfSeasonsStaysWithinStatementBudget() {
+        int size = SERIES * SEASONS_PER_SERIES;
+        List<SeasonResponse> page = seasonRepository.findPageWithDetails(
+                seasonRepository.findIdsAfter("", PageRequest.ofSize(size))).stream()
+                .map(seasonMapper::toSeasonResponse)
+                .toList();
+
+        assertThat(page).hasSize(size).allSatisfy(season -> {
+            assertThat(season.getSeries().getTitle()).startsWith("Series ");
+            assertThat(season.getEpisodes()).hasSize(EPISODES_PER_SEASON)
+                    .allSatisfy(episode -> assertThat(episode.getVideoPaths()).hasSize(1));
+        });
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+
+    @Test
+    void pageOfEpisodesStaysWithinStatementBudget() {
+        int size = SERIES * SEASONS_PER_SERIES * EPISODES_PER_SEASON;
+        List<EpisodeResponse> page = episodeRepository.findPageWithDetails(
+                episodeRepository.findIdsAfter("", PageRequest.ofSize(size))).stream()
+                .map(episodeMapper::toEpisodeResponse)
+                .toList();
+
+        assertThat(page).hasSize(size).allSatisfy(episode -> {
+            assertThat(episode.getSeasonId()).isNotNull();
+            assertThat(episode.getVideoPaths()).hasSize(1);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+
+    @Test
+    void pageOfGenresStaysWithinStatementBudget() {
+        List<GenreResponse> page = genreRepository.findPageWithDetails(
+                genreRepository.findIdsAfter("", PageRequest.ofSize(4))).stream()
+                .map(genreMapper::toGenreResponse)
+                .toList();
+
+        assertThat(page).hasSize(4).allSatisfy(genre -> assertThat(genre.getMovies()).hasSize(MOVIES / 4));
+        // Every series is in two genres
+        assertThat(page.stream().mapToInt(genre -> genre.getSeries().size()).sum()).isEqualTo(SERIES * 2);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+
+    @Test
+    void exportsLoadRowsInChunksNotPerRow() throws IOException {
+        assertExportWithinBudget(seriesRepository.streamIds(), seriesRepository::findPageWithDetails,
+                seriesMapper::toSeriesResponse, SERIES);
+        assertExportWithinBudget(seasonRepository.streamIds(), seasonRepository::findPageWithDetails,
+                seasonMapper::toSeasonResponse, SERIES * SEASONS_PER_SERIES);
+        assertExportWithinBudget(episodeRepository.streamIds(), episodeRepository::findPageWithDetails,
+                episodeMapper::toEpisodeResponse, SERIES * SEASONS_PER_SERIES * EPISODES_PER_SEASON);
+        assertExportWithinBudget(genreRepository.streamIds(), genreRepository::findPageWithDetails,
+                genreMapper::toGenreResponse, 4);
+    }
+
+    private <E, T> void assertExportWithinBudget(Stream<String> ids, Function<List<String>, List<E>> loader,
+                                                 Function<E, T> mapper, int rows) throws IOException {
+        entityManager.clear();
+        statistics.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ndjsonWriter.writeInChunks(ids, loader, mapper, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).hasSize(rows);
+        // Every export here fits in one chunk: the id stream plus the fetch-planned loads of that chunk
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+}
@@ -0,0 +1,200 @@
+package movies.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import movies.config.AuditingConfig;
+import movies.dto.response.movie.MovieResponse;
+import movies.entity.Genre;
+import movies.entity.Image;
+import movies.entity.ImageVariant;
+import movies.entity.Movie;
+import movies.entity.Video;
+import movies.mapper.GenreMapperImpl;
+import movies.mapper.ImageMapperImpl;
+import movies.mapper.MovieMapper;
+import movies.mapper.MovieMapperImpl;
+import movies.mapper.VideoMapperImpl;
+import movies.service.GenreService;
+import movies.service.ImageService;
+import movies.service.MovieService;
+import movies.service.SearchOutboxService;
+import movies.service.VideoService;
+import movies.utils.CursorUtils;
+import movies.utils.NdjsonWriter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Guards the listing fetch plan: a page of movies, mapped to responses with genres, video, images and image
+ * variants, costs the same handful of statements whatever the page size. The search, genre and home-page listings
+ * of {@link MovieService} are held to the same budget.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AuditingConfig.class, NdjsonWriter.class, CursorUtils.class,
+        MovieMapperImpl.class, GenreMapperImpl.class, VideoMapperImpl.class, ImageMapperImpl.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class MovieRepositoryFetchPlanTest {
+    // Keys, movies with genres and video, images, image variants
+    static final long PAGE_STATEMENT_BUDGET = 4;
+
+    @Autowired
+    MovieRepository movieRepository;
+
+    @Autowired
+    MovieMapper movieMapper;
+
+    @Autowired
+    NdjsonWriter ndjsonWriter;
+
+    @Autowired
+    CursorUtils cursorUtils;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+    MovieService movieService;
+    String dramaId;
+
+    @BeforeEach
+    void seed() {
+        movieService = new MovieService(movieRepository, movieMapper, mock(VideoService.class),
+                mock(GenreService.class), mock(ImageService.class), mock(SearchOutboxService.class),
+                mock(KafkaTemplate.class), cursorUtils, ndjsonWriter);
+
+        Genre drama = entityManager.persist(Genre.builder().name("Drama").build());
+        Genre comedy = entityManager.persist(Genre.builder().name("Comedy").build());
+
+        // 20 movies with two images each stay within one image-variant batch
+        for (int i = 0; i < 20; i++) {
+            Movie movie = entityManager.persist(Movie.builder()
+                    .title("Movie " + i)
+                    .genres(new HashSet<>(Set.of(drama, comedy)))
+                    .build());
+
+            for (int j = 0; j < 2; j++) {
+                entityManager.persist(Image.builder()
+                        .fileName("movie-" + i + "-" + j + ".jpg")
+                        .imageType("poster")
+                        .movie(movie)
+                        .variants(new ArrayList<>(List.of(
+                                ImageVariant.builder().name("thumbnail").width(150).url("/t.jpg").build(),
+                                ImageVariant.builder().name("card").width(342).url("/c.jpg").build())))
+                        .build());
+            }
+
+            if (i % 2 == 0) {
+                entityManager.persist(Video.builder().fileName("movie-" + i + ".mp4").movie(movie).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        dramaId = drama.getId();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageOfMoviesStaysWithinStatementBudget() {
+        List<MovieResponse> page = loadPage(20);
+
+        assertThat(page).hasSize(20);
+        assertThat(page).allSatisfy(movie -> {
+            assertThat(movie.getGenres()).hasSize(2);
+            assertThat(movie.getImages()).hasSize(2)
+                    .allSatisfy(image -> assertThat(image.getSrcset()).contains("150w", "342w"));
+        });
+        assertThat(page).filteredOn(movie -> movie.getVideo() != null).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() {
+        loadPage(5);
+        long small = statistics.getPrepareStatementCount();
+
+        entityManager.clear();
+        statistics.clear();
+        loadPage(20);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(small);
+    }
+
+    @Test
+    void exportLoadsMoviesInChunksNotPerRow() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ndjsonWriter.writeInChunks(movieRepository.streamIds(), movieRepository::findPageWithDetails,
+                movieMapper::toMovieResponse, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).hasSize(20);
+        // The id stream plus one fetch-planned chunk, where per-row loading would cost several statements per movie
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+
+    @Test
+    void searchPageStaysWithinStatementBudget() {
+        assertThat(movieService.searchMovies("Movie", null, 20, false).getData()).hasSize(20);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+
+        // The total is one count on top
+        entityManager.clear();
+        statistics.clear();
+        movieService.searchMovies("Movie", null, 20, true);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET + 1);
+    }
+
+    @Test
+    void genrePageStaysWithinStatementBudget() {
+        assertThat(movieService.getMoviesByGenre(dramaId, null, 20, false).getData()).hasSize(20)
+                .allSatisfy(movie -> assertThat(movie.getImages()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+
+    @Test
+    void topRatedListStaysWithinStatementBudget() {
+        assertThat(movieService.getTopRatedMovies()).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+
+    @Test
+    void latestListStaysWithinStatementBudget() {
+        assertThat(movieService.getLatestMovies()).hasSize(10)
+                .allSatisfy(movie -> assertThat(movie.getGenres()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(PAGE_STATEMENT_BUDGET);
+    }
+
+    private List<MovieResponse> loadPage(int size) {
+        List<String> ids = movieRepository.findIdsAfter("", PageRequest.ofSize(size));
+        return movieRepository.findPageWithDetails(ids).stream()
+                .map(movieMapper::toMovieResponse)
+                .toList();
+    }
+}
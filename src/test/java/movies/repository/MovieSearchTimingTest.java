@@ -0,0 +1,155 @@
+package movies.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import movies.config.AuditingConfig;
+import movies.document.MovieDocument;
+import movies.dto.request.search.SearchRequest;
+import movies.entity.Movie;
+import movies.mapper.MovieDocumentMapperImpl;
+import movies.mapper.SeriesDocumentMapperImpl;
+import movies.service.search.InMemorySearchEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times the same single-word queries against the embedded index and against the database search it replaces for
+ * free-text queries ({@link MovieRepository#searchKeysAfter}, a LIKE scan), over one seeded catalogue. Titles draw
+ * from {@link #COMMON_WORDS}, so a title word matches about one movie in seven; descriptions draw from a few thousand
+ * generated words, so a description word matches a few dozen.
+ * <p>
+ * A plain timing run in place of a JMH harness: the percentiles are logged and the bound is loose on purpose. H2 is
+ * not MySQL, so the figures compare the two approaches, not production latencies.
+ */
+@Slf4j
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AuditingConfig.class)
+class MovieSearchTimingTest {
+    static final int MOVIES = 5_000;
+    static final int QUERIES = 500;
+    static final int PAGE_SIZE = 20;
+    static final int RARE_WORDS = 2_000;
+    // No word is a substring of another, so LIKE '%word%' and the token index match the same movies
+    static final String[] COMMON_WORDS = {
+            "ember", "harbor", "violet", "canyon", "meadow", "quartz", "falcon", "lantern", "orchid", "glacier",
+            "thunder", "velvet", "sapphire", "prairie", "tundra", "mosaic", "comet", "willow", "copper", "island"
+    };
+    // Far-future seek key, the first page of a newest-first listing
+    static final LocalDateTime NEWEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Autowired
+    MovieRepository movieRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    InMemorySearchEngine engine = new InMemorySearchEngine(new MovieDocumentMapperImpl(), new SeriesDocumentMapperImpl());
+
+    // Seven random letters each; with these seeds none contains a common word, which the count check below confirms
+    String[] rareWords = new String[RARE_WORDS];
+
+    @BeforeEach
+    void seed() {
+        Random random = new Random(11);
+        for (int i = 0; i < RARE_WORDS; i++) {
+            rareWords[i] = letters(random, 7);
+        }
+
+        List<MovieDocument> documents = new ArrayList<>(MOVIES);
+        for (int i = 0; i < MOVIES; i++) {
+            String title = words(random, COMMON_WORDS, 3);
+            String description = words(random, rareWords, 12);
+            Movie movie = entityManager.persist(Movie.builder().title(title).description(description).build());
+            documents.add(MovieDocument.builder().id(movie.getId()).title(title).description(description).build());
+            if (i % 500 == 499) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        engine.indexAll(documents);
+    }
+
+    @Test
+    void embeddedIndexAgainstDatabaseSearch() {
+        // Both approaches find the same movies
+        for (String word : List.of(COMMON_WORDS[0], rareWords[0])) {
+            assertThat(engine.search(SearchRequest.builder().query(word).build()).getTotalElements())
+                    .as(word).isEqualTo(movieRepository.countSearch(word));
+        }
+
+        compare("broad (title word)", COMMON_WORDS);
+        compare("selective (description word)", rareWords);
+    }
+
+    private void compare(String label, String[] vocabulary) {
+        Random random = new Random(3);
+        List<String> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+
+        Pageable page = PageRequest.ofSize(PAGE_SIZE + 1);
+        long[] database = time(queries, query -> movieRepository.searchKeysAfter(query, NEWEST, "", page));
+        long[] embedded = time(queries, query ->
+                engine.search(SearchRequest.builder().query(query).size(PAGE_SIZE).build()));
+
+        log.info("Search over {} movies, {} {} queries: H2 searchKeysAfter p50 {} us, p99 {} us; "
+                        + "in-memory index p50 {} us, p99 {} us", MOVIES, QUERIES, label,
+                database[QUERIES / 2] / 1_000, database[QUERIES * 99 / 100] / 1_000,
+                embedded[QUERIES / 2] / 1_000, embedded[QUERIES * 99 / 100] / 1_000);
+        assertThat(embedded[QUERIES * 99 / 100]).isLessThan(200_000_000L);
+    }
+
+    private static long[] time(List<String> queries, Consumer<String> search) {
+        // Warm-up, so the timed pass measures compiled code and a warm query plan cache
+        queries.forEach(search);
+
+        long[] nanos = new long[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            search.accept(queries.get(i));
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static String words(Random random, String[] vocabulary, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+    private static String letters(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
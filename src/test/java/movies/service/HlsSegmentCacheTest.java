@@ -0,0 +1,57 @@
+package movies.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HlsSegmentCacheTest {
+    @TempDir
+    Path hlsDir;
+
+    HlsSegmentCache segmentCache = new HlsSegmentCache(true, DataSize.ofMegabytes(1), DataSize.ofKilobytes(64),
+            new SimpleMeterRegistry());
+
+    @Test
+    void admitsASegmentOnlyOnItsSecondRequest() throws IOException {
+        Path segment = segment("seg0.ts", 4096);
+        long lastModified = Files.getLastModifiedTime(segment).toMillis();
+
+        assertThat(segmentCache.get(segment, 4096, lastModified)).isNull();
+        assertThat(segmentCache.residentBytes()).isZero();
+
+        ByteBuffer second = segmentCache.get(segment, 4096, lastModified);
+        assertThat(second).isNotNull();
+        assertThat(second.remaining()).isEqualTo(4096);
+        assertThat(second.isReadOnly()).isTrue();
+
+        assertThat(segmentCache.get(segment, 4096, lastModified)).isEqualTo(second);
+        assertThat(segmentCache.residentBytes()).isEqualTo(4096);
+    }
+
+    @Test
+    void aRewrittenSegmentStartsOverAtTheDoorkeeper() throws IOException {
+        Path segment = segment("seg1.ts", 2048);
+        long lastModified = Files.getLastModifiedTime(segment).toMillis();
+        segmentCache.get(segment, 2048, lastModified);
+        assertThat(segmentCache.get(segment, 2048, lastModified)).isNotNull();
+
+        Files.write(segment, new byte[1024]);
+        assertThat(segmentCache.get(segment, 1024, lastModified + 1)).isNull();
+    }
+
+    private Path segment(String name, int size) throws IOException {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) i;
+        }
+        return Files.write(hlsDir.resolve(name), content);
+    }
+}
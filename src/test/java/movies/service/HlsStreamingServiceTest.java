@@ -0,0 +1,268 @@
+package movies.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import movies.controller.MovieController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Drives the HLS endpoints of {@link MovieController} through MockMvc: full and ranged reads, unsatisfiable ranges,
+ * conditional GET and If-Range, the sendfile hand-off and the segment cache.
+ * <p>
+ * The timing test is a plain timing run in place of a JMH harness. It calls the service directly with a discarding
+ * response, so the figures compare a file read on a warm page cache with the in-memory segment cache.
+ */
+@Slf4j
+class HlsStreamingServiceTest {
+    static final int SEGMENT_BYTES = 32 * 1024;
+    static final int LARGE_SEGMENT_BYTES = 256 * 1024;
+    static final Instant WRITTEN = Instant.parse("2026-01-01T00:00:00Z");
+    static final String SEGMENT_URL = "/movie/videos_hsl/m1/720p/seg0.ts";
+    static final int REQUESTS = 2_000;
+
+    @TempDir
+    Path hlsDir;
+
+    HlsStreamingService service;
+    MockMvc mockMvc;
+    byte[] segment;
+    String etag;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        service = new HlsStreamingService(new HlsSegmentCache(true, DataSize.ofMegabytes(4),
+                DataSize.ofKilobytes(64), new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "playlistMaxAge", 10L);
+        ReflectionTestUtils.setField(service, "segmentMaxAge", 31536000L);
+        MovieController controller = new MovieController(mock(MovieService.class), service);
+        ReflectionTestUtils.setField(controller, "hlsDir", hlsDir.toString());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        segment = write("m1/720p/seg0.ts", SEGMENT_BYTES);
+        write("m1/720p/seg1.ts", LARGE_SEGMENT_BYTES);
+        write("m1/720p/index.m3u8", 64);
+        etag = "\"" + Long.toHexString(SEGMENT_BYTES) + "-" + Long.toHexString(WRITTEN.toEpochMilli()) + "\"";
+    }
+
+    @Test
+    void servesAWholeSegmentWithCacheHeaders() throws Exception {
+        mockMvc.perform(get(SEGMENT_URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, HlsStreamingService.SEGMENT_CONTENT_TYPE))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, SEGMENT_BYTES))
+                .andExpect(content().bytes(segment));
+
+        mockMvc.perform(get("/movie/videos_hsl/m1/720p/index.m3u8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=10"));
+        mockMvc.perform(get("/movie/videos_hsl/m1/720p/missing.ts")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void answersASingleRangeWith206() throws Exception {
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.RANGE, "bytes=100-1123"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-1123/" + SEGMENT_BYTES))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 1024))
+                .andExpect(content().bytes(Arrays.copyOfRange(segment, 100, 1124)));
+
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.RANGE, "bytes=-500"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + (SEGMENT_BYTES - 500) + "-" + (SEGMENT_BYTES - 1) + "/" + SEGMENT_BYTES))
+                .andExpect(content().bytes(Arrays.copyOfRange(segment, SEGMENT_BYTES - 500, SEGMENT_BYTES)));
+    }
+
+    @Test
+    void answersAnUnsatisfiableRangeWith416() throws Exception {
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.RANGE, "bytes=" + SEGMENT_BYTES + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + SEGMENT_BYTES));
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.RANGE, "pages=1-2"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    void answersConditionalGetsWith304() throws Exception {
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(WRITTEN)))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(WRITTEN.minusSeconds(60))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ifRangeResumesOnlyAnUnchangedSegment() throws Exception {
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(segment, 0, 10)));
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, httpDate(WRITTEN)))
+                .andExpect(status().isPartialContent());
+
+        // A stale validator gets the whole, current segment instead of a range of something else
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(segment));
+        mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, httpDate(WRITTEN.minusSeconds(60))))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(segment));
+    }
+
+    @Test
+    void handsLargeSegmentsToSendfile() throws Exception {
+        mockMvc.perform(get("/movie/videos_hsl/m1/720p/seg1.ts")
+                        .header(HttpHeaders.RANGE, "bytes=1000-")
+                        .requestAttr(HlsStreamingService.SENDFILE_SUPPORTED_ATTR, true))
+                .andExpect(status().isPartialContent())
+                .andExpect(request().attribute(HlsStreamingService.SENDFILE_START_ATTR, 1000L))
+                .andExpect(request().attribute(HlsStreamingService.SENDFILE_END_ATTR, (long) LARGE_SEGMENT_BYTES))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void cachedSegmentsServeTheSameBytes() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get(SEGMENT_URL).header(HttpHeaders.RANGE, "bytes=2000-2999"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(content().bytes(Arrays.copyOfRange(segment, 2000, 3000)));
+        }
+    }
+
+    @Test
+    void timesRangedSegmentReads() throws Exception {
+        // A segment past the cache's 64 KB limit is read from the file every time; a small one is read once more
+        // and then served from memory
+        write("m1/720p/seg2.ts", 128 * 1024);
+        Path uncached = hlsDir.resolve("m1/720p/seg2.ts");
+        Path cached = hlsDir.resolve("m1/720p/seg0.ts");
+        String range = "bytes=0-" + (SEGMENT_BYTES - 1);
+
+        long[] fromFile = time(() -> serve(uncached, range));
+        long[] fromCache = time(() -> serve(cached, range));
+
+        log.info("{} ranged 32 KB segment reads: file p50 {} us, p99 {} us; segment cache p50 {} us, p99 {} us",
+                REQUESTS, fromFile[REQUESTS / 2] / 1_000, fromFile[REQUESTS * 99 / 100] / 1_000,
+                fromCache[REQUESTS / 2] / 1_000, fromCache[REQUESTS * 99 / 100] / 1_000);
+        assertThat(fromCache[REQUESTS * 99 / 100]).isLessThan(200_000_000L);
+        assertThat(fromFile[REQUESTS * 99 / 100]).isLessThan(200_000_000L);
+    }
+
+    private long serve(Path path, String range) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", SEGMENT_URL);
+        request.addHeader(HttpHeaders.RANGE, range);
+        CountingResponse response = new CountingResponse();
+        service.serveSegment(path, request, response);
+        return response.written;
+    }
+
+    private static long[] time(Callable<Long> request) throws Exception {
+        // Warm-up, so the timed pass measures compiled code and, for the small segment, the cached copy
+        for (int i = 0; i < REQUESTS; i++) {
+            request.call();
+        }
+
+        long[] nanos = new long[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            long start = System.nanoTime();
+            long written = request.call();
+            nanos[i] = System.nanoTime() - start;
+            assertThat(written).isEqualTo(SEGMENT_BYTES);
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private byte[] write(String name, int size) throws IOException {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        Path file = hlsDir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(WRITTEN));
+        return content;
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atOffset(ZoneOffset.UTC));
+    }
+
+    /**
+     * Counts and discards the body. MockHttpServletResponse copies a write byte by byte, which would dominate the
+     * timing.
+     */
+    static class CountingResponse extends HttpServletResponseWrapper {
+        long written;
+
+        CountingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    written++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    written += len;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package movies.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import movies.config.ImageDerivativeProperties;
+import movies.config.StorageProperties;
+import movies.constant.PredefinedImages;
+import movies.entity.Image;
+import movies.entity.ImageVariant;
+import movies.repository.ImageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Generates the local renditions of fixture images drawn in the test, and logs each rendition's size next to the
+ * original's, which is what the renditions are for.
+ */
+@Slf4j
+class ImageDerivativeServiceTest {
+    @TempDir
+    Path uploadDir;
+
+    ImageRepository imageRepository = mock(ImageRepository.class);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ImageDerivativeProperties properties = new ImageDerivativeProperties();
+    ImageDerivativeService imageDerivativeService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setWidths(new LinkedHashMap<>(Map.of("thumbnail", 150, "card", 342, "backdrop", 1280)));
+        properties.setConcurrency(2);
+
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.setUploadDir(uploadDir.toString());
+
+        imageDerivativeService = new ImageDerivativeService(properties, storageProperties, imageRepository, null,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry);
+        imageDerivativeService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageDerivativeService.shutdown();
+    }
+
+    @Test
+    void jpegPosterRenditionsAreSmallerThanTheOriginal() throws IOException {
+        Image poster = fixture("poster.jpg", photo(2000, 3000, false), "jpg");
+
+        List<ImageVariant> variants = generate(poster, 3);
+
+        assertThat(variants).allSatisfy(variant -> {
+            assertThat(variant.getFormat()).isEqualTo(ImageDerivativeService.JPEG_FORMAT);
+            assertThat(variant.getHeight()).isEqualTo(variant.getWidth() * 3 / 2);
+            assertThat(variant.getFileSize()).isLessThan(poster.getFileSize());
+        });
+        assertThat(poster.getImageType()).isEqualTo(PredefinedImages.POSTER);
+    }
+
+    @Test
+    void transparentPngKeepsItsAlphaAndNeverUpscales() throws IOException {
+        Image logo = fixture("logo.png", photo(1000, 400, true), "png");
+
+        List<ImageVariant> variants = generate(logo, 2);
+
+        assertThat(variants).extracting(ImageVariant::getName).containsExactlyInAnyOrder("thumbnail", "card");
+        assertThat(variants).allSatisfy(variant -> {
+            assertThat(variant.getFormat()).isEqualTo(ImageDerivativeService.PNG_FORMAT);
+            assertThat(ImageIO.read(Paths.get(variant.getFilePath()).toFile()).getColorModel().hasAlpha()).isTrue();
+            assertThat(variant.getFileSize()).isLessThan(logo.getFileSize());
+        });
+    }
+
+    @Test
+    void wideSourceIsSubsampledButKeepsItsDimensions() throws IOException {
+        // Over twice as wide as the 1280 backdrop, so it is decoded at half size
+        Image banner = fixture("banner.jpg", photo(6000, 1000, false), "jpg");
+
+        List<ImageVariant> variants = generate(banner, 3);
+
+        assertThat(banner.getWidth()).isEqualTo(6000);
+        assertThat(banner.getHeight()).isEqualTo(1000);
+        assertThat(variants).allSatisfy(variant -> {
+            assertThat(variant.getHeight()).isEqualTo(Math.round(variant.getWidth() / 6f));
+            BufferedImage written = ImageIO.read(Paths.get(variant.getFilePath()).toFile());
+            assertThat(written.getWidth()).isEqualTo(variant.getWidth());
+            assertThat(written.getHeight()).isEqualTo(variant.getHeight());
+        });
+        log.info("banner.jpg 6000x1000: decoded and resized in {} ms", Math.round(
+                meterRegistry.find("image.derivative.duration").timer().totalTime(TimeUnit.MILLISECONDS)));
+    }
+
+    @Test
+    void sourceOverThePixelCapIsNotDecoded() throws IOException {
+        properties.setMaxPixels(5_000_000);
+        Image poster = fixture("poster.jpg", photo(2000, 3000, false), "jpg");
+
+        imageDerivativeService.generateLocalVariants(List.of(poster));
+        await().atMost(Duration.ofSeconds(30))
+                .until(() -> meterRegistry.find("image.derivative.duration").timer().count() == 1);
+
+        assertThat(poster.getVariants()).isNullOrEmpty();
+        assertThat(poster.getWidth()).isNull();
+        assertThat(poster.getImageType()).isEqualTo(PredefinedImages.OTHER);
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertThat(files).containsExactly(uploadDir.resolve("poster.jpg"));
+        }
+    }
+
+    private List<ImageVariant> generate(Image image, int expectedVariants) throws IOException {
+        imageDerivativeService.generateLocalVariants(List.of(image));
+        // The image type is refined last, once the renditions are in place
+        await().atMost(Duration.ofSeconds(30)).until(() -> !PredefinedImages.OTHER.equals(image.getImageType()));
+        assertThat(image.getVariants()).hasSize(expectedVariants);
+
+        List<ImageVariant> variants = image.getVariants();
+        for (ImageVariant variant : variants) {
+            log.info("{} {}: {}x{} {} bytes, {}% of the original's {} bytes", image.getFileName(), variant.getName(),
+                    variant.getWidth(), variant.getHeight(), variant.getFileSize(),
+                    Math.round(100.0 * variant.getFileSize() / image.getFileSize()), image.getFileSize());
+            assertThat(Files.size(Paths.get(variant.getFilePath()))).isEqualTo(variant.getFileSize());
+        }
+        DistributionSummary bytes = meterRegistry.find("image.derivative.bytes").summary();
+        assertThat(bytes).isNotNull();
+        return variants;
+    }
+
+    private Image fixture(String fileName, BufferedImage content, String format) throws IOException {
+        Path file = uploadDir.resolve(fileName);
+        ImageIO.write(content, format, file.toFile());
+
+        Image image = Image.builder()
+                .id(fileName)
+                .fileName(fileName)
+                .filePath(file.toString())
+                .fileSize(Files.size(file))
+                .imageType(PredefinedImages.OTHER)
+                .isStoredLocally(true)
+                .isStoredInCloudinary(false)
+                .build();
+        when(imageRepository.findById(image.getId())).thenReturn(Optional.of(image));
+        return image;
+    }
+
+    /**
+     * Smooth gradients with some grain, which compresses roughly like a photograph rather than like a flat fill.
+     */
+    private static BufferedImage photo(int width, int height, boolean alpha) {
+        Random random = new Random(width * 31L + height);
+        BufferedImage image =
+                new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int grain = random.nextInt(24);
+                int r = Math.min(255, x * 200 / width + grain);
+                int g = Math.min(255, y * 200 / height + grain);
+                int b = Math.min(255, (x + y) * 120 / (width + height) + 60 + grain);
+                int a = alpha ? 255 * x / width : 255;
+                image.setRGB(x, y, a << 24 | r << 16 | g << 8 | b);
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,186 @@
+package movies.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import movies.config.MailDispatchProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs {@link MailDispatcher} against an SMTP server in the same JVM, so the connection pooling can be measured
+ * without a mail provider. The throughput is logged; the assertions only check that every message arrived over no
+ * more connections than the pool holds.
+ */
+@Slf4j
+class MailDispatcherThroughputTest {
+    static final int MESSAGES = 2_000;
+    static final int POOL_SIZE = 4;
+
+    SmtpStub smtp;
+    MailDispatcher mailDispatcher;
+    JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void start() throws IOException {
+        smtp = new SmtpStub();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+
+        MailDispatchProperties properties = new MailDispatchProperties();
+        properties.setPoolSize(POOL_SIZE);
+        // Room for the whole burst, so no message runs on the caller's thread over a connection of its own
+        properties.setQueueCapacity(MESSAGES);
+        properties.setPerDomainRate(0); // unthrottled, this measures the connections
+        properties.setMaxAttempts(1);
+        properties.setRetryBackoff(Duration.ofMillis(10));
+
+        mailDispatcher = new MailDispatcher(mailSender, properties, new SimpleMeterRegistry());
+        mailDispatcher.init();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        mailDispatcher.shutdown();
+        smtp.close();
+    }
+
+    @Test
+    void sendsOverPooledConnections() throws Exception {
+        List<CompletableFuture<Void>> sends = new ArrayList<>(MESSAGES);
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            sends.add(mailDispatcher.send(message("user" + i + "@example.com")));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("Mail dispatch: {} messages over {} connection(s) in {} ms, {} messages/s", MESSAGES,
+                smtp.connections.get(), Math.round(seconds * 1000), Math.round(MESSAGES / seconds));
+        assertThat(smtp.messages.get()).isEqualTo(MESSAGES);
+        assertThat(smtp.connections.get()).isLessThanOrEqualTo(POOL_SIZE);
+    }
+
+    @Test
+    void rejectedRecipientFailsWithoutRetry() throws Exception {
+        CompletableFuture<Void> send = mailDispatcher.send(message("reject@example.com"));
+
+        assertThatThrownBy(send::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(SendFailedException.class);
+        assertThat(smtp.messages.get()).isZero();
+    }
+
+    private MimeMessage message(String recipient) throws Exception {
+        MimeMessage message = new MimeMessage(mailSender.getSession());
+        message.setFrom(new InternetAddress("noreply@movies.local"));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(recipient));
+        message.setSubject("Xác thực tài khoản", StandardCharsets.UTF_8.name());
+        message.setText("<p>token</p>", StandardCharsets.UTF_8.name(), "html");
+        return message;
+    }
+
+    /**
+     * Just enough SMTP for Jakarta Mail: accepts every message, except that recipients starting with "reject" are
+     * refused with a 550.
+     */
+    static class SmtpStub implements AutoCloseable {
+        final ServerSocket serverSocket;
+        final ExecutorService sessions = Executors.newCachedThreadPool();
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger messages = new AtomicInteger();
+
+        SmtpStub() throws IOException {
+            serverSocket = new ServerSocket(0);
+            sessions.execute(this::acceptLoop);
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    socket.setTcpNoDelay(true);
+                    connections.incrementAndGet();
+                    sessions.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return; // closed
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(
+                         new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                reply(out, "220 localhost ESMTP stub");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 localhost");
+                    } else if (command.startsWith("RCPT TO:<REJECT")) {
+                        reply(out, "550 5.1.1 mailbox unavailable");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 end data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // discard the message body
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 2.0.0 queued");
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 2.0.0 bye");
+                        return;
+                    } else {
+                        // MAIL, RCPT, RSET, NOOP
+                        reply(out, "250 2.0.0 ok");
+                    }
+                }
+            } catch (IOException e) {
+                // client went away
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            sessions.shutdownNow();
+        }
+    }
+}
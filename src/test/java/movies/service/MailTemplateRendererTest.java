@@ -0,0 +1,67 @@
+package movies.service;
+
+import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedMailTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class MailTemplateRendererTest {
+    static final List<String> TEMPLATES =
+            List.of(PredefinedMailTemplate.CONFIRM_EMAIL, PredefinedMailTemplate.FORGOT_PASSWORD);
+
+    MailTemplateRenderer renderer = new MailTemplateRenderer("", Duration.ofSeconds(10), "http://localhost:3000");
+
+    @Test
+    void rendersInTheRequestedLanguageAndDefaultsToVietnamese() {
+        Map<String, Object> variables = Map.of("token", "abc123");
+
+        MailTemplateRenderer.RenderedMail english =
+                renderer.render(PredefinedMailTemplate.CONFIRM_EMAIL, "en", variables);
+        MailTemplateRenderer.RenderedMail fallback =
+                renderer.render(PredefinedMailTemplate.CONFIRM_EMAIL, null, variables);
+
+        assertThat(english.subject()).isEqualTo("Confirm your email");
+        assertThat(english.html()).contains("http://localhost:3000/confirm-email?token=abc123");
+        assertThat(fallback).isEqualTo(renderer.render(PredefinedMailTemplate.CONFIRM_EMAIL,
+                PredefinedMailTemplate.DEFAULT_LOCALE, variables));
+        assertThat(fallback.subject()).isEqualTo("Xác nhận email của bạn");
+    }
+
+    /**
+     * A plain timing run in place of a JMH harness: templates are parsed once, so a render should cost well under a
+     * millisecond. The bound is loose on purpose; the percentiles are logged.
+     */
+    @Test
+    void renderLatency() {
+        int renders = 20_000;
+        // Warm-up, so the timed pass measures compiled code and cached templates
+        for (int i = 0; i < renders; i++) {
+            render(i);
+        }
+
+        long[] nanos = new long[renders];
+        for (int i = 0; i < renders; i++) {
+            long start = System.nanoTime();
+            render(i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p50 = nanos[renders / 2];
+        long p99 = nanos[renders * 99 / 100];
+
+        log.info("Mail templates: {} renders, p50 {} us, p99 {} us, max {} us", renders, p50 / 1_000, p99 / 1_000,
+                nanos[renders - 1] / 1_000);
+        assertThat(p99).isLessThan(20_000_000L);
+    }
+
+    private void render(int i) {
+        renderer.render(TEMPLATES.get(i % TEMPLATES.size()), i % 3 == 0 ? "en" : null, Map.of("token", "token-" + i));
+    }
+}
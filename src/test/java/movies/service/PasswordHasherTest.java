@@ -0,0 +1,78 @@
+package movies.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import movies.config.PasswordHashingProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times a login's password check at each BCrypt cost worth considering, on one worker, which gives the logins per
+ * second a core can sustain. A plain timing run in place of a JMH harness; the figures are logged, and the assertions
+ * only check that two steps of cost at least double the time.
+ */
+@Slf4j
+class PasswordHasherTest {
+    static final String PASSWORD = "correct horse battery staple";
+
+    @Test
+    void loginsPerSecondPerCoreAtEachCost() {
+        Map<Integer, Double> millisPerLogin = new LinkedHashMap<>();
+        for (int strength : new int[]{8, 10, 12}) {
+            PasswordHasher hasher = hasher(strength);
+            try {
+                String hash = hasher.encode(PASSWORD);
+                assertThat(hasher.needsRehash(hash)).isFalse();
+                // Fewer rounds at the higher costs, so the run stays a few seconds
+                int logins = 1 << (14 - strength);
+                hasher.matches(PASSWORD, hash); // warm-up
+
+                long start = System.nanoTime();
+                for (int i = 0; i < logins; i++) {
+                    assertThat(hasher.matches(PASSWORD, hash)).isTrue();
+                }
+                double millis = (System.nanoTime() - start) / 1e6 / logins;
+                millisPerLogin.put(strength, millis);
+
+                log.info("BCrypt cost {}: {} ms per login, {} logins/s per core", strength,
+                        Math.round(millis * 10) / 10.0, Math.round(10_000 / millis) / 10.0);
+            } finally {
+                hasher.shutdown();
+            }
+        }
+
+        // Two steps of cost are four times the work; allow for timer noise on a shared machine
+        assertThat(millisPerLogin.get(12)).isGreaterThan(millisPerLogin.get(10) * 2);
+        assertThat(millisPerLogin.get(10)).isGreaterThan(millisPerLogin.get(8) * 2);
+    }
+
+    @Test
+    void hashesFromAnotherCostAreFlaggedForRehash() {
+        PasswordHasher hasher = hasher(10);
+        try {
+            String older = new BCryptPasswordEncoder(8).encode(PASSWORD);
+
+            assertThat(hasher.matches(PASSWORD, older)).isTrue();
+            assertThat(hasher.needsRehash(older)).isTrue();
+            assertThat(hasher.needsRehash(hasher.encode(PASSWORD))).isFalse();
+            assertThat(hasher.matches(PASSWORD, null)).isFalse();
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    private static PasswordHasher hasher(int strength) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setStrength(strength);
+        properties.setConcurrency(1);
+        PasswordHasher hasher =
+                new PasswordHasher(new BCryptPasswordEncoder(strength), properties, new SimpleMeterRegistry());
+        hasher.init();
+        return hasher;
+    }
+}
@@ -0,0 +1,206 @@
+package movies.service.search;
+
+import movies.document.MovieDocument;
+import movies.document.SeriesDocument;
+import movies.dto.request.search.SearchRequest;
+import movies.dto.response.search.SearchHitResponse;
+import movies.dto.response.search.SearchResponse;
+import movies.dto.response.search.UnifiedSearchResponse;
+import movies.mapper.MovieDocumentMapperImpl;
+import movies.mapper.SeriesDocumentMapperImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemorySearchEngineTest {
+    InMemorySearchEngine engine = new InMemorySearchEngine(new MovieDocumentMapperImpl(), new SeriesDocumentMapperImpl());
+
+    @BeforeEach
+    void index() {
+        engine.indexAll(List.of(
+                movie("m1", "Hà Nội mùa đông", "A winter love story", "VN", 2019, 8.0, "Drama", "Romance"),
+                movie("m2", "Winter Night", "Snow falls on Hà Nội", "VN", 2021, 7.0, "Drama"),
+                movie("m3", "Summer Road", "A road trip across the country", "US", 2021, 6.0, "Comedy"),
+                movie("m4", "Dark Star", "Winter winter winter in space", "US", 2015, 9.0, "Sci-Fi"),
+                movie("m5", "Starlight Express", "A train through the night", "UK", 2010, 5.0, "Drama")));
+        engine.indexAllSeries(List.of(
+                series("s1", "Winter Kingdom", "Court intrigue", List.of("The Long Night"), "Drama")));
+    }
+
+    @Test
+    void titleHitsOutrankDescriptionHits() {
+        // "winter" is in the titles of m2 and, with three occurrences, the description of m4
+        assertThat(ids(search("winter"))).startsWith("m2").contains("m1", "m4");
+    }
+
+    @Test
+    void rarerTermsWeighMore() {
+        // Both terms appear once in a description, but "a" is in three movies and "snow" in one
+        SearchResponse response = search("a snow");
+
+        assertThat(ids(response)).containsExactlyInAnyOrder("m1", "m2", "m3", "m5").first().isEqualTo("m2");
+        assertThat(response.getData().get(0).getScore()).isGreaterThan(response.getData().get(1).getScore());
+    }
+
+    @Test
+    void accentsAreFolded() {
+        assertThat(ids(search("ha noi"))).containsExactlyInAnyOrder("m1", "m2");
+        assertThat(ids(search("HÀ NỘI"))).containsExactlyInAnyOrder("m1", "m2");
+    }
+
+    @Test
+    void lastTermMatchesAsAPrefix() {
+        assertThat(ids(search("sta"))).containsExactlyInAnyOrder("m4", "m5");
+        assertThat(ids(search("expr"))).containsExactly("m5");
+        // Only the last term expands, so "expr" in first position matches nothing
+        assertThat(ids(search("expr space"))).containsExactly("m4");
+    }
+
+    @Test
+    void exactMatchOutranksPrefixExpansion() {
+        // "star" is exact for m4 and a prefix of m5's "starlight"
+        assertThat(ids(search("star"))).containsExactly("m4", "m5");
+    }
+
+    @Test
+    void typosWithinTheEditBudgetStillMatch() {
+        // One edit for a five-letter term, two for six and longer, none under three letters
+        assertThat(ids(search("wintr"))).contains("m2");
+        assertThat(ids(search("sumnmer"))).containsExactly("m3");
+        assertThat(ids(search("xyzzy"))).isEmpty();
+    }
+
+    @Test
+    void fuzzyExpansionIsOnlyAFallback() {
+        // "rood" is one substitution from "road" and has no exact or prefix match, so it falls back to fuzzy
+        SearchResponse exact = search("road");
+        SearchResponse fuzzy = search("rood");
+
+        assertThat(ids(exact)).containsExactly("m3");
+        assertThat(ids(fuzzy)).containsExactly("m3");
+        assertThat(fuzzy.getData().get(0).getScore()).isLessThan(exact.getData().get(0).getScore());
+    }
+
+    @Test
+    void facetsCountTheFilteredMatches() {
+        SearchResponse response = engine.search(SearchRequest.builder().query("").countries(Set.of("VN", "US")).build());
+
+        assertThat(response.getTotalElements()).isEqualTo(4);
+        assertThat(buckets(response, SearchEngine.FACET_GENRES))
+                .containsExactly("Drama=2", "Comedy=1", "Romance=1", "Sci-Fi=1");
+        assertThat(buckets(response, SearchEngine.FACET_COUNTRIES)).containsExactly("US=2", "VN=2");
+        assertThat(buckets(response, SearchEngine.FACET_YEARS)).containsExactly("2021=2", "2015=1", "2019=1");
+    }
+
+    @Test
+    void filtersNarrowByGenreAndYear() {
+        SearchResponse response = engine.search(SearchRequest.builder()
+                .query("").genres(Set.of("Drama")).yearFrom(2015).yearTo(2020).build());
+
+        assertThat(ids(response)).containsExactly("m1");
+    }
+
+    @Test
+    void searchAllKeepsMoviesAndSeriesApart() {
+        UnifiedSearchResponse response = engine.searchAll(SearchRequest.builder().query("night").build());
+
+        assertThat(ids(response.getMovies())).containsExactlyInAnyOrder("m2", "m5");
+        // Season titles are searchable on the series
+        assertThat(ids(response.getSeries())).containsExactly("s1");
+        assertThat(response.getSeries().getFacets()).doesNotContainKey(SearchEngine.FACET_YEARS);
+    }
+
+    @Test
+    void reindexingAndDeletingUpdateThePostings() {
+        engine.indexAll(List.of(movie("m3", "Autumn Road", "", "US", 2021, 6.0, "Comedy")));
+        engine.deleteAll(List.of("m4"));
+
+        assertThat(ids(search("summer"))).isEmpty();
+        assertThat(ids(search("autumn"))).containsExactly("m3");
+        assertThat(ids(search("dark"))).isEmpty();
+    }
+
+    @Test
+    void rebuildSwapsInTheNewIndexAndKeepsConcurrentWrites() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch writesDone = new CountDownLatch(1);
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(() -> engine.rebuild(writer -> {
+            writer.movies(List.of(
+                    movie("m1", "Hà Nội mùa đông", "", "VN", 2019, 8.0, "Drama"),
+                    movie("m4", "Dark Star", "", "US", 2015, 9.0, "Sci-Fi")));
+            loading.countDown();
+            await(writesDone);
+            writer.series(List.of(series("s2", "Night Shift", "", List.of(), "Drama")));
+        }));
+
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+        // Writes made while the rebuild is loading land in both the live and the new index
+        engine.indexAll(List.of(movie("m6", "Winter Solstice", "", "NO", 2023, 7.5, "Drama")));
+        engine.deleteAll(List.of("m4"));
+        // Searches during the load still see the live index
+        assertThat(ids(search("summer"))).containsExactly("m3");
+        writesDone.countDown();
+        rebuild.get(10, TimeUnit.SECONDS);
+
+        assertThat(engine.needsRebuild()).isFalse();
+        // m2, m3 and m5 were not reloaded, so the swap dropped them; m6 survived, the deleted m4 did not come back
+        assertThat(ids(engine.search(SearchRequest.builder().query("").build())))
+                .containsExactlyInAnyOrder("m1", "m6");
+        assertThat(ids(engine.searchAll(SearchRequest.builder().query("night").build()).getSeries()))
+                .containsExactly("s2");
+    }
+
+    private SearchResponse search(String query) {
+        return engine.search(SearchRequest.builder().query(query).build());
+    }
+
+    private static List<String> ids(SearchResponse response) {
+        return response.getData().stream().map(SearchHitResponse::getId).toList();
+    }
+
+    private static List<String> buckets(SearchResponse response, String facet) {
+        return response.getFacets().get(facet).stream()
+                .map(bucket -> bucket.getValue() + "=" + bucket.getCount())
+                .toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static MovieDocument movie(String id, String title, String description, String country, int year,
+                               double rating, String... genres) {
+        return MovieDocument.builder()
+                .id(id)
+                .title(title)
+                .description(description)
+                .country(country)
+                .releaseYear(year)
+                .averageRating(rating)
+                .genres(Set.of(genres))
+                .build();
+    }
+
+    private static SeriesDocument series(String id, String title, String description, List<String> seasonTitles,
+                                         String... genres) {
+        return SeriesDocument.builder()
+                .id(id)
+                .title(title)
+                .description(description)
+                .seasonTitles(seasonTitles)
+                .genres(Set.of(genres))
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package movies.service.search;
+
+import lombok.extern.slf4j.Slf4j;
+import movies.constant.PredefinedSearch;
+import movies.dto.response.search.SuggestionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class TitleSuggesterTest {
+    static final String[] WORDS = {
+            "the", "last", "night", "city", "love", "war", "star", "dark", "house", "river", "song", "game",
+            "king", "queen", "road", "summer", "winter", "ha", "noi", "mua", "dong", "tinh", "yeu", "nguoi"
+    };
+
+    @Test
+    void popularTitleLateInAWideRangeIsFound() {
+        List<TitleSuggester.Entry> entries = new ArrayList<>();
+        // 30,000 obscure titles starting "the a..." sort ahead of the one popular "the zebra"
+        for (int i = 0; i < 30_000; i++) {
+            entries.add(entry("m" + i, "The A" + letters(i), 0.0));
+        }
+        entries.add(entry("hit", "The Zebra", 50.0));
+
+        TitleSuggester.Snapshot snapshot = TitleSuggester.Snapshot.build(entries);
+
+        assertThat(snapshot.lookup("the", 5)).first()
+                .extracting(SuggestionResponse::getId).isEqualTo("hit");
+    }
+
+    @Test
+    void lookupMatchesBruteForceRanking() {
+        Random random = new Random(42);
+        List<TitleSuggester.Entry> entries = randomCatalog(random, 5_000);
+        TitleSuggester.Snapshot snapshot = TitleSuggester.Snapshot.build(entries);
+
+        for (String prefix : List.of("t", "th", "the", "the l", "ha n", "ng", "love", "s", "winter r")) {
+            List<String> expected = bruteForce(entries, prefix, 10);
+            List<String> actual = snapshot.lookup(prefix, 10).stream().map(SuggestionResponse::getId).toList();
+            assertThat(actual).as("prefix '%s'", prefix).isEqualTo(expected);
+        }
+    }
+
+    /**
+     * A plain timing run in place of a JMH harness: 200,000 titles, lookups over random prefixes of three or more
+     * characters (the ones that are not precomputed). The bound is loose on purpose; the percentiles are logged.
+     */
+    @Test
+    void lookupLatency() {
+        Random random = new Random(7);
+        List<TitleSuggester.Entry> entries = randomCatalog(random, 200_000);
+
+        long buildStart = System.nanoTime();
+        TitleSuggester.Snapshot snapshot = TitleSuggester.Snapshot.build(entries);
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String title = String.join(" ", entries.get(random.nextInt(entries.size())).tokens());
+            prefixes.add(title.substring(0, Math.min(title.length(), 3 + random.nextInt(6))));
+        }
+        // Warm-up, so the timed pass measures compiled code
+        prefixes.forEach(prefix -> snapshot.lookup(prefix, 10));
+
+        long[] nanos = new long[prefixes.size()];
+        for (int i = 0; i < prefixes.size(); i++) {
+            long start = System.nanoTime();
+            snapshot.lookup(prefixes.get(i), 10);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p50 = nanos[nanos.length / 2];
+        long p99 = nanos[nanos.length * 99 / 100];
+
+        log.info("Title suggestions: {} keys built in {} ms, lookup p50 {} us, p99 {} us, max {} us",
+                snapshot.keys.length, buildMillis, p50 / 1_000, p99 / 1_000, nanos[nanos.length - 1] / 1_000);
+        assertThat(p99).isLessThan(10_000_000L);
+    }
+
+    private static List<TitleSuggester.Entry> randomCatalog(Random random, int size) {
+        List<TitleSuggester.Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int words = 1 + random.nextInt(4);
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                title.append(w == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            title.append(" ").append(i);
+            entries.add(entry("m" + i, title.toString(), random.nextDouble() * 20));
+        }
+        return entries;
+    }
+
+    /**
+     * Scores every title by its best key with the prefix, the same weighting as {@link TitleSuggester.Snapshot#build}.
+     */
+    private static List<String> bruteForce(List<TitleSuggester.Entry> entries, String prefix, int limit) {
+        Map<TitleSuggester.Entry, Double> scores = new HashMap<>();
+        for (TitleSuggester.Entry entry : entries) {
+            List<String> tokens = entry.tokens();
+            for (int start = 0; start < Math.min(tokens.size(), TitleSuggester.MAX_WORD_STARTS); start++) {
+                String key = String.join(" ", tokens.subList(start, tokens.size()));
+                if (key.startsWith(prefix)) {
+                    double weight = (entry.popularity() + 1.0) * (start == 0 ? TitleSuggester.TITLE_START_BOOST : 1.0);
+                    scores.merge(entry, weight, Math::max);
+                }
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<TitleSuggester.Entry, Double>comparingByValue().reversed()
+                        .thenComparing(score -> score.getKey().suggestion().getTitle().length()))
+                .limit(limit)
+                .map(score -> score.getKey().suggestion().getId())
+                .toList();
+    }
+
+    private static TitleSuggester.Entry entry(String id, String title, double popularity) {
+        SuggestionResponse suggestion = new SuggestionResponse(PredefinedSearch.AGGREGATE_MOVIE, id, title, null);
+        return new TitleSuggester.Entry(suggestion, TextNormalizer.tokenize(title), popularity);
+    }
+
+    private static String letters(int value) {
+        StringBuilder letters = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            letters.append((char) ('a' + value % 26));
+            value /= 26;
+        }
+        return letters.reverse().toString();
+    }
+}
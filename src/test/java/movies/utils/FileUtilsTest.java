@@ -0,0 +1,152 @@
+package movies.utils;
+
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Uploads a file several times larger than the heap through a real multipart request and {@link FileUtils#stageUpload}.
+ * The upload runs in a child JVM started with {@link #HEAP}, so any full in-heap read of the part fails the run with
+ * an OutOfMemoryError instead of passing on a roomy test heap.
+ */
+@Slf4j
+class FileUtilsTest {
+    static final String HEAP = "-Xmx48m";
+    static final long UPLOAD_BYTES = 256L * 1024 * 1024;
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void stagesAnUploadLargerThanTheHeap() throws Exception {
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        Process process = new ProcessBuilder(List.of(java.toString(), HEAP,
+                "-cp", System.getProperty("java.class.path"),
+                CappedHeapUpload.class.getName(), workDir.toString(), Long.toString(UPLOAD_BYTES)))
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(process.waitFor(5, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(process.exitValue()).as(output).isZero();
+        String result = output.lines().filter(line -> line.startsWith("staged ")).findFirst().orElseThrow();
+        log.info("Capped-heap upload: {}", result);
+        String[] fields = result.split(" ");
+        long stagedBytes = Long.parseLong(fields[1]);
+        long maxHeap = Long.parseLong(fields[2]);
+        assertThat(stagedBytes).isEqualTo(UPLOAD_BYTES).isGreaterThan(4 * maxHeap);
+        assertThat(fields[3]).as("checksum of the staged file").isEqualTo(fields[4]);
+    }
+
+    /**
+     * The child JVM: an embedded Tomcat spooling parts to disk, a servlet staging the part the way the upload
+     * endpoints do, and a client streaming generated bytes so neither side holds the file.
+     * Prints {@code staged <bytes> <max heap> <sent crc> <staged crc>}.
+     */
+    static class CappedHeapUpload {
+        static final String BOUNDARY = "capped-heap-boundary";
+
+        public static void main(String[] args) throws Exception {
+            Path dir = Paths.get(args[0]);
+            long size = Long.parseLong(args[1]);
+
+            Tomcat tomcat = new Tomcat();
+            tomcat.setBaseDir(dir.resolve("tomcat").toString());
+            tomcat.setPort(0);
+            tomcat.getConnector();
+            Context context = tomcat.addContext("", null);
+            Wrapper wrapper = Tomcat.addServlet(context, "upload", new StagingServlet());
+            wrapper.setMultipartConfigElement(new MultipartConfigElement(dir.toString(), -1, -1, 0));
+            context.addServletMappingDecoded("/upload", "upload");
+            tomcat.start();
+            try {
+                CRC32 sent = new CRC32();
+                String[] staged = upload(tomcat.getConnector().getLocalPort(), size, sent).split(" ");
+                System.out.println("staged " + staged[0] + " " + Runtime.getRuntime().maxMemory() + " "
+                        + sent.getValue() + " " + staged[1]);
+            } finally {
+                tomcat.stop();
+                tomcat.destroy();
+            }
+        }
+
+        private static String upload(int port, long size, CRC32 crc) throws IOException {
+            byte[] head = ("--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"movie.mp4\"\r\n"
+                    + "Content-Type: video/mp4\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+            HttpURLConnection connection = (HttpURLConnection) URI.create("http://localhost:" + port + "/upload")
+                    .toURL().openConnection();
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+            connection.setFixedLengthStreamingMode(head.length + size + tail.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(head);
+                byte[] block = new byte[64 * 1024];
+                for (long written = 0; written < size; written += block.length) {
+                    fill(block, written);
+                    int length = (int) Math.min(block.length, size - written);
+                    crc.update(block, 0, length);
+                    out.write(block, 0, length);
+                }
+                out.write(tail);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+            }
+        }
+
+        private static void fill(byte[] block, long offset) {
+            for (int i = 0; i < block.length; i++) {
+                long position = offset + i;
+                block[i] = (byte) (position ^ (position >>> 11));
+            }
+        }
+    }
+
+    static class StagingServlet extends HttpServlet {
+        @Override
+        protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            MultipartFile file = new StandardServletMultipartResolver().resolveMultipart(request).getFile("file");
+            Path staged = new FileUtils().stageUpload(file);
+            try {
+                CRC32 crc = new CRC32();
+                try (InputStream in = Files.newInputStream(staged)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    for (int read; (read = in.read(buffer)) > 0; ) {
+                        crc.update(buffer, 0, read);
+                    }
+                }
+                response.getWriter().print(Files.size(staged) + " " + crc.getValue());
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+        }
+    }
+}